@@ -0,0 +1,47 @@
+package joelbits.modules.preprocessing.plugins.benchmarks;
+
+import com.github.javaparser.ast.CompilationUnit;
+import joelbits.model.ast.protobuf.ASTProtos.Declaration;
+import joelbits.modules.preprocessing.plugins.ParserOptions;
+import joelbits.modules.preprocessing.plugins.visitors.ClassOrInterfaceVisitor;
+import joelbits.modules.preprocessing.plugins.visitors.VisitorContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the conversion of a harness class, in which few methods are benchmarks, with and without the
+ * benchmark filter.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class BenchmarkFilterBenchmark {
+    @Param({"SMALL", "MEDIUM", "HUGE"})
+    public CorpusSize size;
+
+    @Param({"false", "true"})
+    public boolean benchmarkFilter;
+
+    private ParserOptions options;
+    private CompilationUnit compilationUnit;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        options = ParserOptions.defaults().withBenchmarkFilter(benchmarkFilter);
+        compilationUnit = com.github.javaparser.JavaParser.parse(new CorpusGenerator().generateHarness("GeneratedHarness", size));
+    }
+
+    @Benchmark
+    public List<Declaration> convert() {
+        VisitorContext.current().configure(options);
+        List<Declaration> declarations = new ArrayList<>();
+        compilationUnit.accept(new ClassOrInterfaceVisitor(), declarations);
+        return declarations;
+    }
+}
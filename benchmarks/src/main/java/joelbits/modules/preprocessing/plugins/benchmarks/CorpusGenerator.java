@@ -0,0 +1,186 @@
+package joelbits.modules.preprocessing.plugins.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Generates JMH benchmark classes of a given size, resembling the benchmark files found in mined repositories.
+ */
+public final class CorpusGenerator {
+    public static final String PACKAGE = "org.sample.generated";
+
+    public String generate(String className, CorpusSize size) {
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(PACKAGE).append(";\n\n")
+                .append("import org.openjdk.jmh.annotations.*;\n")
+                .append("import org.openjdk.jmh.infra.Blackhole;\n")
+                .append("import java.util.concurrent.TimeUnit;\n\n")
+                .append("@BenchmarkMode(Mode.AverageTime)\n")
+                .append("@OutputTimeUnit(TimeUnit.NANOSECONDS)\n")
+                .append("@Fork(value = 2, jvmArgs = {\"-Xms2g\", \"-Xmx2g\"})\n")
+                .append("@Warmup(iterations = 5, time = 1)\n")
+                .append("@Measurement(iterations = 10, time = 1)\n")
+                .append("@State(Scope.Benchmark)\n")
+                .append("public class ").append(className).append(" {\n");
+
+        for (int i = 0; i < size.getFields(); i++) {
+            source.append("    @Param({\"10\", \"100\", \"1000\"})\n")
+                    .append("    public int size").append(i).append(";\n")
+                    .append("    private final String name").append(i).append(" = \"value").append(i).append("\";\n");
+        }
+
+        for (int i = 0; i < size.getStateClasses(); i++) {
+            appendStateClass(source, i);
+        }
+
+        for (int i = 0; i < size.getBenchmarkMethods(); i++) {
+            appendBenchmarkMethod(source, i, size, true);
+        }
+
+        return source.append("}\n").toString();
+    }
+
+    /**
+     * Generates a harness class of a given size without class level JMH annotations, in which only every eighth
+     * method is annotated with @Benchmark while the others are plain methods with the same bodies.
+     */
+    public String generateHarness(String className, CorpusSize size) {
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(PACKAGE).append(";\n\n")
+                .append("import org.openjdk.jmh.annotations.*;\n")
+                .append("import org.openjdk.jmh.infra.Blackhole;\n\n")
+                .append("public class ").append(className).append(" {\n");
+
+        for (int i = 0; i < size.getFields(); i++) {
+            source.append("    private int size").append(i).append(" = 100;\n")
+                    .append("    private final String name").append(i).append(" = \"value").append(i).append("\";\n");
+        }
+
+        for (int i = 0; i < size.getStateClasses(); i++) {
+            appendStateClass(source, i);
+        }
+
+        for (int i = 0; i < size.getBenchmarkMethods(); i++) {
+            appendBenchmarkMethod(source, i, size, i % 8 == 0);
+        }
+
+        return source.append("}\n").toString();
+    }
+
+    private void appendStateClass(StringBuilder source, int index) {
+        source.append("\n    @State(Scope.Thread)\n")
+                .append("    public static class State").append(index).append(" {\n")
+                .append("        int[] values;\n")
+                .append("        long total;\n\n")
+                .append("        @Setup(Level.Trial)\n")
+                .append("        public void setup() {\n")
+                .append("            values = new int[1024];\n")
+                .append("            for (int i = 0; i < values.length; i++) {\n")
+                .append("                values[i] = i * ").append(index + 1).append(";\n")
+                .append("            }\n")
+                .append("        }\n\n")
+                .append("        @TearDown\n")
+                .append("        public void tearDown() {\n")
+                .append("            total = 0L;\n")
+                .append("        }\n")
+                .append("    }\n");
+    }
+
+    private void appendBenchmarkMethod(StringBuilder source, int index, CorpusSize size, boolean annotated) {
+        int state = size.getStateClasses() == 0 ? 0 : index % size.getStateClasses();
+        int field = index % size.getFields();
+        source.append(annotated ? "\n    @Benchmark\n" : "\n")
+                .append("    public void measure").append(index).append("(Blackhole bh, State").append(state).append(" state) {\n")
+                .append("        int sum = 0;\n")
+                .append("        for (int i = 0; i < size").append(field).append("; i++) {\n")
+                .append("            sum += state.values[i % state.values.length] * ").append(index).append(";\n")
+                .append("        }\n")
+                .append("        if (sum > ").append(index).append(") {\n")
+                .append("            bh.consume(sum);\n")
+                .append("        } else {\n")
+                .append("            bh.consume(name").append(field).append(".length());\n")
+                .append("        }\n")
+                .append("        while (sum > 0) {\n")
+                .append("            sum = sum / 2;\n")
+                .append("        }\n")
+                .append("        for (int value : state.values) {\n")
+                .append("            switch (value % 3) {\n")
+                .append("                case 0:\n")
+                .append("                    sum += value;\n")
+                .append("                    break;\n")
+                .append("                case 1:\n")
+                .append("                    sum -= value;\n")
+                .append("                    break;\n")
+                .append("                default:\n")
+                .append("                    bh.consume(value);\n")
+                .append("            }\n")
+                .append("        }\n")
+                .append("        try {\n")
+                .append("            bh.consume(Integer.parseInt(name").append(field).append(".substring(5)));\n")
+                .append("        } catch (NumberFormatException e) {\n")
+                .append("            bh.consume(e);\n")
+                .append("        }\n")
+                .append("        state.total = state.total + sum;\n")
+                .append("        bh.consume(new StringBuilder().append(sum).append(state.total).toString());\n")
+                .append("    }\n");
+    }
+
+    /**
+     * Generates a benchmark class whose state classes are nested to the given depth, each level declaring a few
+     * sibling state classes besides the class holding the next level.
+     */
+    public String generateNested(String className, int depth) {
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(PACKAGE).append(";\n\n")
+                .append("import org.openjdk.jmh.annotations.*;\n\n")
+                .append("@State(Scope.Benchmark)\n")
+                .append("public class ").append(className).append(" {\n");
+        appendNestedLevel(source, 1, depth);
+        return source.append("}\n").toString();
+    }
+
+    private void appendNestedLevel(StringBuilder source, int level, int depth) {
+        for (int i = 0; i < 4; i++) {
+            appendStateClass(source, level * 4 + i);
+        }
+        if (level < depth) {
+            source.append("\n    public static class Level").append(level).append(" {\n");
+            appendNestedLevel(source, level + 1, depth);
+            source.append("    }\n");
+        }
+    }
+
+    /**
+     * Writes a generated benchmark class to a temporary file that is deleted on exit.
+     */
+    public File writeTemporaryFile(String className, CorpusSize size) throws IOException {
+        File directory = Files.createTempDirectory("parser-corpus").toFile();
+        File file = new File(directory, className + ".java");
+        Files.write(file.toPath(), generate(className, size).getBytes(StandardCharsets.UTF_8));
+        file.deleteOnExit();
+        directory.deleteOnExit();
+        return file;
+    }
+
+    /**
+     * Writes the given number of generated benchmark classes to a temporary source root that is deleted on exit.
+     */
+    public File writeTemporaryProject(int files, CorpusSize size) throws IOException {
+        File directory = Files.createTempDirectory("parser-project").toFile();
+        File packageDirectory = new File(directory, PACKAGE.replace('.', File.separatorChar));
+        directory.deleteOnExit();
+        for (File parent = packageDirectory; !parent.equals(directory); parent = parent.getParentFile()) {
+            parent.deleteOnExit();
+        }
+        Files.createDirectories(packageDirectory.toPath());
+        for (int i = 0; i < files; i++) {
+            String className = "GeneratedBenchmark" + i;
+            File file = new File(packageDirectory, className + ".java");
+            Files.write(file.toPath(), generate(className, size).getBytes(StandardCharsets.UTF_8));
+            file.deleteOnExit();
+        }
+        return directory;
+    }
+}
@@ -0,0 +1,32 @@
+package joelbits.modules.preprocessing.plugins.benchmarks;
+
+/**
+ * The sizes of the generated benchmark classes used as parser input.
+ */
+public enum CorpusSize {
+    SMALL(2, 5, 1),
+    MEDIUM(10, 50, 3),
+    HUGE(50, 1000, 20);
+
+    private final int fields;
+    private final int benchmarkMethods;
+    private final int stateClasses;
+
+    CorpusSize(int fields, int benchmarkMethods, int stateClasses) {
+        this.fields = fields;
+        this.benchmarkMethods = benchmarkMethods;
+        this.stateClasses = stateClasses;
+    }
+
+    public int getFields() {
+        return fields;
+    }
+
+    public int getBenchmarkMethods() {
+        return benchmarkMethods;
+    }
+
+    public int getStateClasses() {
+        return stateClasses;
+    }
+}
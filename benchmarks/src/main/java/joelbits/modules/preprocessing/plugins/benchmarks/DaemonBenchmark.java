@@ -0,0 +1,51 @@
+package joelbits.modules.preprocessing.plugins.benchmarks;
+
+import joelbits.modules.preprocessing.plugins.JavaParser;
+import joelbits.modules.preprocessing.plugins.daemon.DaemonClient;
+import joelbits.modules.preprocessing.plugins.daemon.ParseDaemon;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of having a file parsed by a ParseDaemon compared to parsing it in the same JVM.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class DaemonBenchmark {
+    @Param({"SMALL", "MEDIUM"})
+    public CorpusSize size;
+
+    private final JavaParser parser = new JavaParser();
+    private ParseDaemon daemon;
+    private DaemonClient client;
+    private File benchmarkFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        daemon = new ParseDaemon(new JavaParser(), 0, 2).start();
+        client = DaemonClient.connect(daemon.getPort());
+        benchmarkFile = new CorpusGenerator().writeTemporaryFile("GeneratedBenchmark", size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        client.close();
+        daemon.close();
+    }
+
+    @Benchmark
+    public byte[] parseInProcess() throws Exception {
+        return parser.parse(benchmarkFile);
+    }
+
+    @Benchmark
+    public byte[] parseInDaemon() throws Exception {
+        return client.parse(benchmarkFile);
+    }
+}
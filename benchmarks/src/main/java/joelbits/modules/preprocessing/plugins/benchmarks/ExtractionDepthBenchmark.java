@@ -0,0 +1,60 @@
+package joelbits.modules.preprocessing.plugins.benchmarks;
+
+import com.github.javaparser.ast.CompilationUnit;
+import joelbits.model.ast.protobuf.ASTProtos.Declaration;
+import joelbits.modules.preprocessing.plugins.JavaParser;
+import joelbits.modules.preprocessing.plugins.ParserOptions;
+import joelbits.modules.preprocessing.plugins.types.ExtractionDepth;
+import joelbits.modules.preprocessing.plugins.visitors.ClassOrInterfaceVisitor;
+import joelbits.modules.preprocessing.plugins.visitors.VisitorContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the extraction depths, both for the conversion of an already parsed compilation unit and for the
+ * complete parse of a file.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class ExtractionDepthBenchmark {
+    @Param({"SMALL", "MEDIUM", "HUGE"})
+    public CorpusSize size;
+
+    @Param({"SIGNATURES", "ANNOTATIONS", "BODIES"})
+    public ExtractionDepth depth;
+
+    private ParserOptions options;
+    private JavaParser parser;
+    private File benchmarkFile;
+    private CompilationUnit compilationUnit;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        options = ParserOptions.defaults().withExtractionDepth(depth);
+        parser = new JavaParser(options);
+        CorpusGenerator corpusGenerator = new CorpusGenerator();
+        benchmarkFile = corpusGenerator.writeTemporaryFile("GeneratedBenchmark", size);
+        compilationUnit = com.github.javaparser.JavaParser.parse(corpusGenerator.generate("GeneratedBenchmark", size));
+    }
+
+    @Benchmark
+    public List<Declaration> convert() {
+        VisitorContext.current().configure(options);
+        List<Declaration> declarations = new ArrayList<>();
+        compilationUnit.accept(new ClassOrInterfaceVisitor(), declarations);
+        return declarations;
+    }
+
+    @Benchmark
+    public byte[] parse() throws Exception {
+        return parser.parse(benchmarkFile);
+    }
+}
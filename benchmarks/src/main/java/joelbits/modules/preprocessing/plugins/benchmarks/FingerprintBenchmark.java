@@ -0,0 +1,86 @@
+package joelbits.modules.preprocessing.plugins.benchmarks;
+
+import joelbits.model.ast.protobuf.ASTProtos.ASTRoot;
+import joelbits.model.ast.protobuf.ASTProtos.Declaration;
+import joelbits.model.ast.protobuf.ASTProtos.Method;
+import joelbits.model.ast.protobuf.ASTProtos.Namespace;
+import joelbits.modules.preprocessing.plugins.JavaParser;
+import joelbits.modules.preprocessing.plugins.ParserOptions;
+import joelbits.modules.preprocessing.plugins.fingerprint.FingerprintIndex;
+import joelbits.modules.preprocessing.plugins.fingerprint.MethodFingerprint;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares finding the near duplicates of the benchmarks of a harness among many indexed methods by comparing
+ * against each of them with looking them up in a FingerprintIndex. The indexed methods have random fingerprints,
+ * plus the fingerprints of the harness itself.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class FingerprintBenchmark {
+    @Param({"10000", "1000000"})
+    public int methods;
+
+    private final List<MethodFingerprint> harness = new ArrayList<>();
+    private final List<MethodFingerprint> indexed = new ArrayList<>();
+    private final FingerprintIndex<Integer> index = new FingerprintIndex<>();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        byte[] source = new CorpusGenerator().generateHarness("GeneratedHarness", CorpusSize.MEDIUM)
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] ast = new JavaParser(ParserOptions.defaults().withFingerprints(true)).parse(source, "GeneratedHarness.java");
+        for (Namespace namespace : ASTRoot.parseFrom(ast).getNamespacesList()) {
+            collectFingerprints(namespace.getDeclarationsList());
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < methods; i++) {
+            MethodFingerprint fingerprint = i < harness.size() ? harness.get(i)
+                    : new MethodFingerprint(random.nextLong(), random.nextLong());
+            indexed.add(fingerprint);
+            index.add(i, fingerprint);
+        }
+    }
+
+    private void collectFingerprints(List<Declaration> declarations) {
+        for (Declaration declaration : declarations) {
+            for (Method method : declaration.getMethodsList()) {
+                MethodFingerprint.of(method).ifPresent(harness::add);
+            }
+            collectFingerprints(declaration.getNestedDeclarationsList());
+        }
+    }
+
+    @Benchmark
+    public int findPairwise() {
+        int nearDuplicates = 0;
+        for (MethodFingerprint fingerprint : harness) {
+            for (MethodFingerprint candidate : indexed) {
+                if (fingerprint.distance(candidate) <= FingerprintIndex.MAX_DISTANCE) {
+                    nearDuplicates++;
+                }
+            }
+        }
+        return nearDuplicates;
+    }
+
+    @Benchmark
+    public int findInIndex() {
+        int nearDuplicates = 0;
+        for (MethodFingerprint fingerprint : harness) {
+            nearDuplicates += index.nearDuplicates(fingerprint, FingerprintIndex.MAX_DISTANCE).size();
+        }
+        return nearDuplicates;
+    }
+}
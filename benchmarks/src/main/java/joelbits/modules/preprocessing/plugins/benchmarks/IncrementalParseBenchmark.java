@@ -0,0 +1,50 @@
+package joelbits.modules.preprocessing.plugins.benchmarks;
+
+import joelbits.modules.preprocessing.plugins.JavaParser;
+import joelbits.modules.preprocessing.plugins.incremental.ParsedRevision;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a full parse of a revision with an incremental parse against the previous revision, where a single
+ * benchmark method has changed between the two revisions.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class IncrementalParseBenchmark {
+    @Param({"MEDIUM", "HUGE"})
+    public CorpusSize size;
+
+    private final JavaParser parser = new JavaParser();
+    private File currentRevision;
+    private ParsedRevision previousRevision;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        CorpusGenerator generator = new CorpusGenerator();
+        File previousFile = generator.writeTemporaryFile("GeneratedBenchmark", size);
+        previousRevision = parser.parseIncrementally(previousFile, null);
+
+        currentRevision = generator.writeTemporaryFile("GeneratedBenchmark", size);
+        String source = new String(Files.readAllBytes(currentRevision.toPath()), StandardCharsets.UTF_8);
+        Files.write(currentRevision.toPath(), source.replaceFirst("sum = sum / 2;", "sum = sum / 3;").getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public byte[] fullParse() throws Exception {
+        return parser.parse(currentRevision);
+    }
+
+    @Benchmark
+    public ParsedRevision incrementalParse() throws Exception {
+        return parser.parseIncrementally(currentRevision, previousRevision);
+    }
+}
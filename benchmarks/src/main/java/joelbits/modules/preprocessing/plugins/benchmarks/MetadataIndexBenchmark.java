@@ -0,0 +1,95 @@
+package joelbits.modules.preprocessing.plugins.benchmarks;
+
+import joelbits.model.ast.protobuf.ASTProtos.ASTRoot;
+import joelbits.model.ast.protobuf.ASTProtos.Declaration;
+import joelbits.model.ast.protobuf.ASTProtos.Method;
+import joelbits.model.ast.protobuf.ASTProtos.Modifier;
+import joelbits.model.ast.protobuf.ASTProtos.Namespace;
+import joelbits.modules.preprocessing.plugins.JavaParser;
+import joelbits.modules.preprocessing.plugins.ParserOptions;
+import joelbits.modules.preprocessing.plugins.metadata.BenchmarkMetadata;
+import joelbits.modules.preprocessing.plugins.metadata.MetadataIndexReader;
+import joelbits.modules.preprocessing.plugins.metadata.MetadataIndexWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Compares counting the benchmarks of many revisions of a harness file by deserializing and walking their ASTs
+ * with scanning the benchmark metadata index of the same revisions.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class MetadataIndexBenchmark {
+    @Param({"1000", "10000"})
+    public int revisions;
+
+    private byte[] ast;
+    private Path index;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        byte[] source = new CorpusGenerator().generateHarness("GeneratedHarness", CorpusSize.MEDIUM)
+                .getBytes(StandardCharsets.UTF_8);
+        AtomicReference<BenchmarkMetadata> metadata = new AtomicReference<>();
+        ast = new JavaParser(ParserOptions.defaults().withMetadataSink((name, record) -> metadata.set(record)))
+                .parse(source, "GeneratedHarness.java", "0");
+
+        index = Files.createTempFile("metadata-index", ".bin");
+        Files.delete(index);
+        try (MetadataIndexWriter writer = new MetadataIndexWriter(index)) {
+            for (int i = 0; i < revisions; i++) {
+                writer.accept("GeneratedHarness.java@" + i, metadata.get());
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(index);
+    }
+
+    @Benchmark
+    public long countInAsts() throws Exception {
+        long benchmarks = 0;
+        for (int i = 0; i < revisions; i++) {
+            for (Namespace namespace : ASTRoot.parseFrom(ast).getNamespacesList()) {
+                benchmarks += countBenchmarks(namespace.getDeclarationsList());
+            }
+        }
+        return benchmarks;
+    }
+
+    private long countBenchmarks(List<Declaration> declarations) {
+        long benchmarks = 0;
+        for (Declaration declaration : declarations) {
+            for (Method method : declaration.getMethodsList()) {
+                for (Modifier modifier : method.getModifiersList()) {
+                    if (modifier.getType() == Modifier.ModifierType.ANNOTATION && modifier.getName().equals("Benchmark")) {
+                        benchmarks++;
+                    }
+                }
+            }
+            benchmarks += countBenchmarks(declaration.getNestedDeclarationsList());
+        }
+        return benchmarks;
+    }
+
+    @Benchmark
+    public long countInIndex() throws Exception {
+        long[] benchmarks = new long[1];
+        try (MetadataIndexReader reader = new MetadataIndexReader(index)) {
+            reader.scan((name, metadata) -> benchmarks[0] += metadata.size());
+        }
+        return benchmarks[0];
+    }
+}
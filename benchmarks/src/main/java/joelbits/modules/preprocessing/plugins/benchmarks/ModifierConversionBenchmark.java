@@ -0,0 +1,51 @@
+package joelbits.modules.preprocessing.plugins.benchmarks;
+
+import com.github.javaparser.ast.Modifier;
+import joelbits.model.ast.protobuf.ASTProtos;
+import joelbits.modules.preprocessing.plugins.utils.TypeConverter;
+import joelbits.modules.preprocessing.utils.ASTNodeCreator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the table-driven modifier conversion of the TypeConverter with the string-based conversion of
+ * ASTNodeCreator.createModifier(), which the visitors used before.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class ModifierConversionBenchmark {
+    private final ASTNodeCreator astNodeCreator = new ASTNodeCreator();
+    private final TypeConverter typeConverter = new TypeConverter();
+    private final EnumSet<Modifier> modifiers = EnumSet.of(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL, Modifier.VOLATILE);
+    private final List<ASTProtos.Modifier> convertedModifiers = new ArrayList<>();
+
+    @Benchmark
+    public void stringBasedConversion(Blackhole blackhole) {
+        for (Modifier modifier : modifiers) {
+            blackhole.consume(astNodeCreator.createModifier(modifier.name()));
+        }
+    }
+
+    @Benchmark
+    public void tableBasedConversion(Blackhole blackhole) {
+        for (Modifier modifier : modifiers) {
+            blackhole.consume(typeConverter.convertModifier(modifier));
+        }
+    }
+
+    @Benchmark
+    public List<ASTProtos.Modifier> tableBasedConversionIntoList() {
+        convertedModifiers.clear();
+        typeConverter.convertModifiers(modifiers, convertedModifiers);
+        return convertedModifiers;
+    }
+}
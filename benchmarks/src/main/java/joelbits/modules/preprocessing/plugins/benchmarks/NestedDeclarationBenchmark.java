@@ -0,0 +1,41 @@
+package joelbits.modules.preprocessing.plugins.benchmarks;
+
+import com.github.javaparser.ast.CompilationUnit;
+import joelbits.model.ast.protobuf.ASTProtos.Declaration;
+import joelbits.modules.preprocessing.plugins.ParserOptions;
+import joelbits.modules.preprocessing.plugins.visitors.ClassOrInterfaceVisitor;
+import joelbits.modules.preprocessing.plugins.visitors.VisitorContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the collection of declarations from a benchmark class with deeply nested state classes.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class NestedDeclarationBenchmark {
+    @Param({"1", "4", "16"})
+    public int depth;
+
+    private CompilationUnit compilationUnit;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        VisitorContext.current().configure(ParserOptions.defaults());
+        compilationUnit = com.github.javaparser.JavaParser.parse(new CorpusGenerator().generateNested("NestedBenchmark", depth));
+    }
+
+    @Benchmark
+    public List<Declaration> classOrInterfaceVisitor() {
+        List<Declaration> declarations = new ArrayList<>();
+        compilationUnit.accept(new ClassOrInterfaceVisitor(), declarations);
+        return declarations;
+    }
+}
@@ -0,0 +1,47 @@
+package joelbits.modules.preprocessing.plugins.benchmarks;
+
+import joelbits.modules.preprocessing.plugins.JavaParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the plugin entry points on generated benchmark classes, from loading the file to the serialized AST.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+    @Param({"SMALL", "MEDIUM", "HUGE"})
+    public CorpusSize size;
+
+    private final JavaParser parser = new JavaParser();
+    private File benchmarkFile;
+    private byte[] benchmarkSource;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        benchmarkFile = new CorpusGenerator().writeTemporaryFile("GeneratedBenchmark", size);
+        benchmarkSource = Files.readAllBytes(benchmarkFile.toPath());
+    }
+
+    @Benchmark
+    public byte[] parse() throws Exception {
+        return parser.parse(benchmarkFile);
+    }
+
+    @Benchmark
+    public byte[] parseInMemory() throws Exception {
+        return parser.parse(benchmarkSource, "GeneratedBenchmark.java");
+    }
+
+    @Benchmark
+    public boolean hasBenchmarks() throws Exception {
+        return parser.hasBenchmarks(benchmarkFile);
+    }
+}
@@ -0,0 +1,26 @@
+package joelbits.modules.preprocessing.plugins.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the whole parser benchmark suite with the GC profiler enabled and writes the results as JSON, so that
+ * results from different releases can be compared. An optional argument selects the benchmarks to run (regexp).
+ */
+public final class ParserBenchmarks {
+    private ParserBenchmarks() {}
+
+    public static void main(String[] args) throws Exception {
+        String include = args.length > 0 ? args[0] : ParserBenchmarks.class.getPackage().getName() + ".*";
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("parser-benchmarks.json")
+                .build();
+        new Runner(options).run();
+    }
+}
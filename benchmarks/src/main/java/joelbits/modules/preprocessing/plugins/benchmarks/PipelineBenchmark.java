@@ -0,0 +1,60 @@
+package joelbits.modules.preprocessing.plugins.benchmarks;
+
+import joelbits.modules.preprocessing.plugins.JavaParser;
+import joelbits.modules.preprocessing.plugins.pipeline.ParsePipeline;
+import joelbits.modules.preprocessing.plugins.pipeline.PipelineOptions;
+import joelbits.modules.preprocessing.plugins.spi.FileParseResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compares parsing a batch of files in a staged pipeline with parsing each file on one thread of the common pool.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+    @Param({"100", "1000"})
+    public int files;
+
+    @Param({"SMALL", "MEDIUM"})
+    public CorpusSize size;
+
+    private final JavaParser parser = new JavaParser();
+    private ParsePipeline pipeline;
+    private List<File> sourceFiles;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        pipeline = new ParsePipeline(parser, PipelineOptions.defaults());
+        Path sourceRoot = new CorpusGenerator().writeTemporaryProject(files, size).toPath();
+        try (Stream<Path> paths = Files.walk(sourceRoot)) {
+            sourceFiles = paths.filter(Files::isRegularFile).map(Path::toFile).collect(Collectors.toList());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pipeline.close();
+    }
+
+    @Benchmark
+    public List<FileParseResult> parseInPipeline() throws Exception {
+        return pipeline.parse(sourceFiles);
+    }
+
+    @Benchmark
+    public List<FileParseResult> parsePerFile() {
+        return parser.parse(sourceFiles);
+    }
+}
@@ -0,0 +1,50 @@
+package joelbits.modules.preprocessing.plugins.benchmarks;
+
+import joelbits.modules.preprocessing.plugins.JavaParser;
+import joelbits.modules.preprocessing.plugins.project.ParsedProject;
+import joelbits.modules.preprocessing.plugins.spi.FileParseResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compares parsing a project into one linked AST with parsing its files into separate ASTs.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class ProjectParseBenchmark {
+    @Param({"10", "100"})
+    public int files;
+
+    private final JavaParser parser = new JavaParser();
+    private Path sourceRoot;
+    private List<File> sourceFiles;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        sourceRoot = new CorpusGenerator().writeTemporaryProject(files, CorpusSize.SMALL).toPath();
+        try (Stream<Path> paths = Files.walk(sourceRoot)) {
+            sourceFiles = paths.filter(Files::isRegularFile).map(Path::toFile).collect(Collectors.toList());
+        }
+    }
+
+    @Benchmark
+    public ParsedProject parseProject() throws Exception {
+        return parser.parseProject(sourceRoot);
+    }
+
+    @Benchmark
+    public List<FileParseResult> parseFiles() {
+        return parser.parse(sourceFiles);
+    }
+}
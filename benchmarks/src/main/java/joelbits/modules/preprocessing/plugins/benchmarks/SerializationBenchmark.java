@@ -0,0 +1,47 @@
+package joelbits.modules.preprocessing.plugins.benchmarks;
+
+import com.github.javaparser.ast.CompilationUnit;
+import joelbits.model.ast.protobuf.ASTProtos.Declaration;
+import joelbits.model.ast.protobuf.ASTProtos.Namespace;
+import joelbits.modules.preprocessing.plugins.visitors.ClassOrInterfaceVisitor;
+import joelbits.modules.preprocessing.plugins.visitors.ImportVisitor;
+import joelbits.modules.preprocessing.plugins.visitors.NamespaceVisitor;
+import joelbits.modules.preprocessing.utils.ASTNodeCreator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the AST root from the converted namespaces and serializing it to bytes.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    @Param({"SMALL", "MEDIUM", "HUGE"})
+    public CorpusSize size;
+
+    private final ASTNodeCreator astNodeCreator = new ASTNodeCreator();
+    private final List<String> imports = new ArrayList<>();
+    private final List<Namespace> namespaces = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String source = new CorpusGenerator().generate("GeneratedBenchmark", size);
+        CompilationUnit compilationUnit = com.github.javaparser.JavaParser.parse(source);
+        List<Declaration> declarations = new ArrayList<>();
+        compilationUnit.accept(new ImportVisitor(), imports);
+        compilationUnit.accept(new ClassOrInterfaceVisitor(), declarations);
+        compilationUnit.accept(new NamespaceVisitor(namespaces), declarations);
+    }
+
+    @Benchmark
+    public byte[] createAstRootToByteArray() {
+        return astNodeCreator.createAstRoot(imports, namespaces).toByteArray();
+    }
+}
@@ -0,0 +1,124 @@
+package joelbits.modules.preprocessing.plugins.benchmarks;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.ExpressionStmt;
+import joelbits.model.ast.protobuf.ASTProtos;
+import joelbits.model.ast.protobuf.ASTProtos.Declaration;
+import joelbits.model.ast.protobuf.ASTProtos.Method;
+import joelbits.model.ast.protobuf.ASTProtos.Namespace;
+import joelbits.model.ast.protobuf.ASTProtos.Variable;
+import joelbits.modules.preprocessing.plugins.visitors.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures each visitor separately on an already parsed compilation unit, so that the cost of the conversion into
+ * protobuf messages can be told apart from the cost of JavaParser itself.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class VisitorBenchmark {
+    @Param({"SMALL", "MEDIUM", "HUGE"})
+    public CorpusSize size;
+
+    private final VisitorContext context = VisitorContext.current();
+    private CompilationUnit compilationUnit;
+    private List<MethodDeclaration> methods;
+    private List<FieldDeclaration> fields;
+    private List<ClassOrInterfaceDeclaration> classes;
+    private List<BlockStmt> methodBodies;
+    private List<ExpressionStmt> expressions;
+    private List<Declaration> declarations;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String source = new CorpusGenerator().generate("GeneratedBenchmark", size);
+        compilationUnit = com.github.javaparser.JavaParser.parse(source);
+        methods = compilationUnit.findAll(MethodDeclaration.class);
+        fields = compilationUnit.findAll(FieldDeclaration.class);
+        classes = compilationUnit.findAll(ClassOrInterfaceDeclaration.class);
+        methodBodies = new ArrayList<>();
+        for (MethodDeclaration method : methods) {
+            method.getBody().ifPresent(methodBodies::add);
+        }
+        expressions = compilationUnit.findAll(ExpressionStmt.class);
+        declarations = classOrInterfaceVisitor();
+    }
+
+    @Benchmark
+    public List<String> importVisitor() {
+        List<String> imports = new ArrayList<>();
+        compilationUnit.accept(context.getImportVisitor(), imports);
+        return imports;
+    }
+
+    @Benchmark
+    public List<Declaration> classOrInterfaceVisitor() {
+        List<Declaration> declarations = new ArrayList<>();
+        compilationUnit.accept(new ClassOrInterfaceVisitor(), declarations);
+        return declarations;
+    }
+
+    @Benchmark
+    public List<Namespace> namespaceVisitor() {
+        List<Namespace> namespaces = new ArrayList<>();
+        compilationUnit.accept(new NamespaceVisitor(namespaces), declarations);
+        return namespaces;
+    }
+
+    @Benchmark
+    public List<ASTProtos.Modifier> declarationModifierVisitor() {
+        List<ASTProtos.Modifier> modifiers = new ArrayList<>();
+        for (ClassOrInterfaceDeclaration declaration : classes) {
+            declaration.accept(context.getDeclarationModifierVisitor(), modifiers);
+        }
+        return modifiers;
+    }
+
+    @Benchmark
+    public List<Variable> fieldVisitor() {
+        List<Variable> variables = new ArrayList<>();
+        for (FieldDeclaration field : fields) {
+            field.accept(context.getFieldVisitor(), variables);
+        }
+        return variables;
+    }
+
+    @Benchmark
+    public List<Method> methodVisitor() {
+        List<Method> convertedMethods = new ArrayList<>();
+        for (MethodDeclaration method : methods) {
+            method.accept(context.getMethodVisitor(), convertedMethods);
+        }
+        return convertedMethods;
+    }
+
+    @Benchmark
+    public List<ASTProtos.Statement> methodBodyStatementVisitor() {
+        List<ASTProtos.Statement> statements = new ArrayList<>();
+        for (BlockStmt body : methodBodies) {
+            body.accept(context.getStatementVisitor(), statements);
+        }
+        return statements;
+    }
+
+    @Benchmark
+    public List<ASTProtos.Expression> methodBodyExpressionVisitor() {
+        List<ASTProtos.Expression> convertedExpressions = new ArrayList<>();
+        for (ExpressionStmt expression : expressions) {
+            expression.accept(context.getExpressionVisitor(), convertedExpressions);
+        }
+        return convertedExpressions;
+    }
+}
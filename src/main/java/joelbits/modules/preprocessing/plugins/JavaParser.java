@@ -1,31 +1,131 @@
 package joelbits.modules.preprocessing.plugins;
 
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParseStart;
+import com.github.javaparser.Provider;
 import com.github.javaparser.ast.*;
 import com.github.javaparser.utils.Log;
+import static joelbits.model.ast.protobuf.ASTProtos.ASTRoot;
 import static joelbits.model.ast.protobuf.ASTProtos.Namespace;
 import static joelbits.model.ast.protobuf.ASTProtos.Declaration;
 
 import com.google.auto.service.AutoService;
+import com.google.protobuf.CodedOutputStream;
+import joelbits.modules.preprocessing.plugins.bodies.MethodBodies;
+import joelbits.modules.preprocessing.plugins.bodies.ParsedStructure;
+import joelbits.modules.preprocessing.plugins.incremental.MemberCache;
+import joelbits.modules.preprocessing.plugins.incremental.ParsedRevision;
+import joelbits.modules.preprocessing.plugins.metadata.BenchmarkMetadata;
+import joelbits.modules.preprocessing.plugins.metadata.BenchmarkMetadataExtractor;
+import joelbits.modules.preprocessing.plugins.metadata.MetadataSink;
+import joelbits.modules.preprocessing.plugins.metrics.AstCounts;
+import joelbits.modules.preprocessing.plugins.metrics.Counter;
+import joelbits.modules.preprocessing.plugins.metrics.MetricsRegistry;
+import joelbits.modules.preprocessing.plugins.metrics.Phase;
+import joelbits.modules.preprocessing.plugins.project.ParsedProject;
+import joelbits.modules.preprocessing.plugins.project.ProjectLinker;
+import joelbits.modules.preprocessing.plugins.spi.FileParseResult;
 import joelbits.modules.preprocessing.plugins.spi.FileParser;
+import joelbits.modules.preprocessing.plugins.symbols.SymbolTableCodec;
+import joelbits.modules.preprocessing.plugins.tolerant.DeadlineProvider;
+import joelbits.modules.preprocessing.plugins.tolerant.ParseBudgetExceededException;
+import joelbits.modules.preprocessing.plugins.tolerant.ParseDiagnostic;
+import joelbits.modules.preprocessing.plugins.tolerant.SourceRecovery;
+import joelbits.modules.preprocessing.plugins.tolerant.TolerantParse;
 import joelbits.modules.preprocessing.plugins.types.ParserType;
+import joelbits.modules.preprocessing.plugins.utils.HeaderScanner;
+import joelbits.modules.preprocessing.plugins.utils.ParserPool;
+import joelbits.modules.preprocessing.plugins.utils.SourceLoader;
 import joelbits.modules.preprocessing.plugins.visitors.*;
 import joelbits.modules.preprocessing.utils.ASTNodeCreator;
 
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Loads a Java file and parses its microbenchmarks. The toString() method identifies this parser plugin
- * for the MicroAnalyzer framework.
+ * for the MicroAnalyzer framework. All parse state is local to a call, so a single instance may be used
+ * from several threads at once.
  */
 @AutoService(FileParser.class)
 public final class JavaParser implements FileParser {
-    private CompilationUnit compilationUnit;
-    private final List<String> imports = new ArrayList<>();
-    private final List<Namespace> namespaces = new ArrayList<>();
-    private final List<Declaration> nestedDeclarations = new ArrayList<>();
-    private final ASTNodeCreator astNodeCreator = new ASTNodeCreator();
+    /**
+     * The version of the produced AST. Change it whenever the output changes. Cached parse results are keyed by
+     * getCacheVersion(), which also covers the options.
+     */
+    public static final String VERSION = "1.4";
+    private final HeaderScanner headerScanner = new HeaderScanner();
+    private final SourceRecovery sourceRecovery;
+    private final ParserOptions options;
+    private final SourceLoader sourceLoader;
+    private final MetricsRegistry metrics;
+    private final MetadataSink metadataSink;
+
+    public JavaParser() {
+        this(ParserOptions.defaults());
+    }
+
+    public JavaParser(ParserOptions options) {
+        this.options = options;
+        this.sourceLoader = new SourceLoader(options.getCharset());
+        this.sourceRecovery = new SourceRecovery(options.getLanguageLevel());
+        this.metrics = options.getMetrics();
+        this.metadataSink = options.getMetadataSink();
+    }
+
+    /**
+     * @return    VERSION together with the options that change or limit the produced ASTs, e.g., for keying cached parse
+     *            results, so that a cache shared by differently configured parsers never returns an AST in another
+     *            format, such as a symbol table encoded AST to a parser producing plain ones
+     */
+    public String getCacheVersion() {
+        StringBuilder version = new StringBuilder(VERSION)
+                .append('/').append(options.getExtractionDepth())
+                .append('/').append(options.getLanguageLevel())
+                .append('/').append(options.getCharset().name());
+        if (options.isSymbolTableEncoding()) {
+            version.append("/symbol-table");
+        }
+        if (options.isBenchmarkFilter()) {
+            version.append("/benchmark-filter");
+        }
+        if (options.isFingerprints()) {
+            version.append("/fingerprints");
+        }
+        if (options.isTolerantParsing()) {
+            version.append("/tolerant");
+        }
+        if (options.getMaxSourceBytes() > 0) {
+            version.append("/max-source-bytes=").append(options.getMaxSourceBytes());
+        }
+        if (options.getTimeBudget() != null) {
+            version.append("/time-budget=").append(options.getTimeBudget());
+        }
+        return version.toString();
+    }
+
+    /**
+     * @return    true if the parser returns partial ASTs of files with syntax errors or over budget instead of
+     *            failing, see ParserOptions.withTolerantParsing()
+     */
+    public boolean isTolerant() {
+        return options.isTolerantParsing();
+    }
 
     /**
      *  Receives a snapshot of a file and loads that file in the parser. Then parses the class into an AST.
@@ -34,37 +134,434 @@ public final class JavaParser implements FileParser {
      */
     @Override
     public byte[] parse(File file) throws Exception {
-        loadFile(file);
+        return serialize(createAst(loadFile(file), file.getPath()));
+    }
+
+    /**
+     * Parses a file of any file system, e.g., a file inside a zip or jar file.
+     *
+     * @param path    the file to parse
+     */
+    public byte[] parse(Path path) throws Exception {
+        return serialize(createAst(loadPath(path), path.toString()));
+    }
+
+    /**
+     * Parses a source that is already in memory, e.g., the content of a git blob, without writing it to a file.
+     *
+     * @param source        the encoded source
+     * @param sourceName    identifies the source in the log
+     */
+    public byte[] parse(byte[] source, String sourceName) throws Exception {
+        return parse(ByteBuffer.wrap(source), sourceName);
+    }
+
+    /**
+     * Parses the remaining bytes of the buffer, which is left unchanged.
+     *
+     * @param source        the encoded source
+     * @param sourceName    identifies the source in the log
+     */
+    public byte[] parse(ByteBuffer source, String sourceName) throws Exception {
+        return serialize(createAst(load(() -> sourceLoader.decode(source), sourceName, () -> (long) source.remaining()), sourceName));
+    }
+
+    @Override
+    public byte[] parse(byte[] content, String path, String revision) throws Exception {
+        return parse(content, path + "@" + revision);
+    }
+
+    /**
+     * Checks the header of the content for benchmark imports before parsing it.
+     *
+     * @param content     the content of the file
+     * @param path        the path of the file within its repository
+     * @param revision    identifies the revision the content belongs to
+     */
+    @Override
+    public Optional<byte[]> parseIfBenchmark(byte[] content, String path, String revision) throws Exception {
+        ByteBuffer source = ByteBuffer.wrap(content);
+        Optional<List<String>> headerImports = headerScanner.scanImports(source);
+        if (headerImports.isPresent() && !hasBenchmarkImport(headerImports.get().stream())) {
+            return otherFile();
+        }
+
+        String sourceName = path + "@" + revision;
+        CompilationUnit compilationUnit = load(() -> sourceLoader.decode(source), sourceName, () -> (long) content.length);
+        if (!hasBenchmarkImport(importNames(compilationUnit))) {
+            return otherFile();
+        }
+        increment(Counter.BENCHMARK_FILES);
+        return Optional.of(serialize(createAst(compilationUnit, sourceName)));
+    }
+
+    /**
+     * Serializes the AST straight into the stream instead of materializing it as a byte array first.
+     *
+     * @param file      current revision of the file to parse
+     * @param output    the stream receiving the AST
+     */
+    @Override
+    public void parse(File file, OutputStream output) throws Exception {
+        ASTRoot astRoot = createAst(loadFile(file), file.getPath());
+        long start = startTimer();
+        if (options.isSymbolTableEncoding()) {
+            Conversion.SYMBOL_TABLE_CODEC.encodeWithTable(astRoot, output);
+        } else {
+            CodedOutputStream codedOutput = CodedOutputStream.newInstance(output);
+            astRoot.writeTo(codedOutput);
+            codedOutput.flush();
+        }
+        lap(Phase.SERIALIZATION, start);
+    }
+
+    /**
+     * Serializes the AST as a length-delimited record straight into the stream.
+     *
+     * @param file      current revision of the file to parse
+     * @param output    the stream receiving the AST record
+     */
+    @Override
+    public void parseDelimited(File file, OutputStream output) throws Exception {
+        ASTRoot astRoot = createAst(loadFile(file), file.getPath());
+        long start = startTimer();
+        CodedOutputStream codedOutput = CodedOutputStream.newInstance(output);
+        if (options.isSymbolTableEncoding()) {
+            byte[] ast = Conversion.SYMBOL_TABLE_CODEC.encodeWithTable(astRoot);
+            codedOutput.writeUInt32NoTag(ast.length);
+            codedOutput.writeRawBytes(ast);
+        } else {
+            codedOutput.writeUInt32NoTag(astRoot.getSerializedSize());
+            astRoot.writeTo(codedOutput);
+        }
+        codedOutput.flush();
+        lap(Phase.SERIALIZATION, start);
+    }
+
+    /**
+     * Checks the header of the file for benchmark imports before loading it, and then loads and parses the file
+     * at most once.
+     *
+     * @param file    current revision of the file to parse
+     */
+    @Override
+    public Optional<byte[]> parseIfBenchmark(File file) throws Exception {
+        Optional<List<String>> headerImports = headerScanner.scanImports(file.toPath());
+        if (headerImports.isPresent() && !hasBenchmarkImport(headerImports.get().stream())) {
+            return otherFile();
+        }
+
+        CompilationUnit compilationUnit = loadFile(file);
+        if (!hasBenchmarkImport(importNames(compilationUnit))) {
+            return otherFile();
+        }
+        increment(Counter.BENCHMARK_FILES);
+        return Optional.of(serialize(createAst(compilationUnit, file.getPath())));
+    }
+
+    /**
+     * Parses a file that may contain syntax errors. Instead of failing, the declarations and members that can be
+     * parsed are kept in the AST, and the problems are returned with it.
+     *
+     * @param file    current revision of the file to parse
+     */
+    public TolerantParse parseTolerantly(File file) throws Exception {
+        List<ParseDiagnostic> diagnostics = new ArrayList<>();
+        CompilationUnit compilationUnit = load(() -> sourceLoader.decode(file.toPath()), file.getName(), file::length, diagnostics);
+        return new TolerantParse(serialize(createAst(compilationUnit, file.getPath())), diagnostics);
+    }
+
+    /**
+     * Parses a revision of a file, reusing the converted methods and fields of the previous revision of the same
+     * file where their source text is unchanged. Only changed members are visited again.
+     *
+     * @param file        current revision of the file to parse
+     * @param previous    the result of parsing the previous revision, or null for the first revision
+     */
+    public ParsedRevision parseIncrementally(File file, ParsedRevision previous) throws Exception {
+        MemberCache memberCache = ParsedRevision.memberCacheFor(previous);
+        byte[] ast = serialize(createAst(loadFile(file), file.getPath(), memberCache, null));
+        return new ParsedRevision(ast, memberCache);
+    }
 
-        compilationUnit.accept(new ImportVisitor(), imports);
+    /**
+     * Parses a file at the configured extraction depth and stores the source range of every method body on its
+     * Method, see MethodBodies, so the bodies left out of the AST can be converted on demand later.
+     *
+     * @param file    current revision of the file to parse
+     */
+    public ParsedStructure parseStructure(File file) throws Exception {
+        MethodBodies methodBodies = new MethodBodies(file, options);
+        byte[] ast = serialize(createAst(loadFile(file), file.getPath(), null, methodBodies));
+        return new ParsedStructure(ast, methodBodies);
+    }
+
+    /**
+     * Parses all Java files below the source root in parallel on the common fork-join pool.
+     *
+     * @see #parseProject(Path, Executor)
+     */
+    public ParsedProject parseProject(Path sourceRoot) throws IOException {
+        return parseProject(sourceRoot, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parses all Java files below the source root in parallel on the supplied executor and links them into a
+     * single AST, in which the types of fields and method signatures that refer to classes declared anywhere in
+     * the project carry their fully-qualified names, see ProjectLinker. Files that fail to parse are left out of
+     * the AST and reported with the result.
+     *
+     * @param sourceRoot    the root directory of the sources, e.g., src/jmh/java
+     * @param executor      the executor running the parse tasks
+     */
+    public ParsedProject parseProject(Path sourceRoot, Executor executor) throws IOException {
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(sourceRoot)) {
+            files = paths.filter(path -> path.toString().endsWith(".java") && Files.isRegularFile(path))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        List<CompletableFuture<ASTRoot>> tasks = new ArrayList<>(files.size());
+        for (Path path : files) {
+            tasks.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return createAst(loadPath(path), path.toString());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, executor));
+        }
+
+        List<ASTRoot> astRoots = new ArrayList<>(files.size());
+        List<FileParseResult> failures = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            try {
+                astRoots.add(tasks.get(i).join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+                Exception failure = cause instanceof Exception ? (Exception) cause : e;
+                failures.add(FileParseResult.failure(files.get(i).toFile(), failure));
+            }
+        }
+
+        ProjectLinker projectLinker = new ProjectLinker();
+        ASTRoot project = projectLinker.link(astRoots);
+        return new ParsedProject(serialize(project), failures, files.size(), projectLinker.getResolvedTypes());
+    }
+
+    /**
+     * The parse stage of parse(File) on its own, e.g., for a ParsePipeline: decodes and parses the content of a
+     * source that has already been read.
+     *
+     * @param sourceName    identifies the source in the log
+     */
+    public CompilationUnit parseSource(ByteBuffer content, String sourceName) throws IOException {
+        return load(() -> sourceLoader.decode(content), sourceName, () -> (long) content.remaining());
+    }
+
+    /**
+     * The convert stage of parse(File) on its own: converts a parsed source into its protobuf AST.
+     */
+    public ASTRoot convert(CompilationUnit compilationUnit, String sourceName) throws IOException {
+        return createAst(compilationUnit, sourceName);
+    }
+
+    private ASTRoot createAst(CompilationUnit compilationUnit, String sourceName) throws IOException {
+        return createAst(compilationUnit, sourceName, null, null);
+    }
+
+    private ASTRoot createAst(CompilationUnit compilationUnit, String sourceName, MemberCache memberCache, MethodBodies methodBodies) throws IOException {
+        List<String> imports = new ArrayList<>();
+        List<Namespace> namespaces = new ArrayList<>();
+
+        VisitorContext context = VisitorContext.current().configure(options);
+        long start = startTimer();
+        compilationUnit.accept(context.getImportVisitor(), imports);
+        start = lap(Phase.IMPORT_VISITOR, start);
         List<Declaration> declarations = new ArrayList<>();
-        compilationUnit.accept(new ClassOrInterfaceVisitor(declarations), nestedDeclarations);
+        compilationUnit.accept(new ClassOrInterfaceVisitor(memberCache, methodBodies), declarations);
+        start = lap(Phase.DECLARATION_VISITOR, start);
         compilationUnit.accept(new NamespaceVisitor(namespaces), declarations);
+        start = lap(Phase.NAMESPACE_VISITOR, start);
+        if (metadataSink != null) {
+            Optional<BenchmarkMetadata> metadata = Conversion.METADATA_EXTRACTOR.extract(compilationUnit);
+            if (metadata.isPresent()) {
+                metadataSink.accept(sourceName, metadata.get());
+            }
+            start = lap(Phase.METADATA, start);
+        }
 
-        Log.info("Parsing of " + file.getName() + " completed");
-        return astNodeCreator.createAstRoot(imports, namespaces).toByteArray();
+        Log.info("Parsing of " + sourceName + " completed");
+        ASTRoot astRoot = Conversion.AST_NODE_CREATOR.createAstRoot(imports, namespaces);
+        lap(Phase.PROTOBUF, start);
+        if (metrics != null) {
+            new AstCounts(astRoot).reportTo(metrics);
+        }
+        return astRoot;
     }
 
-    private void loadFile(File file) throws Exception {
-        clearData();
-        try (FileInputStream in = new FileInputStream(file)) {
-            compilationUnit = com.github.javaparser.JavaParser.parse(in);
-            Log.info("Loaded " + file.getName());
+    /**
+     * The serialize stage of parse(File) on its own: encodes an AST as configured by the options.
+     */
+    public byte[] serialize(ASTRoot astRoot) throws IOException {
+        long start = startTimer();
+        byte[] ast = options.isSymbolTableEncoding() ? Conversion.SYMBOL_TABLE_CODEC.encodeWithTable(astRoot) : astRoot.toByteArray();
+        lap(Phase.SERIALIZATION, start);
+        return ast;
+    }
+
+    private CompilationUnit loadPath(Path path) throws IOException {
+        return load(() -> sourceLoader.decode(path), path.toString(), () -> Files.size(path));
+    }
+
+    private CompilationUnit loadFile(File file) throws IOException {
+        return load(() -> sourceLoader.decode(file.toPath()), file.getName(), file::length);
+    }
+
+    private CompilationUnit load(IOSupplier<CharBuffer> source, String sourceName, IOSupplier<Long> size) throws IOException {
+        return load(source, sourceName, size, null);
+    }
+
+    /**
+     * Loads and parses a source. Every source loaded counts as a file, whether or not it is parsed successfully.
+     * A tolerant parse recovers what it can of a source with syntax errors, or that exceeds the time budget, and
+     * records the problems instead of failing.
+     *
+     * @param source         decodes the source
+     * @param sourceName     identifies the source in the log
+     * @param size           the size of the source in bytes, only asked for if metrics are recorded or size is limited
+     * @param diagnostics    receives the problems of a tolerant parse, or null to use the tolerance of the options
+     */
+    private CompilationUnit load(IOSupplier<CharBuffer> source, String sourceName, IOSupplier<Long> size, List<ParseDiagnostic> diagnostics) throws IOException {
+        increment(Counter.FILES);
+        boolean tolerant = diagnostics != null || options.isTolerantParsing();
+        List<ParseDiagnostic> problems = diagnostics == null ? new ArrayList<>() : diagnostics;
+        try {
+            long maxSourceBytes = options.getMaxSourceBytes();
+            long bytes = metrics != null || maxSourceBytes > 0 ? size.get() : 0;
+            if (metrics != null) {
+                metrics.increment(Counter.BYTES, bytes);
+            }
+            if (maxSourceBytes > 0 && bytes > maxSourceBytes) {
+                String message = sourceName + " has " + bytes + " bytes, more than the limit of " + maxSourceBytes;
+                if (!tolerant) {
+                    throw new ParseBudgetExceededException(message);
+                }
+                problems.add(new ParseDiagnostic(0, 0, message));
+                return recovered(new CompilationUnit(), sourceName, problems, diagnostics == null);
+            }
+
+            Duration timeBudget = options.getTimeBudget();
+            long deadline = timeBudget == null ? 0 : System.nanoTime() + timeBudget.toNanos();
+            long start = startTimer();
+            CharBuffer text = source.get();
+            start = lap(Phase.LOAD, start);
+            Provider provider = sourceLoader.provider(text);
+            DeadlineProvider deadlineProvider = timeBudget == null ? null : new DeadlineProvider(provider, deadline);
+            ParseResult<CompilationUnit> result = ParserPool.parser(options.getLanguageLevel())
+                    .parse(ParseStart.COMPILATION_UNIT, deadlineProvider == null ? provider : deadlineProvider);
+            lap(Phase.PARSE, start);
+            boolean expired = deadlineProvider != null && deadlineProvider.isExpired();
+            if (result.isSuccessful() && result.getResult().isPresent() && !expired) {
+                Log.info("Loaded " + sourceName);
+                return result.getResult().get();
+            }
+
+            if (!tolerant) {
+                if (expired) {
+                    throw new ParseBudgetExceededException(sourceName + " was not parsed within " + timeBudget);
+                }
+                throw new ParseProblemException(result.getProblems());
+            }
+            if (expired) {
+                problems.add(new ParseDiagnostic(0, 0, "Not parsed within " + timeBudget + ", the rest of the source was left out"));
+            }
+            return recovered(sourceRecovery.recover(text, result, deadline, problems), sourceName, problems, diagnostics == null);
+        } catch (IOException | RuntimeException e) {
+            increment(Counter.FAILURES);
+            throw e;
+        }
+    }
+
+    /**
+     * Counts a tolerantly parsed source with problems as a failure, and logs the problems unless they are returned
+     * to the caller.
+     */
+    private CompilationUnit recovered(CompilationUnit compilationUnit, String sourceName, List<ParseDiagnostic> problems, boolean log) {
+        increment(Counter.FAILURES);
+        if (log) {
+            for (ParseDiagnostic problem : problems) {
+                Log.info(sourceName + " " + problem);
+            }
+        }
+        Log.info("Loaded " + sourceName + " partially");
+        return compilationUnit;
+    }
+
+    /**
+     * @return    the current time if metrics are recorded, so disabled metrics cost no clock reads
+     */
+    private long startTimer() {
+        return metrics == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Records the time since start for the phase.
+     *
+     * @return    the current time, i.e., the start of the next phase
+     */
+    private long lap(Phase phase, long start) {
+        if (metrics == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        metrics.recordTime(phase, now - start);
+        return now;
+    }
+
+    private void increment(Counter counter) {
+        if (metrics != null) {
+            metrics.increment(counter, 1);
         }
     }
 
-    private void clearData() {
-        imports.clear();
-        namespaces.clear();
-        nestedDeclarations.clear();
+    private <T> Optional<T> otherFile() {
+        increment(Counter.OTHER_FILES);
+        return Optional.empty();
     }
 
     @Override
     public boolean hasBenchmarks(File file) throws Exception {
-        loadFile(file);
+        Optional<List<String>> headerImports = headerScanner.scanImports(file.toPath());
+        boolean benchmarks = headerImports.isPresent()
+                ? hasBenchmarkImport(headerImports.get().stream())
+                : hasBenchmarkImport(importNames(loadFile(file)));
+        increment(benchmarks ? Counter.BENCHMARK_FILES : Counter.OTHER_FILES);
+        return benchmarks;
+    }
+
+    private Stream<String> importNames(CompilationUnit compilationUnit) {
         return compilationUnit.getImports().stream()
-                .map(ImportDeclaration::getNameAsString)
-                .anyMatch(i -> i.toUpperCase().contains(ParserType.JMH.name()));
+                .map(ImportDeclaration::getNameAsString);
+    }
+
+    private boolean hasBenchmarkImport(Stream<String> imports) {
+        return imports.anyMatch(i -> i.toUpperCase().contains(ParserType.JMH.name()));
+    }
+
+    /**
+     * The stateless helpers needed once a file is converted. They are created on first use, so that a process that
+     * only checks files for benchmarks, e.g., through hasBenchmarks(), loads no protobuf classes.
+     */
+    private static final class Conversion {
+        private static final ASTNodeCreator AST_NODE_CREATOR = new ASTNodeCreator();
+        private static final SymbolTableCodec SYMBOL_TABLE_CODEC = new SymbolTableCodec();
+        private static final BenchmarkMetadataExtractor METADATA_EXTRACTOR = new BenchmarkMetadataExtractor();
+    }
+
+    private interface IOSupplier<T> {
+        T get() throws IOException;
     }
 
     @Override
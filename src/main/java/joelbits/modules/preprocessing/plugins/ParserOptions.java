@@ -0,0 +1,230 @@
+package joelbits.modules.preprocessing.plugins;
+
+import joelbits.modules.preprocessing.plugins.metadata.MetadataSink;
+import joelbits.modules.preprocessing.plugins.metrics.MetricsRegistry;
+import joelbits.modules.preprocessing.plugins.symbols.StringPool;
+import joelbits.modules.preprocessing.plugins.types.ExtractionDepth;
+import joelbits.modules.preprocessing.plugins.types.LanguageLevel;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Settings of the JavaParser plugin. Instances are immutable, each with-method returns a modified copy.
+ */
+public final class ParserOptions {
+    private StringPool stringPool;
+    private boolean symbolTableEncoding;
+    private ExtractionDepth extractionDepth = ExtractionDepth.BODIES;
+    private Charset charset = StandardCharsets.UTF_8;
+    private MetricsRegistry metrics;
+    private boolean tolerantParsing;
+    private long maxSourceBytes;
+    private Duration timeBudget;
+    private boolean benchmarkFilter;
+    private LanguageLevel languageLevel = LanguageLevel.JAVA_8;
+    private MetadataSink metadataSink;
+    private boolean fingerprints;
+
+    private ParserOptions() {}
+
+    private ParserOptions copy() {
+        ParserOptions copy = new ParserOptions();
+        copy.stringPool = stringPool;
+        copy.symbolTableEncoding = symbolTableEncoding;
+        copy.extractionDepth = extractionDepth;
+        copy.charset = charset;
+        copy.metrics = metrics;
+        copy.tolerantParsing = tolerantParsing;
+        copy.maxSourceBytes = maxSourceBytes;
+        copy.timeBudget = timeBudget;
+        copy.benchmarkFilter = benchmarkFilter;
+        copy.languageLevel = languageLevel;
+        copy.metadataSink = metadataSink;
+        copy.fingerprints = fingerprints;
+        return copy;
+    }
+
+    /**
+     * @return    the settings used by the plugin when it is loaded by MicroAnalyzer
+     */
+    public static ParserOptions defaults() {
+        return new ParserOptions();
+    }
+
+    /**
+     * Interns the names in the produced ASTs in the given pool, which may be shared by several parsers.
+     */
+    public ParserOptions withStringPool(StringPool stringPool) {
+        ParserOptions copy = copy();
+        copy.stringPool = stringPool;
+        return copy;
+    }
+
+    /**
+     * Encodes each produced AST together with its own symbol table, see SymbolTableCodec.encodeWithTable().
+     */
+    public ParserOptions withSymbolTableEncoding(boolean symbolTableEncoding) {
+        ParserOptions copy = copy();
+        copy.symbolTableEncoding = symbolTableEncoding;
+        return copy;
+    }
+
+    /**
+     * Limits how much of each class is converted. Complete ASTs, i.e., BODIES, are produced by default.
+     */
+    public ParserOptions withExtractionDepth(ExtractionDepth extractionDepth) {
+        ParserOptions copy = copy();
+        copy.extractionDepth = extractionDepth;
+        return copy;
+    }
+
+    /**
+     * Reads sources without a byte order mark in the given encoding instead of UTF-8.
+     */
+    public ParserOptions withCharset(Charset charset) {
+        ParserOptions copy = copy();
+        copy.charset = charset;
+        return copy;
+    }
+
+    /**
+     * Reports the phase timings and counts of every parse to the registry, e.g., a ParserMetrics instance. No
+     * metrics are recorded by default.
+     */
+    public ParserOptions withMetrics(MetricsRegistry metrics) {
+        ParserOptions copy = copy();
+        copy.metrics = metrics;
+        return copy;
+    }
+
+    /**
+     * Produces partial ASTs of files with syntax errors instead of failing, see SourceRecovery. The problems are
+     * logged, or returned by parseTolerantly().
+     */
+    public ParserOptions withTolerantParsing(boolean tolerantParsing) {
+        ParserOptions copy = copy();
+        copy.tolerantParsing = tolerantParsing;
+        return copy;
+    }
+
+    /**
+     * Refuses to parse files larger than the given number of bytes, e.g., generated sources. 0 means no limit.
+     */
+    public ParserOptions withMaxSourceBytes(long maxSourceBytes) {
+        ParserOptions copy = copy();
+        copy.maxSourceBytes = maxSourceBytes;
+        return copy;
+    }
+
+    /**
+     * Stops parsing a file once the given time has passed, null means no limit. With tolerant parsing the part
+     * parsed in time is kept. The budget is coarse, it is only checked when the parser reads more of the source,
+     * see DeadlineProvider.
+     */
+    public ParserOptions withTimeBudget(Duration timeBudget) {
+        ParserOptions copy = copy();
+        copy.timeBudget = timeBudget;
+        return copy;
+    }
+
+    /**
+     * Converts method bodies only in the parts of a file that belong to JMH benchmarks, see BenchmarkIndex. All
+     * other methods are converted without their bodies, as at the ANNOTATIONS extraction depth.
+     */
+    public ParserOptions withBenchmarkFilter(boolean benchmarkFilter) {
+        ParserOptions copy = copy();
+        copy.benchmarkFilter = benchmarkFilter;
+        return copy;
+    }
+
+    /**
+     * Validates parsed files against the syntax of the given Java version instead of Java 8.
+     */
+    public ParserOptions withLanguageLevel(LanguageLevel languageLevel) {
+        ParserOptions copy = copy();
+        copy.languageLevel = languageLevel;
+        return copy;
+    }
+
+    /**
+     * Passes the benchmark metadata of every parsed file that uses JMH to the sink, e.g., a MetadataIndexWriter,
+     * see BenchmarkMetadataExtractor. No metadata is extracted by default.
+     */
+    public ParserOptions withMetadataSink(MetadataSink metadataSink) {
+        ParserOptions copy = copy();
+        copy.metadataSink = metadataSink;
+        return copy;
+    }
+
+    /**
+     * Stores the structural fingerprint of the body of every JMH benchmark method on its Method message, see
+     * MethodFingerprint. Requires the BODIES extraction depth.
+     */
+    public ParserOptions withFingerprints(boolean fingerprints) {
+        ParserOptions copy = copy();
+        copy.fingerprints = fingerprints;
+        return copy;
+    }
+
+    /**
+     * @return    the pool interning the names of parsed files, or null if names are not interned
+     */
+    public StringPool getStringPool() {
+        return stringPool;
+    }
+
+    public boolean isSymbolTableEncoding() {
+        return symbolTableEncoding;
+    }
+
+    public ExtractionDepth getExtractionDepth() {
+        return extractionDepth;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * @return    the registry receiving the metrics of parsed files, or null if no metrics are recorded
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    public boolean isTolerantParsing() {
+        return tolerantParsing;
+    }
+
+    public long getMaxSourceBytes() {
+        return maxSourceBytes;
+    }
+
+    /**
+     * @return    the time allowed for parsing a file, or null if there is no limit
+     */
+    public Duration getTimeBudget() {
+        return timeBudget;
+    }
+
+    public boolean isBenchmarkFilter() {
+        return benchmarkFilter;
+    }
+
+    public LanguageLevel getLanguageLevel() {
+        return languageLevel;
+    }
+
+    /**
+     * @return    the sink receiving the benchmark metadata of parsed files, or null if no metadata is extracted
+     */
+    public MetadataSink getMetadataSink() {
+        return metadataSink;
+    }
+
+    public boolean isFingerprints() {
+        return fingerprints;
+    }
+}
@@ -0,0 +1,147 @@
+package joelbits.modules.preprocessing.plugins.bodies;
+
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParseStart;
+import com.github.javaparser.Position;
+import com.github.javaparser.Providers;
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.google.protobuf.UnknownFieldSet;
+import joelbits.model.ast.protobuf.ASTProtos.Method;
+import joelbits.model.ast.protobuf.ASTProtos.Statement;
+import joelbits.modules.preprocessing.plugins.ParserOptions;
+import joelbits.modules.preprocessing.plugins.utils.ParserPool;
+import joelbits.modules.preprocessing.plugins.utils.SourceLoader;
+import joelbits.modules.preprocessing.plugins.visitors.VisitorContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * The method bodies of a file that was parsed without its method bodies. The source range of each body is stored on
+ * its Method as an unknown field, since the schema has none for it, which identifies the body even among methods
+ * of nested or anonymous classes with the same name. A body is converted on demand by reading its range from the
+ * file, so the file must not change in between.
+ */
+public final class MethodBodies {
+    public static final int BODY_RANGE_FIELD = 1003;
+    private static final Pattern LINE_BREAK = Pattern.compile("\\r\\n|\\r|\\n");
+    private final File file;
+    private final ParserOptions options;
+    private int size;
+    private List<String> lines;
+
+    public MethodBodies(File file, ParserOptions options) {
+        this.file = file;
+        this.options = options;
+    }
+
+    /**
+     * Remembers where the body of the method, if it has one, is found in the file.
+     *
+     * @param declaration    the method as loaded in the parser
+     * @param method         the method converted from the declaration
+     * @return               the converted method, carrying the range of its body if it has one
+     */
+    public Method record(MethodDeclaration declaration, Method method) {
+        Optional<Range> range = declaration.getBody().flatMap(BlockStmt::getRange);
+        if (!range.isPresent()) {
+            return method;
+        }
+
+        Range body = range.get();
+        UnknownFieldSet.Field field = UnknownFieldSet.Field.newBuilder()
+                .addVarint(body.begin.line)
+                .addVarint(body.begin.column)
+                .addVarint(body.end.line)
+                .addVarint(body.end.column)
+                .build();
+        size++;
+        return method.toBuilder()
+                .setUnknownFields(UnknownFieldSet.newBuilder(method.getUnknownFields()).addField(BODY_RANGE_FIELD, field).build())
+                .build();
+    }
+
+    /**
+     * @param method    a method of the AST
+     * @return          the range of the method's body in the file, or empty if the method has no body
+     */
+    public Optional<Range> getRange(Method method) {
+        UnknownFieldSet fields = method.getUnknownFields();
+        if (!fields.hasField(BODY_RANGE_FIELD)) {
+            return Optional.empty();
+        }
+        List<Long> positions = fields.getField(BODY_RANGE_FIELD).getVarintList();
+        if (positions.size() != 4) {
+            return Optional.empty();
+        }
+        return Optional.of(Range.range(positions.get(0).intValue(), positions.get(1).intValue(),
+                positions.get(2).intValue(), positions.get(3).intValue()));
+    }
+
+    /**
+     * Converts the body of a method of the AST, exactly as a parse of the complete file would have done.
+     *
+     * @param method    a method of the AST
+     * @return          the statements of the body, or an empty list if the method has no body
+     */
+    public List<Statement> convert(Method method) throws IOException {
+        Optional<Range> range = getRange(method);
+        if (!range.isPresent()) {
+            return new ArrayList<>();
+        }
+
+        ParseResult<BlockStmt> parsed = ParserPool.parser(options.getLanguageLevel())
+                .parse(ParseStart.BLOCK, Providers.provider(sourceText(range.get())));
+        if (!parsed.isSuccessful() || !parsed.getResult().isPresent()) {
+            throw new ParseProblemException(parsed.getProblems());
+        }
+        BlockStmt body = parsed.getResult().get();
+        List<Statement> statements = new ArrayList<>();
+        VisitorContext context = VisitorContext.current().configure(options);
+        body.accept(context.getStatementVisitor(), statements);
+        return statements;
+    }
+
+    /**
+     * @return    the method of the AST together with its converted body
+     */
+    public Method withBody(Method method) throws IOException {
+        return method.toBuilder()
+                .clearStatements()
+                .addAllStatements(convert(method))
+                .build();
+    }
+
+    /**
+     * @return    the number of recorded method bodies
+     */
+    public int size() {
+        return size;
+    }
+
+    private String sourceText(Range range) throws IOException {
+        if (lines == null) {
+            lines = Arrays.asList(LINE_BREAK.split(new SourceLoader(options.getCharset()).decode(file.toPath()), -1));
+        }
+
+        Position begin = range.begin;
+        Position end = range.end;
+        if (begin.line == end.line) {
+            return lines.get(begin.line - 1).substring(begin.column - 1, end.column);
+        }
+
+        StringBuilder text = new StringBuilder(lines.get(begin.line - 1).substring(begin.column - 1));
+        for (int line = begin.line; line < end.line - 1; line++) {
+            text.append('\n').append(lines.get(line));
+        }
+        return text.append('\n').append(lines.get(end.line - 1), 0, end.column).toString();
+    }
+}
@@ -0,0 +1,22 @@
+package joelbits.modules.preprocessing.plugins.bodies;
+
+/**
+ * The AST of a file parsed without its method bodies, together with the source ranges of those bodies.
+ */
+public final class ParsedStructure {
+    private final byte[] ast;
+    private final MethodBodies methodBodies;
+
+    public ParsedStructure(byte[] ast, MethodBodies methodBodies) {
+        this.ast = ast;
+        this.methodBodies = methodBodies;
+    }
+
+    public byte[] getAst() {
+        return ast;
+    }
+
+    public MethodBodies getMethodBodies() {
+        return methodBodies;
+    }
+}
@@ -0,0 +1,55 @@
+package joelbits.modules.preprocessing.plugins.cache;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Identifies a parse result by a SHA-256 digest over the plugin version and the content of the parsed file.
+ */
+public final class CacheKey {
+    static final int LENGTH = 32;
+    private final byte[] digest;
+    private final int hashCode;
+
+    CacheKey(byte[] digest) {
+        this.digest = digest;
+        this.hashCode = Arrays.hashCode(digest);
+    }
+
+    public static CacheKey of(String pluginVersion, byte[] content) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(pluginVersion.getBytes(StandardCharsets.UTF_8));
+            sha256.update((byte) 0);
+            sha256.update(content);
+            return new CacheKey(sha256.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    byte[] getDigest() {
+        return digest;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CacheKey && Arrays.equals(digest, ((CacheKey) other).digest);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder hex = new StringBuilder(LENGTH * 2);
+        for (byte b : digest) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
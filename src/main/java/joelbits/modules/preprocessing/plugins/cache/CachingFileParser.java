@@ -0,0 +1,74 @@
+package joelbits.modules.preprocessing.plugins.cache;
+
+import com.github.javaparser.utils.Log;
+import joelbits.modules.preprocessing.plugins.JavaParser;
+import joelbits.modules.preprocessing.plugins.spi.FileParser;
+import joelbits.modules.preprocessing.plugins.tolerant.ParseDiagnostic;
+import joelbits.modules.preprocessing.plugins.tolerant.TolerantParse;
+
+import java.io.File;
+import java.nio.file.Files;
+
+/**
+ * Puts a parse cache in front of another file parser. Files with identical content, e.g., the same file in many
+ * revisions, are parsed only once per plugin version and configuration. The partial ASTs a tolerant JavaParser
+ * returns for files with syntax errors, or over its size or time budget, are not cached, since a budget may have
+ * been exceeded only because the machine was busy.
+ */
+public final class CachingFileParser implements FileParser {
+    private final FileParser parser;
+    private final String pluginVersion;
+    private final ParseCache cache;
+
+    /**
+     * @param parser           the parser producing the ASTs on a cache miss
+     * @param pluginVersion    the version of the parser's output, e.g., JavaParser.getCacheVersion(), part of the
+     *                         cache key so that output of other versions or options is never mixed
+     * @param cache            the cache holding the ASTs
+     */
+    public CachingFileParser(FileParser parser, String pluginVersion, ParseCache cache) {
+        this.parser = parser;
+        this.pluginVersion = pluginVersion;
+        this.cache = cache;
+    }
+
+    @Override
+    public byte[] parse(File file) throws Exception {
+        CacheKey key = CacheKey.of(pluginVersion, Files.readAllBytes(file.toPath()));
+        byte[] ast = cache.get(key);
+        if (ast == null) {
+            if (parser instanceof JavaParser && ((JavaParser) parser).isTolerant()) {
+                return parseTolerantly((JavaParser) parser, file, key);
+            }
+            ast = parser.parse(file);
+            cache.put(key, ast);
+        }
+        return ast;
+    }
+
+    private byte[] parseTolerantly(JavaParser javaParser, File file, CacheKey key) throws Exception {
+        TolerantParse result = javaParser.parseTolerantly(file);
+        if (result.isComplete()) {
+            cache.put(key, result.getAst());
+        } else {
+            for (ParseDiagnostic problem : result.getDiagnostics()) {
+                Log.info(file.getName() + " " + problem);
+            }
+        }
+        return result.getAst();
+    }
+
+    @Override
+    public boolean hasBenchmarks(File file) throws Exception {
+        return parser.hasBenchmarks(file);
+    }
+
+    public ParseCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public String toString() {
+        return parser.toString();
+    }
+}
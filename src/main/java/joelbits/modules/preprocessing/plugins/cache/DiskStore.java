@@ -0,0 +1,97 @@
+package joelbits.modules.preprocessing.plugins.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An append-only key-value file holding serialized ASTs. Each record consists of the key digest, the length of
+ * the value and the value itself. The index of record positions is rebuilt by scanning the file when the store
+ * is opened; an incomplete record at the end of the file (e.g., after a crash) is truncated.
+ */
+final class DiskStore implements Closeable {
+    static final String FILE_NAME = "parse-cache.dat";
+    private static final int RECORD_HEADER_LENGTH = CacheKey.LENGTH + Integer.BYTES;
+
+    private final FileChannel channel;
+    private final Map<CacheKey, Long> positions = new HashMap<>();
+
+    DiskStore(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        channel = FileChannel.open(directory.resolve(FILE_NAME),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buildIndex();
+    }
+
+    private void buildIndex() throws IOException {
+        long position = 0;
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_LENGTH);
+        while (position + RECORD_HEADER_LENGTH <= size) {
+            header.clear();
+            readFully(header, position);
+            header.flip();
+            byte[] digest = new byte[CacheKey.LENGTH];
+            header.get(digest);
+            int length = header.getInt();
+            if (length < 0 || position + RECORD_HEADER_LENGTH + length > size) {
+                break;
+            }
+            positions.put(new CacheKey(digest), position);
+            position += RECORD_HEADER_LENGTH + length;
+        }
+        channel.truncate(position);
+        channel.position(position);
+    }
+
+    synchronized byte[] get(CacheKey key) throws IOException {
+        Long position = positions.get(key);
+        if (position == null) {
+            return null;
+        }
+
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        readFully(length, position + CacheKey.LENGTH);
+        ByteBuffer value = ByteBuffer.allocate(length.getInt(0));
+        readFully(value, position + RECORD_HEADER_LENGTH);
+        return value.array();
+    }
+
+    synchronized void put(CacheKey key, byte[] value) throws IOException {
+        if (positions.containsKey(key)) {
+            return;
+        }
+
+        long position = channel.size();
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_LENGTH + value.length);
+        record.put(key.getDigest()).putInt(value.length).put(value);
+        record.flip();
+        while (record.hasRemaining()) {
+            channel.write(record, position + record.position());
+        }
+        positions.put(key, position);
+    }
+
+    synchronized int size() {
+        return positions.size();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of parse cache file");
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,141 @@
+package joelbits.modules.preprocessing.plugins.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A two-tier cache of serialized ASTs. The memory tier is a least-recently-used map bounded by the total size of
+ * the cached ASTs. The optional disk tier persists every cached AST so that it survives between mining runs.
+ * All operations are thread-safe.
+ */
+public final class ParseCache implements Closeable {
+    private final long maxMemoryBytes;
+    private final Map<CacheKey, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final DiskStore diskStore;
+    private long memoryBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a cache kept in memory only.
+     *
+     * @param maxMemoryBytes    the maximum total size of the ASTs kept in memory
+     */
+    public ParseCache(long maxMemoryBytes) {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.diskStore = null;
+    }
+
+    /**
+     * Creates a cache that also persists the ASTs in a key-value file in the given directory.
+     *
+     * @param maxMemoryBytes    the maximum total size of the ASTs kept in memory
+     * @param directory         the directory of the persistent tier, created if it does not exist
+     */
+    public ParseCache(long maxMemoryBytes, Path directory) throws IOException {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.diskStore = new DiskStore(directory);
+    }
+
+    /**
+     * @return    the cached AST, or null if no AST is cached for the key
+     */
+    public byte[] get(CacheKey key) throws IOException {
+        byte[] ast;
+        synchronized (this) {
+            ast = memory.get(key);
+        }
+        if (ast == null && diskStore != null) {
+            ast = diskStore.get(key);
+            if (ast != null) {
+                diskHits.incrementAndGet();
+                putInMemory(key, ast);
+            }
+        }
+
+        if (ast == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return ast;
+    }
+
+    public void put(CacheKey key, byte[] ast) throws IOException {
+        putInMemory(key, ast);
+        if (diskStore != null) {
+            diskStore.put(key, ast);
+        }
+    }
+
+    private synchronized void putInMemory(CacheKey key, byte[] ast) {
+        if (ast.length > maxMemoryBytes) {
+            return;
+        }
+
+        byte[] previous = memory.put(key, ast);
+        if (previous != null) {
+            memoryBytes -= previous.length;
+        }
+        memoryBytes += ast.length;
+
+        Iterator<byte[]> leastRecentlyUsed = memory.values().iterator();
+        while (memoryBytes > maxMemoryBytes && leastRecentlyUsed.hasNext()) {
+            memoryBytes -= leastRecentlyUsed.next().length;
+            leastRecentlyUsed.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return    the number of lookups answered from memory or disk
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return    the number of lookups answered from the disk tier
+     */
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return    the number of ASTs evicted from the memory tier
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public synchronized int getMemoryEntries() {
+        return memory.size();
+    }
+
+    public int getDiskEntries() {
+        return diskStore == null ? 0 : diskStore.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (diskStore != null) {
+            diskStore.close();
+        }
+    }
+}
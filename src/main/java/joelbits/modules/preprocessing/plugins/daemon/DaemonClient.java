@@ -0,0 +1,197 @@
+package joelbits.modules.preprocessing.plugins.daemon;
+
+import joelbits.modules.preprocessing.plugins.spi.FileParser;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A FileParser that has the files parsed by a ParseDaemon on the local host. A single client may be used from
+ * several threads at once: their requests share the connection and are parsed concurrently by the daemon, e.g.,
+ * the files of a batch passed to parse(List). Files are passed by their absolute path, so the daemon must be able
+ * to read them. The client presents the token from the daemon's token file when connecting, so it must run as the
+ * same user as the daemon. A request the daemon does not answer within the request timeout fails with an
+ * IOException.
+ */
+public final class DaemonClient implements FileParser, Closeable {
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofMinutes(5);
+
+    private final Socket socket;
+    private final Duration requestTimeout;
+    private final DataOutputStream output;
+    private final Map<Integer, CompletableFuture<byte[]>> pendingRequests = new ConcurrentHashMap<>();
+    private final AtomicInteger requestIds = new AtomicInteger();
+    private volatile IOException connectionFailure;
+
+    private DaemonClient(Socket socket, byte[] token, Duration requestTimeout) throws IOException {
+        this.socket = socket;
+        this.requestTimeout = requestTimeout;
+        socket.setTcpNoDelay(true);
+        this.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        DaemonProtocol.writeFrame(output, token);
+        DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        Thread reader = new Thread(() -> readResponses(input), "parse-daemon-client");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Connects to the daemon listening on the port of the local host, with the token file in the default token
+     * directory, waiting DEFAULT_REQUEST_TIMEOUT for each response.
+     */
+    public static DaemonClient connect(int port) throws IOException {
+        return connect(port, DEFAULT_REQUEST_TIMEOUT);
+    }
+
+    /**
+     * @param requestTimeout    how long to wait for the response to a request, e.g., longer than the time budget
+     *                          of the daemon's parser
+     */
+    public static DaemonClient connect(int port, Duration requestTimeout) throws IOException {
+        return connect(port, DaemonProtocol.tokenFile(ParseDaemon.DEFAULT_TOKEN_DIRECTORY, port), requestTimeout);
+    }
+
+    /**
+     * @param tokenFile    the token file of the daemon, see ParseDaemon.getTokenFile()
+     */
+    public static DaemonClient connect(int port, Path tokenFile, Duration requestTimeout) throws IOException {
+        byte[] token = Files.readAllBytes(tokenFile);
+        if (token.length != DaemonProtocol.TOKEN_BYTES) {
+            throw new IOException("Invalid daemon token in " + tokenFile);
+        }
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        try {
+            return new DaemonClient(socket, token, requestTimeout);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public byte[] parse(File file) throws Exception {
+        return ast(request(DaemonProtocol.PARSE_FILE, arguments -> arguments.writeUTF(file.getAbsolutePath())))
+                .orElseThrow(() -> new IOException("The daemon returned no AST for " + file));
+    }
+
+    @Override
+    public boolean hasBenchmarks(File file) throws Exception {
+        Optional<byte[]> answer = ast(request(DaemonProtocol.HAS_BENCHMARKS, arguments -> arguments.writeUTF(file.getAbsolutePath())));
+        return answer.isPresent() && answer.get().length == 1 && answer.get()[0] == 1;
+    }
+
+    @Override
+    public Optional<byte[]> parseIfBenchmark(File file) throws Exception {
+        return ast(request(DaemonProtocol.PARSE_FILE_IF_BENCHMARK, arguments -> arguments.writeUTF(file.getAbsolutePath())));
+    }
+
+    /**
+     * Sends the content to the daemon instead of writing it to a temporary file.
+     */
+    @Override
+    public byte[] parse(byte[] content, String path, String revision) throws Exception {
+        return ast(request(DaemonProtocol.PARSE_CONTENT, arguments -> writeContent(arguments, content, path, revision)))
+                .orElseThrow(() -> new IOException("The daemon returned no AST for " + path + "@" + revision));
+    }
+
+    @Override
+    public Optional<byte[]> parseIfBenchmark(byte[] content, String path, String revision) throws Exception {
+        return ast(request(DaemonProtocol.PARSE_CONTENT_IF_BENCHMARK, arguments -> writeContent(arguments, content, path, revision)));
+    }
+
+    private void writeContent(DataOutputStream arguments, byte[] content, String path, String revision) throws IOException {
+        arguments.writeUTF(path);
+        arguments.writeUTF(revision);
+        arguments.writeInt(content.length);
+        arguments.write(content);
+    }
+
+    /**
+     * Sends a request and waits for its response.
+     *
+     * @return    the response without the request id, i.e., the status followed by its payload
+     */
+    private byte[] request(byte kind, Arguments arguments) throws IOException {
+        int id = requestIds.incrementAndGet();
+        CompletableFuture<byte[]> response = new CompletableFuture<>();
+        pendingRequests.put(id, response);
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream request = new DataOutputStream(body);
+        request.writeInt(id);
+        request.writeByte(kind);
+        arguments.write(request);
+        try {
+            if (connectionFailure != null) {
+                throw connectionFailure;
+            }
+            synchronized (output) {
+                DaemonProtocol.writeFrame(output, body.toByteArray());
+            }
+            return response.get(requestTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new IOException("The daemon did not respond within " + requestTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the daemon");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        } finally {
+            pendingRequests.remove(id);
+        }
+    }
+
+    private Optional<byte[]> ast(byte[] response) throws IOException {
+        byte status = response[0];
+        if (status == DaemonProtocol.FAILED) {
+            String message = new String(response, 1, response.length - 1, StandardCharsets.UTF_8);
+            throw new IOException("The daemon failed to parse: " + message);
+        }
+        if (status == DaemonProtocol.NO_BENCHMARKS) {
+            return Optional.empty();
+        }
+        return Optional.of(Arrays.copyOfRange(response, 1, response.length));
+    }
+
+    private void readResponses(DataInputStream input) {
+        try {
+            byte[] response;
+            while ((response = DaemonProtocol.readFrame(input)) != null) {
+                int id = new DataInputStream(new ByteArrayInputStream(response)).readInt();
+                CompletableFuture<byte[]> pendingRequest = pendingRequests.get(id);
+                if (pendingRequest != null) {
+                    pendingRequest.complete(Arrays.copyOfRange(response, 4, response.length));
+                }
+            }
+            connectionFailure = new EOFException("The daemon closed the connection");
+        } catch (IOException e) {
+            connectionFailure = e;
+        }
+        for (CompletableFuture<byte[]> pendingRequest : pendingRequests.values()) {
+            pendingRequest.completeExceptionally(connectionFailure);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    private interface Arguments {
+        void write(DataOutputStream arguments) throws IOException;
+    }
+}
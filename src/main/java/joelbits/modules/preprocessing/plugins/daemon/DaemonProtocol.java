@@ -0,0 +1,83 @@
+package joelbits.modules.preprocessing.plugins.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * The frames exchanged between a DaemonClient and a ParseDaemon. Every frame is the length of its body as a 4 byte
+ * int followed by the body. The first frame of a connection is the token of the daemon, read by the client from the
+ * daemon's token file, and the daemon closes connections that do not start with it. A request body starts with the id chosen by the client and the kind of request,
+ * followed by its arguments; a response body starts with the id of the request it answers and a status, followed
+ * by the AST, the answer to hasBenchmarks, or the message of the failure. The responses to the requests of one
+ * connection are sent as soon as each request is done, so they may arrive in any order.
+ */
+final class DaemonProtocol {
+    /**
+     * Arguments: the absolute path of the file.
+     */
+    static final byte PARSE_FILE = 1;
+    static final byte PARSE_FILE_IF_BENCHMARK = 2;
+    static final byte HAS_BENCHMARKS = 3;
+    /**
+     * Arguments: the path of the file within its repository, the revision, and the length and content of the file.
+     */
+    static final byte PARSE_CONTENT = 4;
+    static final byte PARSE_CONTENT_IF_BENCHMARK = 5;
+
+    /**
+     * The AST, or for HAS_BENCHMARKS a single byte that is 1 if the file contains benchmarks.
+     */
+    static final byte OK = 0;
+    /**
+     * No AST, since the file contains no benchmarks.
+     */
+    static final byte NO_BENCHMARKS = 1;
+    /**
+     * The UTF-8 encoded message of the exception or error thrown while parsing, filling the rest of the frame.
+     */
+    static final byte FAILED = 2;
+    static final int MAX_MESSAGE_CHARS = 8192;
+
+    static final int TOKEN_BYTES = 32;
+
+    private static final int MAX_FRAME_BYTES = 1 << 30;
+
+    private DaemonProtocol() {}
+
+    /**
+     * @return    the file holding the token of the daemon listening on the port
+     */
+    static Path tokenFile(Path directory, int port) {
+        return directory.resolve(port + ".token");
+    }
+
+    /**
+     * @return    the body of the next frame, or null if the stream ended before it
+     */
+    static byte[] readFrame(DataInputStream input) throws IOException {
+        int length;
+        try {
+            length = input.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < 0 || length > MAX_FRAME_BYTES) {
+            throw new IOException("Invalid frame length " + length);
+        }
+        byte[] body = new byte[length];
+        input.readFully(body);
+        return body;
+    }
+
+    /**
+     * Writes and flushes a frame. Frames written by several threads to the same stream must be synchronized on it.
+     */
+    static void writeFrame(DataOutputStream output, byte[] body) throws IOException {
+        output.writeInt(body.length);
+        output.write(body);
+        output.flush();
+    }
+}
@@ -0,0 +1,303 @@
+package joelbits.modules.preprocessing.plugins.daemon;
+
+import com.github.javaparser.utils.Log;
+import joelbits.modules.preprocessing.plugins.JavaParser;
+import joelbits.modules.preprocessing.plugins.spi.FileParser;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a parser resident in a long-running JVM and serves parse requests from DaemonClients over loopback TCP,
+ * so short-lived jobs get the throughput of a warmed-up, JIT-compiled parser from their first file instead of
+ * paying for JVM startup and class loading each time. Only connections from the local host are accepted, and only
+ * from clients that present the random token the daemon writes to a file that only its user can read, so other
+ * users of the host cannot have files read with the permissions of the daemon. Each connection may have many
+ * requests in flight, which are parsed concurrently by a pool of worker threads, see DaemonProtocol.
+ */
+public final class ParseDaemon implements Closeable {
+    public static final Path DEFAULT_TOKEN_DIRECTORY = Paths.get(System.getProperty("user.home"), ".parse-daemon");
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 10_000;
+    private final FileParser parser;
+    private final ServerSocket serverSocket;
+    private final byte[] token = new byte[DaemonProtocol.TOKEN_BYTES];
+    private final Path tokenFile;
+    private final ExecutorService workers;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    /**
+     * @param parser     the parser serving the requests, which must be safe to use from several threads
+     * @param port       the port to listen on, or 0 for any free port
+     * @param threads    the number of requests parsed at the same time
+     */
+    public ParseDaemon(FileParser parser, int port, int threads) throws IOException {
+        this(parser, port, threads, DEFAULT_TOKEN_DIRECTORY);
+    }
+
+    /**
+     * @param tokenDirectory    the directory of the token file, created readable only by the user if it does not
+     *                          exist, and where DaemonClients look for it
+     */
+    public ParseDaemon(FileParser parser, int port, int threads, Path tokenDirectory) throws IOException {
+        this.parser = parser;
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        try {
+            new SecureRandom().nextBytes(token);
+            this.tokenFile = writeToken(tokenDirectory, serverSocket.getLocalPort(), token);
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(serverSocket);
+            throw e;
+        }
+        this.workers = Executors.newFixedThreadPool(threads, threadFactory("parse-daemon-worker-"));
+    }
+
+    /**
+     * Writes the token to a new file that only the user may read and then moves it in place, so the token is
+     * never readable by others, not even briefly. File systems without POSIX permissions keep their defaults,
+     * e.g., the access control list inherited from the user's home directory.
+     */
+    private static Path writeToken(Path directory, int port, byte[] token) throws IOException {
+        boolean posix = directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+        Path temporary;
+        if (posix) {
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            temporary = Files.createTempFile(directory, "token", ".tmp", PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createDirectories(directory);
+            temporary = Files.createTempFile(directory, "token", ".tmp");
+        }
+        Files.write(temporary, token);
+        Path tokenFile = DaemonProtocol.tokenFile(directory, port);
+        Files.move(temporary, tokenFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return tokenFile;
+    }
+
+    /**
+     * Runs a daemon for the default JavaParser until the JVM is stopped. The optional argument is the port,
+     * which is printed once the daemon accepts connections. The token is written to DEFAULT_TOKEN_DIRECTORY.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        ParseDaemon daemon = new ParseDaemon(new JavaParser(), port, Runtime.getRuntime().availableProcessors());
+        Runtime.getRuntime().addShutdownHook(new Thread(daemon::close));
+        daemon.start();
+        System.out.println(daemon.getPort());
+    }
+
+    /**
+     * Starts accepting connections on a background thread.
+     */
+    public ParseDaemon start() {
+        Thread acceptor = new Thread(this::acceptConnections, "parse-daemon");
+        acceptor.start();
+        return this;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return    the file holding the token that clients must present, deleted when the daemon is closed
+     */
+    public Path getTokenFile() {
+        return tokenFile;
+    }
+
+    private void acceptConnections() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.add(socket);
+                Thread connection = new Thread(() -> serve(socket), "parse-daemon-connection-" + socket.getPort());
+                connection.setDaemon(true);
+                connection.start();
+            } catch (IOException e) {
+                if (!closed) {
+                    Log.error(e, "Parse daemon failed to accept a connection");
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try {
+            socket.setTcpNoDelay(true);
+            DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            if (!authenticate(socket, input)) {
+                Log.info("Parse daemon rejected a connection without its token");
+                return;
+            }
+            byte[] request;
+            while ((request = DaemonProtocol.readFrame(input)) != null) {
+                byte[] body = request;
+                workers.execute(() -> respond(body, output));
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                Log.info("Parse daemon connection closed: " + e.getMessage());
+            }
+        } finally {
+            connections.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    /**
+     * @return    true if the first frame of the connection is the token, which must arrive within the handshake
+     *            timeout so that idle connections do not hold a thread
+     */
+    private boolean authenticate(Socket socket, DataInputStream input) throws IOException {
+        socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+        byte[] presented;
+        try {
+            presented = DaemonProtocol.readFrame(input);
+        } catch (SocketTimeoutException e) {
+            return false;
+        }
+        socket.setSoTimeout(0);
+        // compares in constant time, so the time to reject a guess tells nothing about the token
+        return presented != null && MessageDigest.isEqual(presented, token);
+    }
+
+    /**
+     * Parses the request and sends its response. Every request with an id is answered, also when the parser throws
+     * an Error such as a StackOverflowError on deeply nested sources, since the client waits for the response.
+     */
+    private void respond(byte[] request, DataOutputStream output) {
+        if (request.length < 4) {
+            Log.info("Parse daemon received a request without an id");
+            return;
+        }
+        int id = ByteBuffer.wrap(request).getInt();
+        byte[] response;
+        try {
+            response = handleRequest(id, request);
+        } catch (Throwable e) {
+            response = failure(id, e);
+        }
+
+        try {
+            synchronized (output) {
+                DaemonProtocol.writeFrame(output, response);
+            }
+        } catch (IOException e) {
+            // the client has gone, nobody is left to receive the response
+            Log.info("Parse daemon could not respond: " + e.getMessage());
+        }
+    }
+
+    private byte[] handleRequest(int id, byte[] request) throws Exception {
+        DataInputStream arguments = new DataInputStream(new ByteArrayInputStream(request, 4, request.length - 4));
+        byte kind = arguments.readByte();
+        Optional<byte[]> ast = handle(kind, arguments);
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        DataOutputStream responseOutput = new DataOutputStream(response);
+        responseOutput.writeInt(id);
+        responseOutput.writeByte(ast.isPresent() ? DaemonProtocol.OK : DaemonProtocol.NO_BENCHMARKS);
+        responseOutput.write(ast.orElse(new byte[0]));
+        return response.toByteArray();
+    }
+
+    /**
+     * @return    a FAILED response whose payload is the UTF-8 encoded message, shortened to MAX_MESSAGE_CHARS
+     */
+    private static byte[] failure(int id, Throwable e) {
+        String message = e.getClass().getName() + ": " + e.getMessage();
+        if (message.length() > DaemonProtocol.MAX_MESSAGE_CHARS) {
+            message = message.substring(0, DaemonProtocol.MAX_MESSAGE_CHARS) + "...";
+        }
+        byte[] encodedMessage = message.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(5 + encodedMessage.length)
+                .putInt(id)
+                .put(DaemonProtocol.FAILED)
+                .put(encodedMessage)
+                .array();
+    }
+
+    private Optional<byte[]> handle(byte kind, DataInputStream arguments) throws Exception {
+        switch (kind) {
+            case DaemonProtocol.PARSE_FILE:
+                return Optional.of(parser.parse(new File(arguments.readUTF())));
+            case DaemonProtocol.PARSE_FILE_IF_BENCHMARK:
+                return parser.parseIfBenchmark(new File(arguments.readUTF()));
+            case DaemonProtocol.HAS_BENCHMARKS:
+                return Optional.of(new byte[] {(byte) (parser.hasBenchmarks(new File(arguments.readUTF())) ? 1 : 0)});
+            case DaemonProtocol.PARSE_CONTENT:
+            case DaemonProtocol.PARSE_CONTENT_IF_BENCHMARK:
+                String path = arguments.readUTF();
+                String revision = arguments.readUTF();
+                byte[] content = new byte[arguments.readInt()];
+                arguments.readFully(content);
+                if (kind == DaemonProtocol.PARSE_CONTENT) {
+                    return Optional.of(parser.parse(content, path, revision));
+                }
+                return parser.parseIfBenchmark(content, path, revision);
+            default:
+                throw new IOException("Unknown request " + kind);
+        }
+    }
+
+    /**
+     * Stops accepting connections, deletes the token file, closes the open connections and waits briefly for the
+     * requests being parsed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        closeQuietly(serverSocket);
+        try {
+            Files.deleteIfExists(tokenFile);
+        } catch (IOException e) {
+            Log.info("Parse daemon could not delete its token file: " + e.getMessage());
+        }
+        for (Socket socket : connections) {
+            closeQuietly(socket);
+        }
+        workers.shutdown();
+        try {
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            // nothing is left to do with a resource that cannot be closed
+        }
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger threads = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
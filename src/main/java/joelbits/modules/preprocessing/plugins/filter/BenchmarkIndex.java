@@ -0,0 +1,129 @@
+package joelbits.modules.preprocessing.plugins.filter;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.github.javaparser.ast.expr.Name;
+import com.github.javaparser.ast.nodeTypes.NodeWithAnnotations;
+import com.github.javaparser.ast.type.Type;
+
+import java.util.*;
+
+/**
+ * The JMH annotations of a compilation unit, indexed per declaration before it is converted. A class is
+ * converted in full if it carries a JMH annotation itself, e.g., @State or @Fork, or if it is a state class
+ * referenced by a parameter of an annotated method. In other classes only the methods carrying a JMH annotation,
+ * e.g., @Benchmark or @Setup, keep their bodies. Classes declared within method bodies are not indexed.
+ */
+public final class BenchmarkIndex {
+    private static final String JMH_PACKAGE = "org.openjdk.jmh.annotations";
+    private static final Set<String> JMH_ANNOTATIONS = new HashSet<>(Arrays.asList(
+            "AuxCounters", "Benchmark", "BenchmarkMode", "CompilerControl", "Fork", "Group", "GroupThreads",
+            "Measurement", "OperationsPerInvocation", "OutputTimeUnit", "Param", "Setup", "State", "TearDown",
+            "Threads", "Timeout", "Warmup"));
+
+    private final Set<Node> fullClasses = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Node> annotatedMethods = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final boolean importsJmh;
+
+    private BenchmarkIndex(CompilationUnit compilationUnit) {
+        importsJmh = importsJmh(compilationUnit);
+    }
+
+    /**
+     * Indexes the classes and methods of the compilation unit that are converted in full.
+     */
+    public static BenchmarkIndex of(CompilationUnit compilationUnit) {
+        BenchmarkIndex index = new BenchmarkIndex(compilationUnit);
+        Map<String, List<ClassOrInterfaceDeclaration>> classesByName = new HashMap<>();
+        Set<String> referencedClasses = new HashSet<>();
+        for (TypeDeclaration<?> type : compilationUnit.getTypes()) {
+            index.indexClasses(type, classesByName, referencedClasses);
+        }
+
+        for (String name : referencedClasses) {
+            index.fullClasses.addAll(classesByName.getOrDefault(name, Collections.emptyList()));
+        }
+        return index;
+    }
+
+    private void indexClasses(TypeDeclaration<?> type, Map<String, List<ClassOrInterfaceDeclaration>> classesByName,
+                              Set<String> referencedClasses) {
+        if (type instanceof ClassOrInterfaceDeclaration) {
+            classesByName.computeIfAbsent(type.getNameAsString(), name -> new ArrayList<>())
+                    .add((ClassOrInterfaceDeclaration) type);
+            if (hasJmhAnnotation(type)) {
+                fullClasses.add(type);
+            }
+        }
+
+        for (BodyDeclaration<?> member : type.getMembers()) {
+            if (member.isMethodDeclaration() && hasJmhAnnotation(member.asMethodDeclaration())) {
+                MethodDeclaration method = member.asMethodDeclaration();
+                annotatedMethods.add(method);
+                for (Parameter parameter : method.getParameters()) {
+                    referencedClasses.add(simpleName(parameter.getType()));
+                }
+            } else if (member.isTypeDeclaration()) {
+                indexClasses(member.asTypeDeclaration(), classesByName, referencedClasses);
+            }
+        }
+    }
+
+    private boolean hasJmhAnnotation(NodeWithAnnotations<?> node) {
+        for (AnnotationExpr annotation : node.getAnnotations()) {
+            if (JMH_ANNOTATIONS.contains(annotation.getName().getIdentifier()) && isJmhAnnotation(annotation, importsJmh)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param importsJmh    whether the file of the annotation imports JMH annotations, see importsJmh()
+     * @return              true if the annotation is written with the JMH package or the file imports JMH
+     *                      annotations, in which case a simple name refers to the JMH annotation
+     */
+    public static boolean isJmhAnnotation(AnnotationExpr annotation, boolean importsJmh) {
+        Optional<Name> qualifier = annotation.getName().getQualifier();
+        return qualifier.isPresent() ? qualifier.get().asString().equals(JMH_PACKAGE) : importsJmh;
+    }
+
+    public static boolean importsJmh(CompilationUnit compilationUnit) {
+        for (ImportDeclaration importDeclaration : compilationUnit.getImports()) {
+            String name = importDeclaration.getNameAsString();
+            if (name.equals(JMH_PACKAGE) || name.startsWith(JMH_PACKAGE + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String simpleName(Type type) {
+        String name = type.getElementType().asString();
+        int typeArguments = name.indexOf('<');
+        if (typeArguments >= 0) {
+            name = name.substring(0, typeArguments);
+        }
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * @param member    a member of a class of the indexed compilation unit
+     * @return          true if the member is converted with its body, i.e., it carries a JMH annotation or its
+     *                  class is converted in full
+     */
+    public boolean convertsInFull(BodyDeclaration<?> member) {
+        if (annotatedMethods.contains(member)) {
+            return true;
+        }
+        Optional<Node> parent = member.getParentNode();
+        return parent.isPresent() && fullClasses.contains(parent.get());
+    }
+}
@@ -0,0 +1,89 @@
+package joelbits.modules.preprocessing.plugins.fingerprint;
+
+import java.util.*;
+
+/**
+ * Finds methods with equal or similar fingerprints without comparing against every indexed method. Exact
+ * duplicates are looked up by their structural hash. For near duplicates the SimHash is split into four blocks of
+ * 16 bits: two SimHashes that differ in at most three bits agree in at least one block, so only the methods that
+ * share a block with the looked up SimHash are compared. Not thread-safe.
+ *
+ * @param <T>    what identifies an indexed method, e.g., the name of its file and method
+ */
+public final class FingerprintIndex<T> {
+    public static final int MAX_DISTANCE = 3;
+    private static final int BLOCKS = MAX_DISTANCE + 1;
+    private static final int BLOCK_BITS = Long.SIZE / BLOCKS;
+
+    private final Map<Long, List<T>> byStructuralHash = new HashMap<>();
+    private final List<Map<Integer, List<Entry<T>>>> byBlock = new ArrayList<>();
+    private int size;
+
+    public FingerprintIndex() {
+        for (int block = 0; block < BLOCKS; block++) {
+            byBlock.add(new HashMap<>());
+        }
+    }
+
+    public void add(T method, MethodFingerprint fingerprint) {
+        byStructuralHash.computeIfAbsent(fingerprint.getStructuralHash(), hash -> new ArrayList<>()).add(method);
+        Entry<T> entry = new Entry<>(method, fingerprint);
+        for (int block = 0; block < BLOCKS; block++) {
+            byBlock.get(block).computeIfAbsent(block(fingerprint.getSimHash(), block), bits -> new ArrayList<>()).add(entry);
+        }
+        size++;
+    }
+
+    /**
+     * @return    the indexed methods with the same structural hash, i.e., bodies equal up to names and literals
+     */
+    public List<T> duplicates(MethodFingerprint fingerprint) {
+        return Collections.unmodifiableList(byStructuralHash.getOrDefault(fingerprint.getStructuralHash(), Collections.emptyList()));
+    }
+
+    /**
+     * @param maxDistance    the largest number of bits in which the SimHashes may differ, at most MAX_DISTANCE
+     * @return               the indexed methods whose SimHash is within maxDistance of the fingerprint's, see
+     *                       MethodFingerprint.distance()
+     */
+    public Set<T> nearDuplicates(MethodFingerprint fingerprint, int maxDistance) {
+        if (maxDistance < 0 || maxDistance > MAX_DISTANCE) {
+            throw new IllegalArgumentException("maxDistance must be between 0 and " + MAX_DISTANCE + ", was " + maxDistance);
+        }
+
+        Set<T> nearDuplicates = new LinkedHashSet<>();
+        for (int block = 0; block < BLOCKS; block++) {
+            List<Entry<T>> candidates = byBlock.get(block).get(block(fingerprint.getSimHash(), block));
+            if (candidates == null) {
+                continue;
+            }
+            for (Entry<T> candidate : candidates) {
+                if (candidate.fingerprint.distance(fingerprint) <= maxDistance) {
+                    nearDuplicates.add(candidate.method);
+                }
+            }
+        }
+        return nearDuplicates;
+    }
+
+    /**
+     * @return    the number of indexed methods
+     */
+    public int size() {
+        return size;
+    }
+
+    private static int block(long simHash, int block) {
+        return (int) (simHash >>> (block * BLOCK_BITS)) & 0xFFFF;
+    }
+
+    private static final class Entry<T> {
+        private final T method;
+        private final MethodFingerprint fingerprint;
+
+        Entry(T method, MethodFingerprint fingerprint) {
+            this.method = method;
+            this.fingerprint = fingerprint;
+        }
+    }
+}
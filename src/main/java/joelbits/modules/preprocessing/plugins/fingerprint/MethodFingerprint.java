@@ -0,0 +1,91 @@
+package joelbits.modules.preprocessing.plugins.fingerprint;
+
+import com.google.protobuf.UnknownFieldSet;
+import joelbits.model.ast.protobuf.ASTProtos.Method;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The structural fingerprint of a method body, see StructuralFingerprinter. The schema of Method has no fields for
+ * it, so it is stored on the method as two fixed64 fields with numbers outside the schema, which protobuf keeps as
+ * unknown fields: readers of the schema ignore them, and of() reads them back.
+ */
+public final class MethodFingerprint {
+    public static final int STRUCTURAL_HASH_FIELD = 1001;
+    public static final int SIM_HASH_FIELD = 1002;
+
+    private final long structuralHash;
+    private final long simHash;
+
+    public MethodFingerprint(long structuralHash, long simHash) {
+        this.structuralHash = structuralHash;
+        this.simHash = simHash;
+    }
+
+    /**
+     * @return    the fingerprint stored on the method, or an empty Optional if it has none
+     */
+    public static Optional<MethodFingerprint> of(Method method) {
+        UnknownFieldSet fields = method.getUnknownFields();
+        if (!fields.hasField(STRUCTURAL_HASH_FIELD) || !fields.hasField(SIM_HASH_FIELD)) {
+            return Optional.empty();
+        }
+        List<Long> structuralHash = fields.getField(STRUCTURAL_HASH_FIELD).getFixed64List();
+        List<Long> simHash = fields.getField(SIM_HASH_FIELD).getFixed64List();
+        if (structuralHash.isEmpty() || simHash.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new MethodFingerprint(structuralHash.get(0), simHash.get(0)));
+    }
+
+    /**
+     * @return    a copy of the method carrying this fingerprint
+     */
+    public Method attachTo(Method method) {
+        UnknownFieldSet fields = UnknownFieldSet.newBuilder(method.getUnknownFields())
+                .addField(STRUCTURAL_HASH_FIELD, UnknownFieldSet.Field.newBuilder().addFixed64(structuralHash).build())
+                .addField(SIM_HASH_FIELD, UnknownFieldSet.Field.newBuilder().addFixed64(simHash).build())
+                .build();
+        return method.toBuilder().setUnknownFields(fields).build();
+    }
+
+    /**
+     * @return    the hash of the shape of the body, equal for bodies that differ only in names and literals
+     */
+    public long getStructuralHash() {
+        return structuralHash;
+    }
+
+    /**
+     * @return    the SimHash of the statement and expression kinds of the body, which differs in few bits for similar
+     *            bodies
+     */
+    public long getSimHash() {
+        return simHash;
+    }
+
+    /**
+     * @return    the number of bits in which the SimHashes of the fingerprints differ
+     */
+    public int distance(MethodFingerprint other) {
+        return Long.bitCount(simHash ^ other.simHash);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof MethodFingerprint
+                && structuralHash == ((MethodFingerprint) other).structuralHash
+                && simHash == ((MethodFingerprint) other).simHash;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(structuralHash) * 31 + Long.hashCode(simHash);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x/%016x", structuralHash, simHash);
+    }
+}
@@ -0,0 +1,115 @@
+package joelbits.modules.preprocessing.plugins.fingerprint;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.UnaryExpr;
+import com.github.javaparser.ast.stmt.Statement;
+import com.github.javaparser.ast.type.PrimitiveType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Computes the MethodFingerprint of a method body in one walk over its JavaParser nodes. The structural hash
+ * covers the kind and number of children of every node in pre-order, and the operators and primitive types, but
+ * no names or literal values, so renamed copies of a body share it. The SimHash is built from the sequences of
+ * three consecutive statement and expression kinds, so bodies with small edits differ in few of its bits. Kinds
+ * are hashed from class names, which keeps fingerprints stable across runs. Instances keep scratch state and are
+ * used by one thread at a time.
+ */
+public final class StructuralFingerprinter {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final ClassValue<Long> KINDS = new ClassValue<Long>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            return hash(type.getSimpleName());
+        }
+    };
+
+    private final int[] bitCounts = new int[Long.SIZE];
+    private long structuralHash;
+    private long previousKind;
+    private long kindBeforePrevious;
+    private int kinds;
+
+    public MethodFingerprint fingerprint(Node body) {
+        structuralHash = FNV_OFFSET;
+        previousKind = 0;
+        kindBeforePrevious = 0;
+        kinds = 0;
+        Arrays.fill(bitCounts, 0);
+
+        walk(body);
+        if (kinds > 0 && kinds < 3) {
+            addFeature(mix(mix(FNV_OFFSET, kindBeforePrevious), previousKind));
+        }
+
+        long simHash = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (bitCounts[bit] > 0) {
+                simHash |= 1L << bit;
+            }
+        }
+        return new MethodFingerprint(finish(structuralHash), simHash);
+    }
+
+    private void walk(Node node) {
+        long kind = KINDS.get(node.getClass());
+        structuralHash = mix(mix(structuralHash, kind), node.getChildNodes().size());
+        if (node instanceof BinaryExpr) {
+            structuralHash = mix(structuralHash, hash(((BinaryExpr) node).getOperator().name()));
+        } else if (node instanceof UnaryExpr) {
+            structuralHash = mix(structuralHash, hash(((UnaryExpr) node).getOperator().name()));
+        } else if (node instanceof AssignExpr) {
+            structuralHash = mix(structuralHash, hash(((AssignExpr) node).getOperator().name()));
+        } else if (node instanceof PrimitiveType) {
+            structuralHash = mix(structuralHash, hash(((PrimitiveType) node).getType().name()));
+        }
+
+        if (node instanceof Statement || node instanceof Expression) {
+            kinds++;
+            if (kinds >= 3) {
+                addFeature(mix(mix(mix(FNV_OFFSET, kindBeforePrevious), previousKind), kind));
+            }
+            kindBeforePrevious = previousKind;
+            previousKind = kind;
+        }
+
+        for (Node child : node.getChildNodes()) {
+            walk(child);
+        }
+    }
+
+    private void addFeature(long feature) {
+        long bits = finish(feature);
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            bitCounts[bit] += (bits >>> bit & 1) == 1 ? 1 : -1;
+        }
+    }
+
+    private static long hash(String name) {
+        long hash = FNV_OFFSET;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xFF)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+
+    /**
+     * Spreads the bits of a hash over the whole word, the finalizer of MurmurHash3.
+     */
+    private static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ hash >>> 33;
+    }
+}
@@ -0,0 +1,68 @@
+package joelbits.modules.preprocessing.plugins.git;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parts of a commit object needed for walking the history: its tree, its parents and its commit time.
+ */
+final class Commit {
+    private final ObjectId id;
+    private final ObjectId tree;
+    private final List<ObjectId> parents;
+    private final long commitTime;
+
+    private Commit(ObjectId id, ObjectId tree, List<ObjectId> parents, long commitTime) {
+        this.id = id;
+        this.tree = tree;
+        this.parents = parents;
+        this.commitTime = commitTime;
+    }
+
+    static Commit parse(ObjectId id, byte[] content) {
+        ObjectId tree = null;
+        List<ObjectId> parents = new ArrayList<>();
+        long commitTime = 0;
+
+        int position = 0;
+        while (position < content.length && content[position] != '\n') {
+            int lineEnd = position;
+            while (lineEnd < content.length && content[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            String line = new String(content, position, lineEnd - position, StandardCharsets.ISO_8859_1);
+            if (line.startsWith("tree ")) {
+                tree = ObjectId.fromString(line.substring("tree ".length()));
+            } else if (line.startsWith("parent ")) {
+                parents.add(ObjectId.fromString(line.substring("parent ".length())));
+            } else if (line.startsWith("committer ")) {
+                // committer <name> <<email>> <seconds> <timezone>
+                String[] parts = line.substring(line.lastIndexOf('>') + 1).trim().split(" ");
+                commitTime = Long.parseLong(parts[0]);
+            }
+            position = lineEnd + 1;
+        }
+
+        if (tree == null) {
+            throw new IllegalArgumentException("Commit without tree: " + id);
+        }
+        return new Commit(id, tree, parents, commitTime);
+    }
+
+    ObjectId getId() {
+        return id;
+    }
+
+    ObjectId getTree() {
+        return tree;
+    }
+
+    List<ObjectId> getParents() {
+        return parents;
+    }
+
+    long getCommitTime() {
+        return commitTime;
+    }
+}
@@ -0,0 +1,184 @@
+package joelbits.modules.preprocessing.plugins.git;
+
+import joelbits.modules.preprocessing.plugins.spi.FileParser;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Parses the benchmark files of the history of a local git repository straight from its objects, without checking
+ * out any revision. Each commit is compared to its first parent (the root commit to an empty tree), and every
+ * changed .java file containing benchmarks is reported. Blobs are read and parsed only once while they are
+ * remembered: the results of benchmark blobs among the recently used ones up to a total AST size, and the ids of
+ * the recently seen blobs without benchmarks up to a number, so the memory used does not grow with the history.
+ */
+public final class GitHistoryParser {
+    public static final long DEFAULT_MAX_CACHED_BYTES = 64L * 1024 * 1024;
+    public static final int MAX_REMEMBERED_OTHER_BLOBS = 100_000;
+    private static final String JAVA_FILE = ".java";
+    private final GitRepository repository;
+    private final FileParser parser;
+    private final long maxCachedBytes;
+    private final Map<ObjectId, ParsedBlob> benchmarkBlobs = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<ObjectId, Boolean> otherBlobs = new LinkedHashMap<ObjectId, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ObjectId, Boolean> eldest) {
+            return size() > MAX_REMEMBERED_OTHER_BLOBS;
+        }
+    };
+    private long cachedBytes;
+    private int commits;
+    private int parsedBlobs;
+    private int reusedBlobs;
+
+    public GitHistoryParser(GitRepository repository, FileParser parser) {
+        this(repository, parser, DEFAULT_MAX_CACHED_BYTES);
+    }
+
+    /**
+     * @param maxCachedBytes    the maximum total size of the ASTs of benchmark blobs kept for reuse, the least
+     *                          recently used are parsed again when they reappear
+     */
+    public GitHistoryParser(GitRepository repository, FileParser parser, long maxCachedBytes) {
+        this.repository = repository;
+        this.parser = parser;
+        this.maxCachedBytes = maxCachedBytes;
+    }
+
+    /**
+     * Walks all commits reachable from the revision, newest first by commit time, and reports the changed
+     * benchmark files of each commit.
+     *
+     * @param revision    the commit, branch or tag to start from
+     * @param callback    receives one result per changed benchmark file and commit
+     */
+    public void parseHistory(String revision, Consumer<ParsedBlob> callback) throws IOException {
+        PriorityQueue<Commit> pending = new PriorityQueue<>(Comparator.comparingLong(Commit::getCommitTime).reversed());
+        Set<ObjectId> seen = new HashSet<>();
+        ObjectId start = repository.resolveCommit(revision);
+        pending.add(repository.readCommit(start));
+        seen.add(start);
+
+        while (!pending.isEmpty()) {
+            Commit commit = pending.poll();
+            ObjectId parentTree = null;
+            for (ObjectId parent : commit.getParents()) {
+                Commit parentCommit = repository.readCommit(parent);
+                if (parentTree == null) {
+                    parentTree = parentCommit.getTree();
+                }
+                if (seen.add(parent)) {
+                    pending.add(parentCommit);
+                }
+            }
+            collectChanges(commit.getId(), parentTree, commit.getTree(), "", callback);
+            commits++;
+        }
+    }
+
+    /**
+     * Descends only into the subtrees whose ids differ from the parent's, since equal ids mean equal content.
+     */
+    private void collectChanges(ObjectId commit, ObjectId oldTree, ObjectId newTree, String directory, Consumer<ParsedBlob> callback) throws IOException {
+        Map<String, TreeEntry> oldEntries = new HashMap<>();
+        if (oldTree != null) {
+            for (TreeEntry entry : repository.readTree(oldTree)) {
+                oldEntries.put(entry.getName(), entry);
+            }
+        }
+
+        List<TreeEntry> newEntries = repository.readTree(newTree);
+        for (TreeEntry entry : newEntries) {
+            TreeEntry oldEntry = oldEntries.get(entry.getName());
+            if (oldEntry != null && oldEntry.getId().equals(entry.getId())) {
+                continue;
+            }
+
+            String path = directory + entry.getName();
+            if (entry.isTree()) {
+                ObjectId oldSubtree = oldEntry != null && oldEntry.isTree() ? oldEntry.getId() : null;
+                collectChanges(commit, oldSubtree, entry.getId(), path + "/", callback);
+            } else if (entry.isFile() && entry.getName().endsWith(JAVA_FILE)) {
+                parseBlob(commit, path, entry.getId(), callback);
+            }
+        }
+    }
+
+    private void parseBlob(ObjectId commit, String path, ObjectId blob, Consumer<ParsedBlob> callback) throws IOException {
+        if (otherBlobs.get(blob) != null) {
+            reusedBlobs++;
+            return;
+        }
+        ParsedBlob parsedBlob = benchmarkBlobs.get(blob);
+        if (parsedBlob != null) {
+            reusedBlobs++;
+            callback.accept(parsedBlob.forChange(commit, path));
+            return;
+        }
+
+        byte[] content = repository.readBlob(blob);
+        parsedBlobs++;
+        try {
+            Optional<byte[]> ast = parser.parseIfBenchmark(content, path, commit.toString());
+            if (!ast.isPresent()) {
+                otherBlobs.put(blob, Boolean.TRUE);
+                return;
+            }
+            parsedBlob = ParsedBlob.success(commit, path, blob, ast.get());
+        } catch (Throwable e) {
+            // also errors such as a StackOverflowError on a deeply nested blob, which must not end the walk
+            parsedBlob = ParsedBlob.failure(commit, path, blob, e instanceof Exception ? (Exception) e : new ExecutionException(e));
+        }
+        cache(blob, parsedBlob);
+        callback.accept(parsedBlob);
+    }
+
+    private void cache(ObjectId blob, ParsedBlob parsedBlob) {
+        long bytes = parsedBlob.isSuccessful() ? parsedBlob.getAst().length : 0;
+        if (bytes > maxCachedBytes) {
+            return;
+        }
+        benchmarkBlobs.put(blob, parsedBlob);
+        cachedBytes += bytes;
+
+        Iterator<ParsedBlob> leastRecentlyUsed = benchmarkBlobs.values().iterator();
+        while (cachedBytes > maxCachedBytes && leastRecentlyUsed.hasNext()) {
+            ParsedBlob evicted = leastRecentlyUsed.next();
+            cachedBytes -= evicted.isSuccessful() ? evicted.getAst().length : 0;
+            leastRecentlyUsed.remove();
+        }
+    }
+
+    /**
+     * @return    the number of commits walked
+     */
+    public int getCommits() {
+        return commits;
+    }
+
+    /**
+     * @return    the number of times a .java blob was read and parsed, once per distinct blob unless its result was
+     *            evicted before the blob reappeared
+     */
+    public int getParsedBlobs() {
+        return parsedBlobs;
+    }
+
+    /**
+     * @return    the number of changed .java files whose blob had already been parsed and was reused
+     */
+    public int getReusedBlobs() {
+        return reusedBlobs;
+    }
+}
@@ -0,0 +1,42 @@
+package joelbits.modules.preprocessing.plugins.git;
+
+/**
+ * The type and content of an object read from a git repository.
+ */
+final class GitObject {
+    static final int COMMIT = 1;
+    static final int TREE = 2;
+    static final int BLOB = 3;
+    static final int TAG = 4;
+
+    private final int type;
+    private final byte[] content;
+
+    GitObject(int type, byte[] content) {
+        this.type = type;
+        this.content = content;
+    }
+
+    static int typeOf(String name) {
+        switch (name) {
+            case "commit":
+                return COMMIT;
+            case "tree":
+                return TREE;
+            case "blob":
+                return BLOB;
+            case "tag":
+                return TAG;
+            default:
+                throw new IllegalArgumentException("Unknown object type: " + name);
+        }
+    }
+
+    int getType() {
+        return type;
+    }
+
+    byte[] getContent() {
+        return content;
+    }
+}
@@ -0,0 +1,174 @@
+package joelbits.modules.preprocessing.plugins.git;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads objects and references of a local git repository, either a bare repository or the .git directory of a
+ * working tree, without a git installation. Objects are read from pack files and loose object files.
+ */
+public final class GitRepository implements Closeable {
+    private static final String[] REFERENCE_PREFIXES = {"", "refs/", "refs/tags/", "refs/heads/", "refs/remotes/"};
+    private final Path directory;
+    private final List<PackFile> packs = new ArrayList<>();
+    private Map<String, ObjectId> packedReferences;
+
+    /**
+     * @param directory    the bare repository or the .git directory
+     */
+    public GitRepository(Path directory) throws IOException {
+        this.directory = directory;
+        Path packDirectory = directory.resolve("objects").resolve("pack");
+        if (Files.isDirectory(packDirectory)) {
+            try (DirectoryStream<Path> indexes = Files.newDirectoryStream(packDirectory, "*.idx")) {
+                for (Path index : indexes) {
+                    String packName = index.getFileName().toString().replaceFirst("\\.idx$", ".pack");
+                    packs.add(new PackFile(index, packDirectory.resolve(packName)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolves a revision, i.e., an object id, a branch, a tag or HEAD, to the commit it refers to. Annotated tags
+     * are followed to their commit.
+     *
+     * @param revision    the revision to resolve
+     * @return            the id of the commit
+     */
+    public ObjectId resolveCommit(String revision) throws IOException {
+        ObjectId id = resolve(revision);
+        GitObject object = read(id);
+        while (object.getType() == GitObject.TAG) {
+            String target = new String(object.getContent(), 0, "object ".length() + 40, StandardCharsets.ISO_8859_1);
+            id = ObjectId.fromString(target.substring("object ".length()));
+            object = read(id);
+        }
+        if (object.getType() != GitObject.COMMIT) {
+            throw new IllegalArgumentException("Not a commit: " + revision);
+        }
+        return id;
+    }
+
+    private ObjectId resolve(String revision) throws IOException {
+        if (ObjectId.isId(revision)) {
+            return ObjectId.fromString(revision);
+        }
+
+        for (String prefix : REFERENCE_PREFIXES) {
+            String name = prefix + revision;
+            Path looseReference = directory.resolve(name);
+            if (Files.isRegularFile(looseReference)) {
+                String target = new String(Files.readAllBytes(looseReference), StandardCharsets.UTF_8).trim();
+                return target.startsWith("ref: ") ? resolve(target.substring("ref: ".length())) : ObjectId.fromString(target);
+            }
+            ObjectId packedReference = packedReferences().get(name);
+            if (packedReference != null) {
+                return packedReference;
+            }
+        }
+        throw new IllegalArgumentException("Unknown revision: " + revision);
+    }
+
+    private synchronized Map<String, ObjectId> packedReferences() throws IOException {
+        if (packedReferences == null) {
+            packedReferences = new HashMap<>();
+            Path file = directory.resolve("packed-refs");
+            if (Files.isRegularFile(file)) {
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    if (!line.startsWith("#") && !line.startsWith("^") && line.indexOf(' ') > 0) {
+                        packedReferences.put(line.substring(line.indexOf(' ') + 1), ObjectId.fromString(line.substring(0, line.indexOf(' '))));
+                    }
+                }
+            }
+        }
+        return packedReferences;
+    }
+
+    /**
+     * @return    the content of the blob, e.g., the content of a file in some revision
+     */
+    public byte[] readBlob(ObjectId id) throws IOException {
+        GitObject object = read(id);
+        if (object.getType() != GitObject.BLOB) {
+            throw new IllegalArgumentException("Not a blob: " + id);
+        }
+        return object.getContent();
+    }
+
+    Commit readCommit(ObjectId id) throws IOException {
+        return Commit.parse(id, read(id).getContent());
+    }
+
+    List<TreeEntry> readTree(ObjectId id) throws IOException {
+        return TreeEntry.parse(read(id).getContent());
+    }
+
+    GitObject read(ObjectId id) throws IOException {
+        for (PackFile pack : packs) {
+            long offset = pack.findOffset(id);
+            if (offset >= 0) {
+                return pack.read(offset, this);
+            }
+        }
+        return readLooseObject(id);
+    }
+
+    /**
+     * Reads an object stored in its own file: the compressed type, a space, the size in decimal, a zero byte and
+     * the content.
+     */
+    private GitObject readLooseObject(ObjectId id) throws IOException {
+        String name = id.toString();
+        Path file = directory.resolve("objects").resolve(name.substring(0, 2)).resolve(name.substring(2));
+        if (!Files.isRegularFile(file)) {
+            throw new IOException("Missing object " + name + " in " + directory);
+        }
+
+        byte[] data;
+        try (InputStream input = new InflaterInputStream(Files.newInputStream(file))) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8 * 1024];
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                output.write(buffer, 0, read);
+            }
+            data = output.toByteArray();
+        }
+
+        int headerEnd = 0;
+        while (data[headerEnd] != 0) {
+            headerEnd++;
+        }
+        String header = new String(data, 0, headerEnd, StandardCharsets.ISO_8859_1);
+        int type = GitObject.typeOf(header.substring(0, header.indexOf(' ')));
+        return new GitObject(type, Arrays.copyOfRange(data, headerEnd + 1, data.length));
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (PackFile pack : packs) {
+            try {
+                pack.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
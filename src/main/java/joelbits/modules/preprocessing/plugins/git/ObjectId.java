@@ -0,0 +1,84 @@
+package joelbits.modules.preprocessing.plugins.git;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The SHA-1 name of a git object.
+ */
+public final class ObjectId {
+    static final int LENGTH = 20;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private final byte[] id;
+
+    private ObjectId(byte[] id) {
+        this.id = id;
+    }
+
+    static ObjectId fromRaw(byte[] raw, int offset) {
+        return new ObjectId(Arrays.copyOfRange(raw, offset, offset + LENGTH));
+    }
+
+    /**
+     * @param hex    the 40 hexadecimal digits of the name
+     */
+    public static ObjectId fromString(String hex) {
+        if (!isId(hex)) {
+            throw new IllegalArgumentException("Not an object id: " + hex);
+        }
+        byte[] id = new byte[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            id[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return new ObjectId(id);
+    }
+
+    static boolean isId(String text) {
+        return text.length() == LENGTH * 2 && text.chars().allMatch(c -> Character.digit(c, 16) >= 0);
+    }
+
+    static ObjectId fromRaw(ByteBuffer raw, int position) {
+        byte[] id = new byte[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            id[i] = raw.get(position + i);
+        }
+        return new ObjectId(id);
+    }
+
+    /**
+     * Compares the name with the raw name at the position, in the order used by pack indexes.
+     */
+    int compareTo(ByteBuffer raw, int position) {
+        for (int i = 0; i < LENGTH; i++) {
+            int difference = (id[i] & 0xFF) - (raw.get(position + i) & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return 0;
+    }
+
+    int firstByte() {
+        return id[0] & 0xFF;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ObjectId && Arrays.equals(id, ((ObjectId) other).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return (id[0] & 0xFF) << 24 | (id[1] & 0xFF) << 16 | (id[2] & 0xFF) << 8 | id[3] & 0xFF;
+    }
+
+    @Override
+    public String toString() {
+        char[] hex = new char[LENGTH * 2];
+        for (int i = 0; i < LENGTH; i++) {
+            hex[i * 2] = HEX[(id[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX[id[i] & 0xF];
+        }
+        return new String(hex);
+    }
+}
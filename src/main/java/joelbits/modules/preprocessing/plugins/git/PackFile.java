@@ -0,0 +1,226 @@
+package joelbits.modules.preprocessing.plugins.git;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A memory-mapped pack file together with its version 2 index. Delta objects are resolved against their bases,
+ * recently used bases are kept in memory since delta chains share them.
+ */
+final class PackFile implements Closeable {
+    private static final int INDEX_MAGIC = 0xFF744F63;
+    private static final int FANOUT_START = 8;
+    private static final int NAMES_START = FANOUT_START + 256 * 4;
+    private static final int OFS_DELTA = 6;
+    private static final int REF_DELTA = 7;
+    private static final long MAX_CACHED_BASE_BYTES = 16 * 1024 * 1024;
+
+    private final FileChannel indexChannel;
+    private final FileChannel packChannel;
+    private final MappedByteBuffer index;
+    private final MappedByteBuffer pack;
+    private final int objectCount;
+    private final LinkedHashMap<Long, GitObject> cachedBases = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBaseBytes;
+
+    PackFile(Path indexFile, Path packFile) throws IOException {
+        indexChannel = FileChannel.open(indexFile, StandardOpenOption.READ);
+        packChannel = FileChannel.open(packFile, StandardOpenOption.READ);
+        if (packChannel.size() > Integer.MAX_VALUE) {
+            close();
+            throw new IOException("Pack files larger than 2 GiB are not supported: " + packFile);
+        }
+        index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size());
+        pack = packChannel.map(FileChannel.MapMode.READ_ONLY, 0, packChannel.size());
+        if (index.getInt(0) != INDEX_MAGIC || index.getInt(4) != 2) {
+            close();
+            throw new IOException("Only version 2 pack indexes are supported: " + indexFile);
+        }
+        objectCount = index.getInt(FANOUT_START + 255 * 4);
+    }
+
+    /**
+     * @return    the offset of the object in the pack, or -1 if the pack does not contain the object
+     */
+    long findOffset(ObjectId id) {
+        int first = id.firstByte();
+        int low = first == 0 ? 0 : index.getInt(FANOUT_START + (first - 1) * 4);
+        int high = index.getInt(FANOUT_START + first * 4) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = id.compareTo(index, NAMES_START + middle * ObjectId.LENGTH);
+            if (comparison == 0) {
+                return offsetAt(middle);
+            } else if (comparison < 0) {
+                high = middle - 1;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return -1;
+    }
+
+    private long offsetAt(int position) {
+        int offsetsStart = NAMES_START + objectCount * (ObjectId.LENGTH + 4);
+        int offset = index.getInt(offsetsStart + position * 4);
+        if (offset >= 0) {
+            return offset;
+        }
+        int largeOffsetsStart = offsetsStart + objectCount * 4;
+        return index.getLong(largeOffsetsStart + (offset & 0x7FFFFFFF) * 8);
+    }
+
+    /**
+     * Reads the object at the offset, resolving base objects of other packs through the repository.
+     */
+    GitObject read(long offset, GitRepository repository) throws IOException {
+        int position = (int) offset;
+        int current = pack.get(position++) & 0xFF;
+        int type = (current >> 4) & 7;
+        long size = current & 15;
+        int shift = 4;
+        while ((current & 0x80) != 0) {
+            current = pack.get(position++) & 0xFF;
+            size |= (long) (current & 0x7F) << shift;
+            shift += 7;
+        }
+
+        if (type == OFS_DELTA) {
+            current = pack.get(position++) & 0xFF;
+            long distance = current & 0x7F;
+            while ((current & 0x80) != 0) {
+                current = pack.get(position++) & 0xFF;
+                distance = ((distance + 1) << 7) | (current & 0x7F);
+            }
+            GitObject base = readBase(offset - distance, repository);
+            return new GitObject(base.getType(), applyDelta(base.getContent(), inflate(position, size)));
+        }
+        if (type == REF_DELTA) {
+            GitObject base = repository.read(ObjectId.fromRaw(pack, position));
+            return new GitObject(base.getType(), applyDelta(base.getContent(), inflate(position + ObjectId.LENGTH, size)));
+        }
+        return new GitObject(type, inflate(position, size));
+    }
+
+    private GitObject readBase(long offset, GitRepository repository) throws IOException {
+        synchronized (cachedBases) {
+            GitObject base = cachedBases.get(offset);
+            if (base != null) {
+                return base;
+            }
+        }
+
+        GitObject base = read(offset, repository);
+        synchronized (cachedBases) {
+            if (cachedBases.put(offset, base) == null) {
+                cachedBaseBytes += base.getContent().length;
+            }
+            while (cachedBaseBytes > MAX_CACHED_BASE_BYTES && !cachedBases.isEmpty()) {
+                Map.Entry<Long, GitObject> eldest = cachedBases.entrySet().iterator().next();
+                cachedBaseBytes -= eldest.getValue().getContent().length;
+                cachedBases.remove(eldest.getKey());
+            }
+        }
+        return base;
+    }
+
+    private byte[] inflate(int position, long size) throws IOException {
+        byte[] content = new byte[(int) size];
+        ByteBuffer input = pack.duplicate();
+        input.position(position);
+        byte[] chunk = new byte[8 * 1024];
+        Inflater inflater = new Inflater();
+        try {
+            int inflated = 0;
+            while (inflated < content.length) {
+                if (inflater.needsInput()) {
+                    int length = Math.min(chunk.length, input.remaining());
+                    if (length == 0) {
+                        throw new IOException("Truncated object at offset " + position);
+                    }
+                    input.get(chunk, 0, length);
+                    inflater.setInput(chunk, 0, length);
+                }
+                int count = inflater.inflate(content, inflated, content.length - inflated);
+                if (count == 0 && (inflater.finished() || inflater.needsDictionary())) {
+                    throw new IOException("Corrupt object at offset " + position);
+                }
+                inflated += count;
+            }
+            return content;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt object at offset " + position, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Rebuilds an object from its base and a git delta: the sizes of base and result as varints, followed by
+     * instructions that either copy a range of the base or insert the bytes following the instruction.
+     */
+    private static byte[] applyDelta(byte[] base, byte[] delta) throws IOException {
+        int position = 0;
+        while ((delta[position++] & 0x80) != 0) {
+            // skip the size of the base
+        }
+        int resultSize = 0;
+        int shift = 0;
+        int current;
+        do {
+            current = delta[position++] & 0xFF;
+            resultSize |= (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+
+        byte[] result = new byte[resultSize];
+        int written = 0;
+        while (position < delta.length) {
+            int instruction = delta[position++] & 0xFF;
+            if ((instruction & 0x80) != 0) {
+                int copyOffset = 0;
+                int copySize = 0;
+                for (int i = 0; i < 4; i++) {
+                    if ((instruction & (1 << i)) != 0) {
+                        copyOffset |= (delta[position++] & 0xFF) << (8 * i);
+                    }
+                }
+                for (int i = 0; i < 3; i++) {
+                    if ((instruction & (0x10 << i)) != 0) {
+                        copySize |= (delta[position++] & 0xFF) << (8 * i);
+                    }
+                }
+                if (copySize == 0) {
+                    copySize = 0x10000;
+                }
+                System.arraycopy(base, copyOffset, result, written, copySize);
+                written += copySize;
+            } else if (instruction != 0) {
+                System.arraycopy(delta, position, result, written, instruction);
+                position += instruction;
+                written += instruction;
+            } else {
+                throw new IOException("Invalid delta instruction");
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            indexChannel.close();
+        } finally {
+            packChannel.close();
+        }
+    }
+}
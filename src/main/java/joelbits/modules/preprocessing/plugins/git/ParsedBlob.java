@@ -0,0 +1,69 @@
+package joelbits.modules.preprocessing.plugins.git;
+
+/**
+ * The outcome of parsing a benchmark file changed by a commit. Either the parsed AST or the failure that occurred
+ * while parsing the file's blob is present.
+ */
+public final class ParsedBlob {
+    private final ObjectId commit;
+    private final String path;
+    private final ObjectId blob;
+    private final byte[] ast;
+    private final Exception failure;
+
+    private ParsedBlob(ObjectId commit, String path, ObjectId blob, byte[] ast, Exception failure) {
+        this.commit = commit;
+        this.path = path;
+        this.blob = blob;
+        this.ast = ast;
+        this.failure = failure;
+    }
+
+    public static ParsedBlob success(ObjectId commit, String path, ObjectId blob, byte[] ast) {
+        return new ParsedBlob(commit, path, blob, ast, null);
+    }
+
+    public static ParsedBlob failure(ObjectId commit, String path, ObjectId blob, Exception failure) {
+        return new ParsedBlob(commit, path, blob, null, failure);
+    }
+
+    /**
+     * @return    the same outcome for another commit or path having the same blob
+     */
+    ParsedBlob forChange(ObjectId commit, String path) {
+        return new ParsedBlob(commit, path, blob, ast, failure);
+    }
+
+    public ObjectId getCommit() {
+        return commit;
+    }
+
+    /**
+     * @return    the path of the file within the repository
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public ObjectId getBlob() {
+        return blob;
+    }
+
+    /**
+     * @return    the binary AST of the file, or null if parsing failed
+     */
+    public byte[] getAst() {
+        return ast;
+    }
+
+    /**
+     * @return    the exception thrown while parsing the file, or null if parsing succeeded
+     */
+    public Exception getFailure() {
+        return failure;
+    }
+
+    public boolean isSuccessful() {
+        return failure == null;
+    }
+}
@@ -0,0 +1,65 @@
+package joelbits.modules.preprocessing.plugins.git;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An entry of a tree object, i.e., a file, a directory, a symbolic link or a submodule.
+ */
+final class TreeEntry {
+    private static final int TYPE_MASK = 0170000;
+    private static final int TREE = 0040000;
+    private static final int FILE = 0100000;
+
+    private final int mode;
+    private final String name;
+    private final ObjectId id;
+
+    private TreeEntry(int mode, String name, ObjectId id) {
+        this.mode = mode;
+        this.name = name;
+        this.id = id;
+    }
+
+    /**
+     * Reads the entries of a tree object, each being an octal mode, a space, the name, a zero byte and the raw id.
+     */
+    static List<TreeEntry> parse(byte[] content) {
+        List<TreeEntry> entries = new ArrayList<>();
+        int position = 0;
+        while (position < content.length) {
+            int mode = 0;
+            while (content[position] != ' ') {
+                mode = (mode << 3) + (content[position++] - '0');
+            }
+            int nameStart = ++position;
+            while (content[position] != 0) {
+                position++;
+            }
+            String name = new String(content, nameStart, position - nameStart, StandardCharsets.UTF_8);
+            entries.add(new TreeEntry(mode, name, ObjectId.fromRaw(content, position + 1)));
+            position += 1 + ObjectId.LENGTH;
+        }
+        return entries;
+    }
+
+    boolean isTree() {
+        return (mode & TYPE_MASK) == TREE;
+    }
+
+    /**
+     * @return    true for regular files, which excludes symbolic links and submodules
+     */
+    boolean isFile() {
+        return (mode & TYPE_MASK) == FILE;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    ObjectId getId() {
+        return id;
+    }
+}
@@ -0,0 +1,79 @@
+package joelbits.modules.preprocessing.plugins.incremental;
+
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import joelbits.modules.preprocessing.plugins.JavaParser;
+import joelbits.modules.preprocessing.plugins.ParserOptions;
+import joelbits.modules.preprocessing.plugins.cache.CacheKey;
+import joelbits.modules.preprocessing.plugins.visitors.VisitorContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers the protobuf messages converted from class members (methods and fields), keyed by a digest of the
+ * member's source text. A member whose text is unchanged since the previous revision is not visited again;
+ * its previously converted messages are reused instead.
+ */
+public final class MemberCache {
+    private final Map<CacheKey, List<?>> previousMembers;
+    private final Map<CacheKey, List<?>> currentMembers = new HashMap<>();
+    private int reusedMembers;
+    private int convertedMembers;
+
+    public MemberCache() {
+        this(Collections.emptyMap());
+    }
+
+    MemberCache(Map<CacheKey, List<?>> previousMembers) {
+        this.previousMembers = previousMembers;
+    }
+
+    /**
+     * Adds the messages of the member to the converted list, either from the previous revision or by letting the
+     * visitor convert the member.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void convert(BodyDeclaration<?> member, VoidVisitorAdapter<List<T>> visitor, List<T> converted) {
+        ParserOptions options = VisitorContext.current().getOptions();
+        String version = JavaParser.VERSION + "/" + options.getExtractionDepth() + (options.isFingerprints() ? "/fingerprints" : "");
+        CacheKey key = CacheKey.of(version, memberText(member).getBytes(StandardCharsets.UTF_8));
+        List<T> messages = (List<T>) currentMembers.get(key);
+        if (messages == null) {
+            messages = (List<T>) previousMembers.get(key);
+        }
+
+        if (messages != null) {
+            reusedMembers++;
+        } else {
+            messages = new ArrayList<>();
+            member.accept(visitor, messages);
+            convertedMembers++;
+        }
+
+        currentMembers.put(key, messages);
+        converted.addAll(messages);
+    }
+
+    private String memberText(BodyDeclaration<?> member) {
+        return member.getTokenRange()
+                .map(Object::toString)
+                .orElseGet(member::toString);
+    }
+
+    Map<CacheKey, List<?>> getCurrentMembers() {
+        return currentMembers;
+    }
+
+    int getReusedMembers() {
+        return reusedMembers;
+    }
+
+    int getConvertedMembers() {
+        return convertedMembers;
+    }
+}
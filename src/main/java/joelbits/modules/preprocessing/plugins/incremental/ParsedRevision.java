@@ -0,0 +1,52 @@
+package joelbits.modules.preprocessing.plugins.incremental;
+
+import joelbits.modules.preprocessing.plugins.cache.CacheKey;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of parsing one revision of a file incrementally. Besides the binary AST it retains the converted
+ * methods and fields of the revision, so that the next revision of the same file only has to convert the
+ * members that changed.
+ */
+public final class ParsedRevision {
+    private final byte[] ast;
+    private final Map<CacheKey, List<?>> members;
+    private final int reusedMembers;
+    private final int convertedMembers;
+
+    public ParsedRevision(byte[] ast, MemberCache memberCache) {
+        this.ast = ast;
+        this.members = memberCache.getCurrentMembers();
+        this.reusedMembers = memberCache.getReusedMembers();
+        this.convertedMembers = memberCache.getConvertedMembers();
+    }
+
+    /**
+     * Creates the member cache for parsing the revision following this one.
+     *
+     * @param previous    the previous revision of the file, or null if there is none
+     */
+    public static MemberCache memberCacheFor(ParsedRevision previous) {
+        return previous == null ? new MemberCache() : new MemberCache(previous.members);
+    }
+
+    public byte[] getAst() {
+        return ast;
+    }
+
+    /**
+     * @return    the number of methods and fields taken over from the previous revision
+     */
+    public int getReusedMembers() {
+        return reusedMembers;
+    }
+
+    /**
+     * @return    the number of methods and fields converted in this revision
+     */
+    public int getConvertedMembers() {
+        return convertedMembers;
+    }
+}
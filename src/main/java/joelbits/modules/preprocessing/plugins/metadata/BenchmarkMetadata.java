@@ -0,0 +1,343 @@
+package joelbits.modules.preprocessing.plugins.metadata;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The JMH benchmarks of one file and the parameters of its state classes, with the values of their annotations
+ * parsed into typed columns: the i-th benchmark is the i-th entry of every benchmark column. Values that are not
+ * written in the source, or not as literals, are UNSET, in which case JMH falls back to the annotations of super
+ * classes, the command line or its defaults. The record is encoded with a string table and variable-length
+ * integers, see toByteArray(), so it takes a few bytes per benchmark.
+ */
+public final class BenchmarkMetadata {
+    public static final int UNSET = -1;
+    /**
+     * The threads of Threads.MAX, i.e., one per available processor.
+     */
+    public static final int MAX_THREADS = 0;
+    public static final int THROUGHPUT = 1;
+    public static final int AVERAGE_TIME = 2;
+    public static final int SAMPLE_TIME = 4;
+    public static final int SINGLE_SHOT_TIME = 8;
+    public static final int ALL_MODES = THROUGHPUT | AVERAGE_TIME | SAMPLE_TIME | SINGLE_SHOT_TIME;
+    private static final byte FORMAT_VERSION = 1;
+    private static final TimeUnit[] TIME_UNITS = TimeUnit.values();
+
+    private final String[] classNames;
+    private final String[] methodNames;
+    private final int[] modes;
+    private final int[] forks;
+    private final int[] warmupIterations;
+    private final long[] warmupNanos;
+    private final int[] measurementIterations;
+    private final long[] measurementNanos;
+    private final int[] threads;
+    private final int[] outputTimeUnits;
+    private final String[] paramClasses;
+    private final String[] paramNames;
+    private final String[][] paramValues;
+
+    private BenchmarkMetadata(int benchmarks, int params) {
+        classNames = new String[benchmarks];
+        methodNames = new String[benchmarks];
+        modes = new int[benchmarks];
+        forks = new int[benchmarks];
+        warmupIterations = new int[benchmarks];
+        warmupNanos = new long[benchmarks];
+        measurementIterations = new int[benchmarks];
+        measurementNanos = new long[benchmarks];
+        threads = new int[benchmarks];
+        outputTimeUnits = new int[benchmarks];
+        paramClasses = new String[params];
+        paramNames = new String[params];
+        paramValues = new String[params][];
+    }
+
+    /**
+     * @return    the number of benchmark methods
+     */
+    public int size() {
+        return classNames.length;
+    }
+
+    /**
+     * @return    the fully-qualified name of the class declaring the benchmark, with nested classes separated by dots
+     */
+    public String getClassName(int benchmark) {
+        return classNames[benchmark];
+    }
+
+    public String getMethodName(int benchmark) {
+        return methodNames[benchmark];
+    }
+
+    /**
+     * @return    the modes of @BenchmarkMode as a combination of THROUGHPUT, AVERAGE_TIME, SAMPLE_TIME and
+     *            SINGLE_SHOT_TIME, or 0 if no mode is given
+     */
+    public int getModes(int benchmark) {
+        return modes[benchmark];
+    }
+
+    public int getForks(int benchmark) {
+        return forks[benchmark];
+    }
+
+    public int getWarmupIterations(int benchmark) {
+        return warmupIterations[benchmark];
+    }
+
+    /**
+     * @return    the duration of a warmup iteration in nanoseconds, or UNSET
+     */
+    public long getWarmupNanos(int benchmark) {
+        return warmupNanos[benchmark];
+    }
+
+    public int getMeasurementIterations(int benchmark) {
+        return measurementIterations[benchmark];
+    }
+
+    /**
+     * @return    the duration of a measurement iteration in nanoseconds, or UNSET
+     */
+    public long getMeasurementNanos(int benchmark) {
+        return measurementNanos[benchmark];
+    }
+
+    /**
+     * @return    the threads of @Threads, MAX_THREADS, or UNSET
+     */
+    public int getThreads(int benchmark) {
+        return threads[benchmark];
+    }
+
+    /**
+     * @return    the unit of @OutputTimeUnit, or null if no unit is given
+     */
+    public TimeUnit getOutputTimeUnit(int benchmark) {
+        return outputTimeUnits[benchmark] == UNSET ? null : TIME_UNITS[outputTimeUnits[benchmark]];
+    }
+
+    /**
+     * @return    the number of fields annotated with @Param
+     */
+    public int getParamCount() {
+        return paramClasses.length;
+    }
+
+    public String getParamClass(int param) {
+        return paramClasses[param];
+    }
+
+    public String getParamName(int param) {
+        return paramNames[param];
+    }
+
+    /**
+     * @return    the values of the parameter, which is empty if JMH derives them from the type of the field
+     */
+    public List<String> getParamValues(int param) {
+        return Collections.unmodifiableList(Arrays.asList(paramValues[param]));
+    }
+
+    /**
+     * Encodes the record as a string table followed by the columns, in which names are indexes into the table and
+     * numbers are variable-length integers offset by one, so that UNSET takes a single byte.
+     */
+    public byte[] toByteArray() {
+        Map<String, Integer> table = new LinkedHashMap<>();
+        for (String[] column : Arrays.asList(classNames, methodNames, paramClasses, paramNames)) {
+            for (String name : column) {
+                table.putIfAbsent(name, table.size());
+            }
+        }
+        for (String[] values : paramValues) {
+            for (String value : values) {
+                table.putIfAbsent(value, table.size());
+            }
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream(64 + 16 * size());
+        output.write(FORMAT_VERSION);
+        writeVarLong(output, table.size());
+        for (String name : table.keySet()) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(output, bytes.length);
+            output.write(bytes, 0, bytes.length);
+        }
+
+        writeVarLong(output, size());
+        writeVarLong(output, getParamCount());
+        writeNames(output, classNames, table);
+        writeNames(output, methodNames, table);
+        writeValues(output, modes);
+        writeValues(output, forks);
+        writeValues(output, warmupIterations);
+        writeValues(output, warmupNanos);
+        writeValues(output, measurementIterations);
+        writeValues(output, measurementNanos);
+        writeValues(output, threads);
+        writeValues(output, outputTimeUnits);
+        writeNames(output, paramClasses, table);
+        writeNames(output, paramNames, table);
+        for (String[] values : paramValues) {
+            writeVarLong(output, values.length);
+            writeNames(output, values, table);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Decodes a record written by toByteArray() from the position of the buffer, which is advanced past it.
+     *
+     * @throws IllegalArgumentException    if the record has an unknown format
+     */
+    public static BenchmarkMetadata parseFrom(ByteBuffer buffer) {
+        byte version = buffer.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unknown benchmark metadata format " + version);
+        }
+        String[] table = new String[(int) readVarLong(buffer)];
+        for (int i = 0; i < table.length; i++) {
+            byte[] bytes = new byte[(int) readVarLong(buffer)];
+            buffer.get(bytes);
+            table[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int benchmarks = (int) readVarLong(buffer);
+        int params = (int) readVarLong(buffer);
+        BenchmarkMetadata metadata = new BenchmarkMetadata(benchmarks, params);
+        readNames(buffer, metadata.classNames, table);
+        readNames(buffer, metadata.methodNames, table);
+        readValues(buffer, metadata.modes);
+        readValues(buffer, metadata.forks);
+        readValues(buffer, metadata.warmupIterations);
+        readValues(buffer, metadata.warmupNanos);
+        readValues(buffer, metadata.measurementIterations);
+        readValues(buffer, metadata.measurementNanos);
+        readValues(buffer, metadata.threads);
+        readValues(buffer, metadata.outputTimeUnits);
+        readNames(buffer, metadata.paramClasses, table);
+        readNames(buffer, metadata.paramNames, table);
+        for (int i = 0; i < params; i++) {
+            metadata.paramValues[i] = new String[(int) readVarLong(buffer)];
+            readNames(buffer, metadata.paramValues[i], table);
+        }
+        return metadata;
+    }
+
+    private static void writeNames(ByteArrayOutputStream output, String[] names, Map<String, Integer> table) {
+        for (String name : names) {
+            writeVarLong(output, table.get(name));
+        }
+    }
+
+    private static void writeValues(ByteArrayOutputStream output, int[] values) {
+        for (int value : values) {
+            writeVarLong(output, value + 1L);
+        }
+    }
+
+    private static void writeValues(ByteArrayOutputStream output, long[] values) {
+        for (long value : values) {
+            writeVarLong(output, value + 1);
+        }
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream output, long value) {
+        while ((value & ~0x7FL) != 0) {
+            output.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.write((int) value);
+    }
+
+    private static void readNames(ByteBuffer buffer, String[] names, String[] table) {
+        for (int i = 0; i < names.length; i++) {
+            names[i] = table[(int) readVarLong(buffer)];
+        }
+    }
+
+    private static void readValues(ByteBuffer buffer, int[] values) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (int) (readVarLong(buffer) - 1);
+        }
+    }
+
+    private static void readValues(ByteBuffer buffer, long[] values) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readVarLong(buffer) - 1;
+        }
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte current = buffer.get();
+            value |= (long) (current & 0x7F) << shift;
+            if (current >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed variable-length integer in benchmark metadata");
+    }
+
+    /**
+     * Collects the benchmarks and parameters of a file in the order they are declared.
+     */
+    static final class Builder {
+        private final List<String> classNames = new ArrayList<>();
+        private final List<String> methodNames = new ArrayList<>();
+        private final List<int[]> counts = new ArrayList<>();
+        private final List<long[]> durations = new ArrayList<>();
+        private final List<String> paramClasses = new ArrayList<>();
+        private final List<String> paramNames = new ArrayList<>();
+        private final List<String[]> paramValues = new ArrayList<>();
+
+        Builder addBenchmark(String className, String methodName, int modes, int forks, int warmupIterations,
+                             long warmupNanos, int measurementIterations, long measurementNanos, int threads,
+                             TimeUnit outputTimeUnit) {
+            classNames.add(className);
+            methodNames.add(methodName);
+            int timeUnit = outputTimeUnit == null ? UNSET : outputTimeUnit.ordinal();
+            counts.add(new int[] {modes, forks, warmupIterations, measurementIterations, threads, timeUnit});
+            durations.add(new long[] {warmupNanos, measurementNanos});
+            return this;
+        }
+
+        Builder addParam(String className, String fieldName, List<String> values) {
+            paramClasses.add(className);
+            paramNames.add(fieldName);
+            paramValues.add(values.toArray(new String[0]));
+            return this;
+        }
+
+        BenchmarkMetadata build() {
+            BenchmarkMetadata metadata = new BenchmarkMetadata(classNames.size(), paramClasses.size());
+            for (int i = 0; i < classNames.size(); i++) {
+                int[] count = counts.get(i);
+                metadata.classNames[i] = classNames.get(i);
+                metadata.methodNames[i] = methodNames.get(i);
+                metadata.modes[i] = count[0];
+                metadata.forks[i] = count[1];
+                metadata.warmupIterations[i] = count[2];
+                metadata.warmupNanos[i] = durations.get(i)[0];
+                metadata.measurementIterations[i] = count[3];
+                metadata.measurementNanos[i] = durations.get(i)[1];
+                metadata.threads[i] = count[4];
+                metadata.outputTimeUnits[i] = count[5];
+            }
+            for (int i = 0; i < paramClasses.size(); i++) {
+                metadata.paramClasses[i] = paramClasses.get(i);
+                metadata.paramNames[i] = paramNames.get(i);
+                metadata.paramValues[i] = paramValues.get(i);
+            }
+            return metadata;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package joelbits.modules.preprocessing.plugins.metadata;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.PackageDeclaration;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.*;
+import com.github.javaparser.ast.nodeTypes.NodeWithAnnotations;
+import joelbits.modules.preprocessing.plugins.filter.BenchmarkIndex;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extracts the BenchmarkMetadata of a compilation unit from its JMH annotations. As in JMH, an annotation of a
+ * benchmark method replaces the annotation of the same kind on its class, and members that are not given take
+ * their JMH defaults, e.g., a time of a @Warmup without a time unit is in seconds. Annotations of super classes
+ * are not followed, and values that are not literals, e.g., constants, are UNSET.
+ */
+public final class BenchmarkMetadataExtractor {
+    private static final Map<String, Integer> MODES = new HashMap<>();
+
+    static {
+        MODES.put("Throughput", BenchmarkMetadata.THROUGHPUT);
+        MODES.put("AverageTime", BenchmarkMetadata.AVERAGE_TIME);
+        MODES.put("SampleTime", BenchmarkMetadata.SAMPLE_TIME);
+        MODES.put("SingleShotTime", BenchmarkMetadata.SINGLE_SHOT_TIME);
+        MODES.put("All", BenchmarkMetadata.ALL_MODES);
+    }
+
+    /**
+     * @return    the benchmarks and parameters of the compilation unit, or an empty Optional if it does not use JMH
+     *            at all, i.e., neither imports nor names JMH annotations
+     */
+    public Optional<BenchmarkMetadata> extract(CompilationUnit compilationUnit) {
+        boolean importsJmh = BenchmarkIndex.importsJmh(compilationUnit);
+        BenchmarkMetadata.Builder builder = new BenchmarkMetadata.Builder();
+        String packageName = compilationUnit.getPackageDeclaration().map(PackageDeclaration::getNameAsString).orElse("");
+        boolean usesJmh = importsJmh;
+        for (TypeDeclaration<?> type : compilationUnit.getTypes()) {
+            String className = packageName.isEmpty() ? type.getNameAsString() : packageName + "." + type.getNameAsString();
+            usesJmh |= extract(type, className, importsJmh, builder);
+        }
+        return usesJmh ? Optional.of(builder.build()) : Optional.empty();
+    }
+
+    /**
+     * @return    true if the class or one of its nested classes has a JMH benchmark or parameter
+     */
+    private boolean extract(TypeDeclaration<?> type, String className, boolean importsJmh, BenchmarkMetadata.Builder builder) {
+        boolean found = false;
+        for (BodyDeclaration<?> member : type.getMembers()) {
+            if (member.isMethodDeclaration()) {
+                MethodDeclaration method = member.asMethodDeclaration();
+                if (annotation(method, "Benchmark", importsJmh) != null) {
+                    addBenchmark(type, method, className, importsJmh, builder);
+                    found = true;
+                }
+            } else if (member.isFieldDeclaration()) {
+                FieldDeclaration field = member.asFieldDeclaration();
+                AnnotationExpr param = annotation(field, "Param", importsJmh);
+                if (param != null) {
+                    List<String> values = strings(member(param, "value"));
+                    for (VariableDeclarator variable : field.getVariables()) {
+                        builder.addParam(className, variable.getNameAsString(), values);
+                    }
+                    found = true;
+                }
+            } else if (member.isTypeDeclaration()) {
+                TypeDeclaration<?> nested = member.asTypeDeclaration();
+                found |= extract(nested, className + "." + nested.getNameAsString(), importsJmh, builder);
+            }
+        }
+        return found;
+    }
+
+    private void addBenchmark(TypeDeclaration<?> type, MethodDeclaration method, String className, boolean importsJmh,
+                              BenchmarkMetadata.Builder builder) {
+        AnnotationExpr benchmarkMode = nearest(type, method, "BenchmarkMode", importsJmh);
+        AnnotationExpr fork = nearest(type, method, "Fork", importsJmh);
+        AnnotationExpr warmup = nearest(type, method, "Warmup", importsJmh);
+        AnnotationExpr measurement = nearest(type, method, "Measurement", importsJmh);
+        AnnotationExpr threads = nearest(type, method, "Threads", importsJmh);
+        AnnotationExpr outputTimeUnit = nearest(type, method, "OutputTimeUnit", importsJmh);
+
+        builder.addBenchmark(className, method.getNameAsString(),
+                modes(member(benchmarkMode, "value")),
+                integer(member(fork, "value")),
+                integer(member(warmup, "iterations")),
+                nanos(warmup),
+                integer(member(measurement, "iterations")),
+                nanos(measurement),
+                threads(member(threads, "value")),
+                timeUnit(member(outputTimeUnit, "value")));
+    }
+
+    /**
+     * @return    the annotation of the method, or else of its class, or null if neither has one
+     */
+    private AnnotationExpr nearest(TypeDeclaration<?> type, MethodDeclaration method, String name, boolean importsJmh) {
+        AnnotationExpr annotation = annotation(method, name, importsJmh);
+        return annotation != null ? annotation : annotation(type, name, importsJmh);
+    }
+
+    private AnnotationExpr annotation(NodeWithAnnotations<?> node, String name, boolean importsJmh) {
+        for (AnnotationExpr annotation : node.getAnnotations()) {
+            if (annotation.getName().getIdentifier().equals(name) && BenchmarkIndex.isJmhAnnotation(annotation, importsJmh)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return    the value of the annotation member, or null if the annotation or the member is absent
+     */
+    private Expression member(AnnotationExpr annotation, String name) {
+        if (annotation == null) {
+            return null;
+        } else if (annotation.isSingleMemberAnnotationExpr()) {
+            return name.equals("value") ? annotation.asSingleMemberAnnotationExpr().getMemberValue() : null;
+        } else if (annotation.isNormalAnnotationExpr()) {
+            for (MemberValuePair pair : annotation.asNormalAnnotationExpr().getPairs()) {
+                if (pair.getNameAsString().equals(name)) {
+                    return pair.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private int modes(Expression value) {
+        int modes = 0;
+        for (Expression element : elements(value)) {
+            modes |= MODES.getOrDefault(identifier(element), 0);
+        }
+        return modes;
+    }
+
+    private long nanos(AnnotationExpr iterations) {
+        int time = integer(member(iterations, "time"));
+        if (time == BenchmarkMetadata.UNSET) {
+            return BenchmarkMetadata.UNSET;
+        }
+        Expression timeUnit = member(iterations, "timeUnit");
+        TimeUnit unit = timeUnit == null ? TimeUnit.SECONDS : timeUnit(timeUnit);
+        return unit == null ? BenchmarkMetadata.UNSET : unit.toNanos(time);
+    }
+
+    private int threads(Expression value) {
+        return value != null && "MAX".equals(identifier(value)) ? BenchmarkMetadata.MAX_THREADS : integer(value);
+    }
+
+    private int integer(Expression value) {
+        if (value != null && value.isIntegerLiteralExpr()) {
+            try {
+                return value.asIntegerLiteralExpr().asInt();
+            } catch (NumberFormatException e) {
+                return BenchmarkMetadata.UNSET;
+            }
+        }
+        return BenchmarkMetadata.UNSET;
+    }
+
+    private TimeUnit timeUnit(Expression value) {
+        String name = identifier(value);
+        for (TimeUnit unit : TimeUnit.values()) {
+            if (unit.name().equals(name)) {
+                return unit;
+            }
+        }
+        return null;
+    }
+
+    private List<String> strings(Expression value) {
+        List<String> strings = new ArrayList<>();
+        for (Expression element : elements(value)) {
+            if (element.isStringLiteralExpr()) {
+                strings.add(element.asStringLiteralExpr().asString());
+            }
+        }
+        return strings;
+    }
+
+    private List<Expression> elements(Expression value) {
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        return value.isArrayInitializerExpr() ? value.asArrayInitializerExpr().getValues() : Collections.singletonList(value);
+    }
+
+    /**
+     * @return    the last name of a constant written with or without its class, e.g., Mode.Throughput, or null
+     */
+    private String identifier(Expression value) {
+        if (value == null) {
+            return null;
+        } else if (value.isFieldAccessExpr()) {
+            return value.asFieldAccessExpr().getNameAsString();
+        } else if (value.isNameExpr()) {
+            return value.asNameExpr().getNameAsString();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,84 @@
+package joelbits.modules.preprocessing.plugins.metadata;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Scans an index file written by a MetadataIndexWriter through memory mappings of up to 1 GB, so scanning the
+ * metadata of millions of files reads only the index and copies nothing but the decoded records. Records appended
+ * while a scan is running are included if they are complete when the scan reaches them.
+ */
+public final class MetadataIndexReader implements Closeable {
+    private static final int SEGMENT_SIZE = 1 << 30;
+
+    private final FileChannel channel;
+
+    public MetadataIndexReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        ByteBuffer header = ByteBuffer.allocate(MetadataIndexWriter.HEADER_LENGTH);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                channel.close();
+                throw new IOException("Not a benchmark metadata index");
+            }
+        }
+        try {
+            MetadataIndexWriter.checkHeader(header.getInt(0), header.getInt(Integer.BYTES));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Passes the records of the index to the sink in the order they were written.
+     *
+     * @return    the number of records
+     */
+    public long scan(MetadataSink sink) throws IOException {
+        long records = 0;
+        long size = channel.size();
+        long position = MetadataIndexWriter.HEADER_LENGTH;
+        long segmentStart = position;
+        MappedByteBuffer segment = null;
+        while (position + MetadataIndexWriter.RECORD_HEADER_LENGTH <= size) {
+            if (segment == null || position + MetadataIndexWriter.RECORD_HEADER_LENGTH > segmentStart + segment.capacity()) {
+                segmentStart = position;
+                segment = map(position, size);
+            }
+            int length = segment.getInt((int) (position - segmentStart));
+            long end = position + MetadataIndexWriter.RECORD_HEADER_LENGTH + length;
+            if (length < 0 || end > size) {
+                break;
+            } else if (end > segmentStart + segment.capacity()) {
+                segmentStart = position;
+                segment = map(position, size);
+            }
+
+            ByteBuffer record = segment.duplicate();
+            record.position((int) (position - segmentStart) + MetadataIndexWriter.RECORD_HEADER_LENGTH);
+            record.limit((int) (end - segmentStart));
+            byte[] name = new byte[record.getInt()];
+            record.get(name);
+            sink.accept(new String(name, StandardCharsets.UTF_8), BenchmarkMetadata.parseFrom(record));
+            records++;
+            position = end;
+        }
+        return records;
+    }
+
+    private MappedByteBuffer map(long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
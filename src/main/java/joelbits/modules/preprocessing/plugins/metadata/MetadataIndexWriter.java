@@ -0,0 +1,108 @@
+package joelbits.modules.preprocessing.plugins.metadata;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends the benchmark metadata of parsed files to an index file, which is read by a MetadataIndexReader. The file
+ * starts with a header of a magic number and the format version, followed by one record per file: the length of
+ * the record, the length and UTF-8 bytes of the source name, and the encoded BenchmarkMetadata. An existing index
+ * is appended to, e.g., by the parse of the next revisions; an incomplete record at its end (e.g., after a crash)
+ * is truncated when the index is opened.
+ */
+public final class MetadataIndexWriter implements MetadataSink, Closeable {
+    static final int MAGIC = 0x4A4D4858;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_LENGTH = 2 * Integer.BYTES;
+    static final int RECORD_HEADER_LENGTH = Integer.BYTES;
+
+    private final FileChannel channel;
+    private long size;
+
+    public MetadataIndexWriter(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).putInt(MAGIC).putInt(FORMAT_VERSION);
+            header.flip();
+            write(header, 0);
+            size = HEADER_LENGTH;
+        } else {
+            size = validRecordsEnd();
+            channel.truncate(size);
+        }
+    }
+
+    private long validRecordsEnd() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        readFully(header, 0);
+        checkHeader(header.getInt(0), header.getInt(Integer.BYTES));
+
+        long position = HEADER_LENGTH;
+        long fileSize = channel.size();
+        ByteBuffer length = ByteBuffer.allocate(RECORD_HEADER_LENGTH);
+        while (position + RECORD_HEADER_LENGTH <= fileSize) {
+            length.clear();
+            readFully(length, position);
+            int recordLength = length.getInt(0);
+            if (recordLength < 0 || position + RECORD_HEADER_LENGTH + recordLength > fileSize) {
+                break;
+            }
+            position += RECORD_HEADER_LENGTH + recordLength;
+        }
+        return position;
+    }
+
+    static void checkHeader(int magic, int version) throws IOException {
+        if (magic != MAGIC) {
+            throw new IOException("Not a benchmark metadata index");
+        } else if (version != FORMAT_VERSION) {
+            throw new IOException("Unknown benchmark metadata index format " + version);
+        }
+    }
+
+    @Override
+    public void accept(String sourceName, BenchmarkMetadata metadata) throws IOException {
+        byte[] name = sourceName.getBytes(StandardCharsets.UTF_8);
+        byte[] value = metadata.toByteArray();
+        int length = Integer.BYTES + name.length + value.length;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_LENGTH + length);
+        record.putInt(length).putInt(name.length).put(name).put(value);
+        record.flip();
+
+        synchronized (this) {
+            write(record, size);
+            size += record.limit();
+        }
+    }
+
+    /**
+     * @return    the size of the index file in bytes
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    private void write(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of benchmark metadata index");
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,15 @@
+package joelbits.modules.preprocessing.plugins.metadata;
+
+import java.io.IOException;
+
+/**
+ * Receives the benchmark metadata of each parsed file that uses JMH, e.g., a MetadataIndexWriter. Implementations
+ * are called from all parsing threads and must be thread-safe.
+ */
+public interface MetadataSink {
+    /**
+     * @param sourceName    identifies the parsed source: the path of a parsed File, as given to the parser, or the
+     *                      source name given with the content, e.g., path@revision for a file of a repository
+     */
+    void accept(String sourceName, BenchmarkMetadata metadata) throws IOException;
+}
@@ -0,0 +1,95 @@
+package joelbits.modules.preprocessing.plugins.metrics;
+
+import joelbits.model.ast.protobuf.ASTProtos.ASTRoot;
+import joelbits.model.ast.protobuf.ASTProtos.Declaration;
+import joelbits.model.ast.protobuf.ASTProtos.Expression;
+import joelbits.model.ast.protobuf.ASTProtos.Method;
+import joelbits.model.ast.protobuf.ASTProtos.Namespace;
+import joelbits.model.ast.protobuf.ASTProtos.Statement;
+import joelbits.model.ast.protobuf.ASTProtos.Variable;
+
+import java.util.List;
+
+/**
+ * The number of methods, statements and expressions of a converted AST.
+ */
+public final class AstCounts {
+    private long methods;
+    private long statements;
+    private long expressions;
+
+    public AstCounts(ASTRoot astRoot) {
+        for (Namespace namespace : astRoot.getNamespacesList()) {
+            countDeclarations(namespace.getDeclarationsList());
+        }
+    }
+
+    /**
+     * Adds the counts to the METHODS, STATEMENTS and EXPRESSIONS counters of the registry.
+     */
+    public void reportTo(MetricsRegistry registry) {
+        registry.increment(Counter.METHODS, methods);
+        registry.increment(Counter.STATEMENTS, statements);
+        registry.increment(Counter.EXPRESSIONS, expressions);
+    }
+
+    public long getMethods() {
+        return methods;
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getExpressions() {
+        return expressions;
+    }
+
+    private void countDeclarations(List<Declaration> declarations) {
+        for (Declaration declaration : declarations) {
+            for (Method method : declaration.getMethodsList()) {
+                methods++;
+                countStatements(method.getStatementsList());
+                countExpressions(method.getBodyContentList());
+            }
+            for (Variable field : declaration.getFieldsList()) {
+                countInitializer(field);
+            }
+            countDeclarations(declaration.getNestedDeclarationsList());
+        }
+    }
+
+    private void countStatements(List<Statement> statementList) {
+        for (Statement statement : statementList) {
+            statements++;
+            if (statement.hasCondition()) {
+                countExpression(statement.getCondition());
+            }
+            countExpressions(statement.getExpressionsList());
+            countExpressions(statement.getInitializationsList());
+            countExpressions(statement.getUpdatesList());
+            countStatements(statement.getStatementsList());
+        }
+    }
+
+    private void countExpressions(List<Expression> expressionList) {
+        for (Expression expression : expressionList) {
+            countExpression(expression);
+        }
+    }
+
+    private void countExpression(Expression expression) {
+        expressions++;
+        countExpressions(expression.getExpressionsList());
+        countExpressions(expression.getMethodArgumentsList());
+        for (Variable variable : expression.getVariableDeclarationsList()) {
+            countInitializer(variable);
+        }
+    }
+
+    private void countInitializer(Variable variable) {
+        if (variable.hasInitializer()) {
+            countExpression(variable.getInitializer());
+        }
+    }
+}
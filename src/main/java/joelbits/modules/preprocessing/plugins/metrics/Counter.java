@@ -0,0 +1,28 @@
+package joelbits.modules.preprocessing.plugins.metrics;
+
+/**
+ * The counted events of parsing files.
+ */
+public enum Counter {
+    /**
+     * Sources loaded into the parser, whether or not they could be parsed. Files ruled out as benchmarks by a
+     * scan of their header are not loaded.
+     */
+    FILES,
+    /**
+     * The encoded size of the loaded sources.
+     */
+    BYTES,
+    METHODS,
+    STATEMENTS,
+    EXPRESSIONS,
+    /**
+     * Files found to contain benchmarks, or not, when checked by hasBenchmarks() or parseIfBenchmark().
+     */
+    BENCHMARK_FILES,
+    OTHER_FILES,
+    /**
+     * Sources that could not be read or parsed.
+     */
+    FAILURES
+}
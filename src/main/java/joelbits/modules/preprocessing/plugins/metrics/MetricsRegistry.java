@@ -0,0 +1,10 @@
+package joelbits.modules.preprocessing.plugins.metrics;
+
+/**
+ * Receives the timings and counts of a parser, e.g., to forward them to a monitoring system. Implementations are
+ * called from all parsing threads and must be thread-safe.
+ */
+public interface MetricsRegistry {
+    void recordTime(Phase phase, long nanos);
+    void increment(Counter counter, long amount);
+}
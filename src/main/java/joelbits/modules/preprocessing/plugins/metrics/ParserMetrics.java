@@ -0,0 +1,127 @@
+package joelbits.modules.preprocessing.plugins.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Keeps the counters and per-phase latency histograms of one or more parsers in memory, and publishes them as an
+ * MBean on request.
+ */
+public final class ParserMetrics implements MetricsRegistry, ParserMetricsMXBean {
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private final Map<Phase, Histogram> timings = new EnumMap<>(Phase.class);
+    private final Map<Counter, LongAdder> counters = new EnumMap<>(Counter.class);
+
+    public ParserMetrics() {
+        for (Phase phase : Phase.values()) {
+            timings.put(phase, new Histogram());
+        }
+        for (Counter counter : Counter.values()) {
+            counters.put(counter, new LongAdder());
+        }
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server.
+     *
+     * @param name    distinguishes the metrics of several parsers
+     * @return        the name of the registered MBean
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName(getClass().getPackage().getName() + ":type=ParserMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    @Override
+    public void recordTime(Phase phase, long nanos) {
+        timings.get(phase).record(nanos);
+    }
+
+    @Override
+    public void increment(Counter counter, long amount) {
+        counters.get(counter).add(amount);
+    }
+
+    public Histogram getHistogram(Phase phase) {
+        return timings.get(phase);
+    }
+
+    public long getCount(Counter counter) {
+        return counters.get(counter).sum();
+    }
+
+    @Override
+    public long getFiles() {
+        return getCount(Counter.FILES);
+    }
+
+    @Override
+    public long getBytes() {
+        return getCount(Counter.BYTES);
+    }
+
+    @Override
+    public long getMethods() {
+        return getCount(Counter.METHODS);
+    }
+
+    @Override
+    public long getStatements() {
+        return getCount(Counter.STATEMENTS);
+    }
+
+    @Override
+    public long getExpressions() {
+        return getCount(Counter.EXPRESSIONS);
+    }
+
+    @Override
+    public long getBenchmarkFiles() {
+        return getCount(Counter.BENCHMARK_FILES);
+    }
+
+    @Override
+    public long getOtherFiles() {
+        return getCount(Counter.OTHER_FILES);
+    }
+
+    @Override
+    public long getFailures() {
+        return getCount(Counter.FAILURES);
+    }
+
+    @Override
+    public Map<String, Double> getMeanMillis() {
+        return perPhase(Histogram::getMean);
+    }
+
+    @Override
+    public Map<String, Double> getP50Millis() {
+        return perPhase(histogram -> histogram.getPercentile(50));
+    }
+
+    @Override
+    public Map<String, Double> getP99Millis() {
+        return perPhase(histogram -> histogram.getPercentile(99));
+    }
+
+    @Override
+    public Map<String, Double> getMaxMillis() {
+        return perPhase(Histogram::getMax);
+    }
+
+    private Map<String, Double> perPhase(ToDoubleFunction<Histogram> nanos) {
+        Map<String, Double> millis = new LinkedHashMap<>();
+        for (Map.Entry<Phase, Histogram> timing : timings.entrySet()) {
+            millis.put(timing.getKey().name(), nanos.applyAsDouble(timing.getValue()) / NANOS_PER_MILLI);
+        }
+        return millis;
+    }
+}
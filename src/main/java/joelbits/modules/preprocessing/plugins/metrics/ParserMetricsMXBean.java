@@ -0,0 +1,21 @@
+package joelbits.modules.preprocessing.plugins.metrics;
+
+import java.util.Map;
+
+/**
+ * The JMX view of ParserMetrics. Timings are reported in milliseconds per phase.
+ */
+public interface ParserMetricsMXBean {
+    long getFiles();
+    long getBytes();
+    long getMethods();
+    long getStatements();
+    long getExpressions();
+    long getBenchmarkFiles();
+    long getOtherFiles();
+    long getFailures();
+    Map<String, Double> getMeanMillis();
+    Map<String, Double> getP50Millis();
+    Map<String, Double> getP99Millis();
+    Map<String, Double> getMaxMillis();
+}
@@ -0,0 +1,30 @@
+package joelbits.modules.preprocessing.plugins.metrics;
+
+/**
+ * The timed phases of parsing a file.
+ */
+public enum Phase {
+    /**
+     * Reading and decoding the source.
+     */
+    LOAD,
+    /**
+     * Lexing and parsing the source into a JavaParser AST.
+     */
+    PARSE,
+    IMPORT_VISITOR,
+    /**
+     * Converting classes with their fields, methods and method bodies.
+     */
+    DECLARATION_VISITOR,
+    NAMESPACE_VISITOR,
+    /**
+     * Extracting the benchmark metadata and passing it to the metadata sink.
+     */
+    METADATA,
+    /**
+     * Building the protobuf root message.
+     */
+    PROTOBUF,
+    SERIALIZATION
+}
@@ -0,0 +1,37 @@
+package joelbits.modules.preprocessing.plugins.pipeline;
+
+/**
+ * Counts the source bytes of the files in a pipeline and blocks new files while the budget is used up.
+ */
+final class ByteBudget {
+    private final long limit;
+    private long inFlight;
+
+    ByteBudget(long limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Waits until the bytes fit into the budget, or until the budget is unused so that a file larger than the
+     * whole budget can still be parsed on its own.
+     */
+    synchronized void acquire(long bytes) throws InterruptedException {
+        while (inFlight > 0 && inFlight + bytes > limit) {
+            wait();
+        }
+        inFlight += bytes;
+    }
+
+    synchronized void release(long bytes) {
+        inFlight -= bytes;
+        notifyAll();
+    }
+
+    synchronized long getInFlight() {
+        return inFlight;
+    }
+
+    long getLimit() {
+        return limit;
+    }
+}
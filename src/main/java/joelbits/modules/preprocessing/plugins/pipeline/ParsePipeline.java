@@ -0,0 +1,289 @@
+package joelbits.modules.preprocessing.plugins.pipeline;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.utils.Log;
+import joelbits.model.ast.protobuf.ASTProtos.ASTRoot;
+import joelbits.modules.preprocessing.plugins.JavaParser;
+import joelbits.modules.preprocessing.plugins.spi.FileParseResult;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.Closeable;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Parses files in the stages of JavaParser.parse(File), i.e., reading, parsing, converting and serializing, each
+ * on its own threads, so that the disk and the processors are busy at the same time. The stages are connected by
+ * bounded queues, and a budget of source bytes in flight keeps many large files from being held in memory at
+ * once. The depth of the queues and the utilization of the stages show which stage needs more threads.
+ */
+public final class ParsePipeline implements ParsePipelineMXBean, Closeable {
+    private final JavaParser parser;
+    private final ByteBudget budget;
+    private final Map<PipelineStage, Stage> stages = new EnumMap<>(PipelineStage.class);
+    private final LongAdder files = new LongAdder();
+    private final long started = System.nanoTime();
+
+    /**
+     * Starts the threads of the stages, which run until the pipeline is closed.
+     */
+    public ParsePipeline(JavaParser parser, PipelineOptions options) {
+        this.parser = parser;
+        this.budget = new ByteBudget(options.getMaxBytesInFlight());
+        for (PipelineStage stage : PipelineStage.values()) {
+            stages.put(stage, new Stage(stage, options.getThreads(stage), options.getQueueCapacity()));
+        }
+        for (Stage stage : stages.values()) {
+            stage.start();
+        }
+    }
+
+    /**
+     * Registers the pipeline with the platform MBean server.
+     *
+     * @param name    distinguishes several pipelines
+     * @return        the name of the registered MBean
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName(getClass().getPackage().getName() + ":type=ParsePipeline,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /**
+     * Parses the files and returns when all of them are parsed. Files are admitted to the pipeline as the byte
+     * budget allows, so the caller waits for room rather than queuing all files at once.
+     *
+     * @param results    receives the result of each file as soon as it is serialized or has failed, on the thread
+     *                   of the stage it finished in, so it must be thread-safe
+     */
+    public void parse(Iterable<File> files, Consumer<FileParseResult> results) throws InterruptedException {
+        parse(files, (result, index) -> results.accept(result));
+    }
+
+    /**
+     * @return    the results in the order of the files
+     */
+    public List<FileParseResult> parse(List<File> files) throws InterruptedException {
+        FileParseResult[] results = new FileParseResult[files.size()];
+        parse(files, (result, index) -> results[index] = result);
+        return Arrays.asList(results);
+    }
+
+    /**
+     * @param results    receives each result with the index of its file
+     */
+    private void parse(Iterable<File> files, ObjIntConsumer<FileParseResult> results) throws InterruptedException {
+        Batch batch = new Batch(results);
+        int index = 0;
+        for (File file : files) {
+            long bytes = file.length();
+            budget.acquire(bytes);
+            batch.submitted();
+            stages.get(PipelineStage.READ).queue.put(new Job(file, index++, bytes, batch));
+        }
+        batch.await();
+    }
+
+    /**
+     * Passes the file through the stage.
+     *
+     * @return    the result of the file once it has passed the last stage, otherwise null
+     */
+    private FileParseResult process(PipelineStage stage, Job job) throws Exception {
+        String sourceName = job.file.getPath();
+        switch (stage) {
+            case READ:
+                job.content = ByteBuffer.wrap(Files.readAllBytes(job.file.toPath()));
+                return null;
+            case PARSE:
+                job.compilationUnit = parser.parseSource(job.content, sourceName);
+                job.content = null;
+                return null;
+            case CONVERT:
+                job.astRoot = parser.convert(job.compilationUnit, sourceName);
+                job.compilationUnit = null;
+                return null;
+            default:
+                byte[] ast = parser.serialize(job.astRoot);
+                job.astRoot = null;
+                return FileParseResult.success(job.file, ast);
+        }
+    }
+
+    private void complete(Job job, FileParseResult result) {
+        budget.release(job.bytes);
+        files.increment();
+        try {
+            job.batch.results.accept(result, job.index);
+        } catch (RuntimeException e) {
+            Log.error(e, "Parse pipeline could not deliver the result of " + job.file);
+        } finally {
+            job.batch.completed();
+        }
+    }
+
+    @Override
+    public Map<String, Integer> getQueueDepths() {
+        Map<String, Integer> depths = new LinkedHashMap<>();
+        for (Stage stage : stages.values()) {
+            depths.put(stage.stage.name(), stage.queue.size());
+        }
+        return depths;
+    }
+
+    /**
+     * @return    per stage, the share of the time since the pipeline was started that its threads were busy, where
+     *            1.0 means all threads of the stage were busy all the time
+     */
+    @Override
+    public Map<String, Double> getUtilization() {
+        long elapsed = Math.max(1, System.nanoTime() - started);
+        Map<String, Double> utilization = new LinkedHashMap<>();
+        for (Stage stage : stages.values()) {
+            utilization.put(stage.stage.name(), stage.busyNanos.sum() / ((double) elapsed * stage.threads.size()));
+        }
+        return utilization;
+    }
+
+    @Override
+    public long getBytesInFlight() {
+        return budget.getInFlight();
+    }
+
+    @Override
+    public long getMaxBytesInFlight() {
+        return budget.getLimit();
+    }
+
+    /**
+     * @return    the number of files parsed or failed so far
+     */
+    @Override
+    public long getFiles() {
+        return files.sum();
+    }
+
+    /**
+     * Stops the threads of the stages. Files still in the pipeline are not completed, so the pipeline should only
+     * be closed once all calls to parse() have returned.
+     */
+    @Override
+    public void close() {
+        for (Stage stage : stages.values()) {
+            for (Thread thread : stage.threads) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * The queue of files waiting for a stage and the threads processing them.
+     */
+    private final class Stage {
+        private final PipelineStage stage;
+        private final BlockingQueue<Job> queue;
+        private final List<Thread> threads = new ArrayList<>();
+        private final LongAdder busyNanos = new LongAdder();
+
+        Stage(PipelineStage stage, int threads, int queueCapacity) {
+            this.stage = stage;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            for (int i = 1; i <= threads; i++) {
+                Thread thread = new Thread(this::run, "parse-pipeline-" + stage.name().toLowerCase(Locale.ROOT) + "-" + i);
+                thread.setDaemon(true);
+                this.threads.add(thread);
+            }
+        }
+
+        void start() {
+            for (Thread thread : threads) {
+                thread.start();
+            }
+        }
+
+        private void run() {
+            PipelineStage[] order = PipelineStage.values();
+            Stage next = stage.ordinal() + 1 < order.length ? stages.get(order[stage.ordinal() + 1]) : null;
+            try {
+                while (true) {
+                    Job job = queue.take();
+                    long start = System.nanoTime();
+                    FileParseResult result;
+                    try {
+                        result = process(stage, job);
+                    } catch (Throwable e) {
+                        // also errors such as a StackOverflowError on deeply nested sources, which must neither kill
+                        // the thread nor leave the job and its bytes in the budget uncompleted
+                        result = FileParseResult.failure(job.file, e instanceof Exception ? (Exception) e : new ExecutionException(e));
+                    }
+                    busyNanos.add(System.nanoTime() - start);
+                    if (result != null) {
+                        complete(job, result);
+                    } else {
+                        next.queue.put(job);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // the pipeline is closed
+            }
+        }
+    }
+
+    /**
+     * A file and what has been made of it so far.
+     */
+    private static final class Job {
+        private final File file;
+        private final int index;
+        private final long bytes;
+        private final Batch batch;
+        private ByteBuffer content;
+        private CompilationUnit compilationUnit;
+        private ASTRoot astRoot;
+
+        Job(File file, int index, long bytes, Batch batch) {
+            this.file = file;
+            this.index = index;
+            this.bytes = bytes;
+            this.batch = batch;
+        }
+    }
+
+    /**
+     * The files of one call to parse(), which returns once all of them are completed.
+     */
+    private static final class Batch {
+        private final ObjIntConsumer<FileParseResult> results;
+        private int pending;
+
+        Batch(ObjIntConsumer<FileParseResult> results) {
+            this.results = results;
+        }
+
+        synchronized void submitted() {
+            pending++;
+        }
+
+        synchronized void completed() {
+            pending--;
+            notifyAll();
+        }
+
+        synchronized void await() throws InterruptedException {
+            while (pending > 0) {
+                wait();
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package joelbits.modules.preprocessing.plugins.pipeline;
+
+import java.util.Map;
+
+/**
+ * The JMX view of a ParsePipeline. Queue depths and utilization are reported per stage.
+ */
+public interface ParsePipelineMXBean {
+    Map<String, Integer> getQueueDepths();
+    Map<String, Double> getUtilization();
+    long getBytesInFlight();
+    long getMaxBytesInFlight();
+    long getFiles();
+}
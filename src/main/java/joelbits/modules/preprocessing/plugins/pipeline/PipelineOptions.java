@@ -0,0 +1,87 @@
+package joelbits.modules.preprocessing.plugins.pipeline;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Settings of a ParsePipeline. Instances are immutable, each with-method returns a modified copy.
+ */
+public final class PipelineOptions {
+    private final Map<PipelineStage, Integer> threads = new EnumMap<>(PipelineStage.class);
+    private int queueCapacity = 64;
+    private long maxBytesInFlight = Runtime.getRuntime().maxMemory() / 16;
+
+    private PipelineOptions() {}
+
+    private PipelineOptions copy() {
+        PipelineOptions copy = new PipelineOptions();
+        copy.threads.putAll(threads);
+        copy.queueCapacity = queueCapacity;
+        copy.maxBytesInFlight = maxBytesInFlight;
+        return copy;
+    }
+
+    /**
+     * @return    the settings with two reading threads, one parsing and one converting thread per processor, one
+     *            serializing thread per four processors, 64 files queued before each stage and a sixteenth of the
+     *            maximum heap as the budget of source bytes in flight
+     */
+    public static PipelineOptions defaults() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        PipelineOptions options = new PipelineOptions();
+        options.threads.put(PipelineStage.READ, 2);
+        options.threads.put(PipelineStage.PARSE, processors);
+        options.threads.put(PipelineStage.CONVERT, processors);
+        options.threads.put(PipelineStage.SERIALIZE, Math.max(1, processors / 4));
+        return options;
+    }
+
+    /**
+     * Runs the stage on the given number of threads.
+     */
+    public PipelineOptions withThreads(PipelineStage stage, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("A stage needs at least one thread, not " + threads);
+        }
+        PipelineOptions copy = copy();
+        copy.threads.put(stage, threads);
+        return copy;
+    }
+
+    /**
+     * Limits the number of files waiting for each stage. A stage that cannot hand over a file to a full queue
+     * waits, and thereby slows down the stages before it.
+     */
+    public PipelineOptions withQueueCapacity(int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("A queue needs room for at least one file, not " + queueCapacity);
+        }
+        PipelineOptions copy = copy();
+        copy.queueCapacity = queueCapacity;
+        return copy;
+    }
+
+    /**
+     * Limits the total size in bytes of the sources of the files between being read and being serialized. A file
+     * is not read until enough of the budget is free, except that a file larger than the whole budget may enter
+     * an empty pipeline. The ASTs of a file take several times the size of its source, so the budget should be a
+     * fraction of the heap.
+     */
+    public PipelineOptions withMaxBytesInFlight(long maxBytesInFlight) {
+        PipelineOptions copy = copy();
+        copy.maxBytesInFlight = maxBytesInFlight;
+        return copy;
+    }
+
+    public int getThreads(PipelineStage stage) {
+        return threads.get(stage);
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getMaxBytesInFlight() {
+        return maxBytesInFlight;
+    }
+}
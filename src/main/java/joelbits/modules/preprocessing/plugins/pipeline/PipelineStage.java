@@ -0,0 +1,20 @@
+package joelbits.modules.preprocessing.plugins.pipeline;
+
+/**
+ * The stages of a ParsePipeline, in the order a file passes through them.
+ */
+public enum PipelineStage {
+    /**
+     * Reading the bytes of a file, which mostly waits for the disk.
+     */
+    READ,
+    /**
+     * Decoding and parsing the source into a JavaParser AST.
+     */
+    PARSE,
+    /**
+     * Converting the JavaParser AST into the protobuf AST.
+     */
+    CONVERT,
+    SERIALIZE
+}
@@ -0,0 +1,47 @@
+package joelbits.modules.preprocessing.plugins.project;
+
+import joelbits.modules.preprocessing.plugins.spi.FileParseResult;
+
+import java.util.List;
+
+/**
+ * The combined AST of all files of a project that could be parsed, together with the files that failed.
+ */
+public final class ParsedProject {
+    private final byte[] ast;
+    private final List<FileParseResult> failures;
+    private final int files;
+    private final int resolvedTypes;
+
+    public ParsedProject(byte[] ast, List<FileParseResult> failures, int files, int resolvedTypes) {
+        this.ast = ast;
+        this.failures = failures;
+        this.files = files;
+        this.resolvedTypes = resolvedTypes;
+    }
+
+    public byte[] getAst() {
+        return ast;
+    }
+
+    /**
+     * @return    the failed result of each file that could not be parsed
+     */
+    public List<FileParseResult> getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return    the number of files found in the project, including those that failed
+     */
+    public int getFiles() {
+        return files;
+    }
+
+    /**
+     * @return    the number of types that were resolved to a class declared in the project
+     */
+    public int getResolvedTypes() {
+        return resolvedTypes;
+    }
+}
@@ -0,0 +1,220 @@
+package joelbits.modules.preprocessing.plugins.project;
+
+import joelbits.model.ast.protobuf.ASTProtos.ASTRoot;
+import joelbits.model.ast.protobuf.ASTProtos.Declaration;
+import joelbits.model.ast.protobuf.ASTProtos.DeclarationType;
+import joelbits.model.ast.protobuf.ASTProtos.Method;
+import joelbits.model.ast.protobuf.ASTProtos.Namespace;
+import joelbits.model.ast.protobuf.ASTProtos.Type;
+import joelbits.model.ast.protobuf.ASTProtos.Variable;
+
+import java.util.*;
+
+/**
+ * Links the ASTs of the files of a project into one AST. The classes declared in the project are indexed by their
+ * fully-qualified names, and the types of fields, method arguments and return types that name one of them are
+ * replaced by a type with the fully-qualified name and the declaration type of the class, e.g., a benchmark
+ * argument of a state class declared in another file. Types are resolved the way the compiler would from the
+ * enclosing classes, the imports and the package of a file, but only against the classes of the project; all
+ * other types, and the types within method bodies, keep the names written in the source.
+ */
+public final class ProjectLinker {
+    private static final Set<String> PRIMITIVE_TYPES = new HashSet<>(Arrays.asList(
+            "boolean", "byte", "char", "short", "int", "long", "float", "double", "void"));
+
+    private final Map<String, DeclarationType> declaredTypes = new HashMap<>();
+    private int resolvedTypes;
+
+    /**
+     * @param files    the ASTs of the files of the project, in the order they are combined in
+     * @return         one AST with the imports of all files and one namespace per package
+     */
+    public ASTRoot link(List<ASTRoot> files) {
+        for (ASTRoot file : files) {
+            for (Namespace namespace : file.getNamespacesList()) {
+                indexDeclarations(namespace.getName(), namespace.getDeclarationsList());
+            }
+        }
+
+        Set<String> imports = new LinkedHashSet<>();
+        Map<String, Namespace.Builder> namespaces = new LinkedHashMap<>();
+        for (ASTRoot file : files) {
+            imports.addAll(file.getImportsList());
+            for (Namespace namespace : file.getNamespacesList()) {
+                Scope scope = new Scope(namespace.getName(), file.getImportsList());
+                Namespace.Builder combined = namespaces.computeIfAbsent(namespace.getName(),
+                        name -> Namespace.newBuilder().setName(name));
+                for (Declaration declaration : namespace.getDeclarationsList()) {
+                    combined.addDeclarations(link(declaration, scope.enter(declaration)));
+                }
+            }
+        }
+
+        ASTRoot.Builder project = ASTRoot.newBuilder().addAllImports(imports);
+        for (Namespace.Builder namespace : namespaces.values()) {
+            project.addNamespaces(namespace);
+        }
+        return project.build();
+    }
+
+    /**
+     * @return    the number of types replaced by a class of the project so far
+     */
+    public int getResolvedTypes() {
+        return resolvedTypes;
+    }
+
+    private void indexDeclarations(String qualifier, List<Declaration> declarations) {
+        for (Declaration declaration : declarations) {
+            if (declaration.getType() == DeclarationType.ANONYMOUS) {
+                continue;
+            }
+            String name = qualifier.isEmpty() ? declaration.getName() : qualifier + "." + declaration.getName();
+            declaredTypes.putIfAbsent(name, declaration.getType());
+            indexDeclarations(name, declaration.getNestedDeclarationsList());
+        }
+    }
+
+    private Declaration link(Declaration declaration, Scope scope) {
+        Declaration.Builder linked = null;
+        for (int i = 0; i < declaration.getFieldsCount(); i++) {
+            Variable field = declaration.getFields(i);
+            Variable linkedField = link(field, scope);
+            if (linkedField != field) {
+                linked = linked == null ? declaration.toBuilder() : linked;
+                linked.setFields(i, linkedField);
+            }
+        }
+        for (int i = 0; i < declaration.getMethodsCount(); i++) {
+            Method method = declaration.getMethods(i);
+            Method linkedMethod = link(method, scope);
+            if (linkedMethod != method) {
+                linked = linked == null ? declaration.toBuilder() : linked;
+                linked.setMethods(i, linkedMethod);
+            }
+        }
+        for (int i = 0; i < declaration.getNestedDeclarationsCount(); i++) {
+            Declaration nested = declaration.getNestedDeclarations(i);
+            Declaration linkedNested = link(nested, scope.enter(nested));
+            if (linkedNested != nested) {
+                linked = linked == null ? declaration.toBuilder() : linked;
+                linked.setNestedDeclarations(i, linkedNested);
+            }
+        }
+        return linked == null ? declaration : linked.build();
+    }
+
+    private Method link(Method method, Scope scope) {
+        Method.Builder linked = null;
+        Type returnType = resolve(method.getReturnType(), scope);
+        if (returnType != method.getReturnType()) {
+            linked = method.toBuilder().setReturnType(returnType);
+        }
+        for (int i = 0; i < method.getArgumentsCount(); i++) {
+            Variable argument = method.getArguments(i);
+            Variable linkedArgument = link(argument, scope);
+            if (linkedArgument != argument) {
+                linked = linked == null ? method.toBuilder() : linked;
+                linked.setArguments(i, linkedArgument);
+            }
+        }
+        return linked == null ? method : linked.build();
+    }
+
+    private Variable link(Variable variable, Scope scope) {
+        Type type = resolve(variable.getType(), scope);
+        return type == variable.getType() ? variable : variable.toBuilder().setType(type).build();
+    }
+
+    /**
+     * @return    the type naming the class of the project the type refers to, or the type itself if it does not
+     *            refer to one
+     */
+    private Type resolve(Type type, Scope scope) {
+        String name = type.getName();
+        int end = name.length();
+        for (int i = 0; i < name.length(); i++) {
+            char current = name.charAt(i);
+            if (current == '<' || current == '[') {
+                end = i;
+                break;
+            }
+        }
+        String rawName = name.substring(0, end);
+        if (rawName.isEmpty() || PRIMITIVE_TYPES.contains(rawName)) {
+            return type;
+        }
+
+        String qualifiedName = scope.resolve(rawName, declaredTypes);
+        if (qualifiedName == null) {
+            return type;
+        }
+        resolvedTypes++;
+        return Type.newBuilder()
+                .setName(qualifiedName + name.substring(end))
+                .setType(declaredTypes.get(qualifiedName))
+                .build();
+    }
+
+    /**
+     * The names visible at a declaration: the classes it is nested in, the imports and the package of its file.
+     */
+    private static final class Scope {
+        private final String packageName;
+        private final List<String> imports;
+        private final Scope enclosing;
+        private final String declarationName;
+
+        Scope(String packageName, List<String> imports) {
+            this(packageName, imports, null, null);
+        }
+
+        private Scope(String packageName, List<String> imports, Scope enclosing, String declarationName) {
+            this.packageName = packageName;
+            this.imports = imports;
+            this.enclosing = enclosing;
+            this.declarationName = declarationName;
+        }
+
+        Scope enter(Declaration declaration) {
+            if (declaration.getType() == DeclarationType.ANONYMOUS) {
+                return this;
+            }
+            String qualifier = declarationName != null ? declarationName : packageName;
+            String name = qualifier.isEmpty() ? declaration.getName() : qualifier + "." + declaration.getName();
+            return new Scope(packageName, imports, this, name);
+        }
+
+        /**
+         * Imports are only known by name, so an import is tried both as the import of a single class and as the
+         * import of all classes of a package or class.
+         */
+        String resolve(String name, Map<String, DeclarationType> declaredTypes) {
+            int dot = name.indexOf('.');
+            String firstName = dot < 0 ? name : name.substring(0, dot);
+            String rest = dot < 0 ? "" : name.substring(dot);
+
+            for (Scope scope = this; scope != null && scope.declarationName != null; scope = scope.enclosing) {
+                String candidate = scope.declarationName + "." + name;
+                if (declaredTypes.containsKey(candidate)) {
+                    return candidate;
+                }
+            }
+            for (String imported : imports) {
+                if (imported.endsWith("." + firstName) && declaredTypes.containsKey(imported + rest)) {
+                    return imported + rest;
+                }
+            }
+            String samePackage = packageName.isEmpty() ? name : packageName + "." + name;
+            if (declaredTypes.containsKey(samePackage)) {
+                return samePackage;
+            }
+            for (String imported : imports) {
+                if (declaredTypes.containsKey(imported + "." + name)) {
+                    return imported + "." + name;
+                }
+            }
+            return declaredTypes.containsKey(name) ? name : null;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package joelbits.modules.preprocessing.plugins.spi;
+
+import java.io.File;
+
+/**
+ * The outcome of parsing a single file as part of a batch. Either the parsed AST or the failure that occurred
+ * while parsing the file is present.
+ */
+public final class FileParseResult {
+    private final File file;
+    private final byte[] ast;
+    private final Exception failure;
+
+    private FileParseResult(File file, byte[] ast, Exception failure) {
+        this.file = file;
+        this.ast = ast;
+        this.failure = failure;
+    }
+
+    public static FileParseResult success(File file, byte[] ast) {
+        return new FileParseResult(file, ast, null);
+    }
+
+    public static FileParseResult failure(File file, Exception failure) {
+        return new FileParseResult(file, null, failure);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return    the binary AST of the file, or null if parsing failed
+     */
+    public byte[] getAst() {
+        return ast;
+    }
+
+    /**
+     * @return    the exception thrown while parsing the file, or null if parsing succeeded
+     */
+    public Exception getFailure() {
+        return failure;
+    }
+
+    public boolean isSuccessful() {
+        return failure == null;
+    }
+}
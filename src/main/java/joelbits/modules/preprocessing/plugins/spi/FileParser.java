@@ -1,8 +1,137 @@
 package joelbits.modules.preprocessing.plugins.spi;
 
+import com.google.protobuf.CodedOutputStream;
+
 import java.io.File;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface FileParser {
     byte[] parse(File file) throws Exception;
     boolean hasBenchmarks(File file) throws Exception;
+
+    /**
+     * Parses the file only if it contains benchmarks. Implementations should override this to avoid loading
+     * the file twice.
+     *
+     * @param file    current revision of the file to parse
+     * @return        the binary AST of the file, or nothing if the file contains no benchmarks
+     */
+    default Optional<byte[]> parseIfBenchmark(File file) throws Exception {
+        return hasBenchmarks(file) ? Optional.of(parse(file)) : Optional.empty();
+    }
+
+    /**
+     * Parses the content of a file that is already in memory, e.g., a blob read from a git repository, without
+     * requiring a checkout. Implementations should override this, the default writes the content to a temporary
+     * file.
+     *
+     * @param content     the content of the file
+     * @param path        the path of the file within its repository
+     * @param revision    identifies the revision the content belongs to
+     */
+    default byte[] parse(byte[] content, String path, String revision) throws Exception {
+        return TemporaryFiles.apply(content, path, this::parse);
+    }
+
+    /**
+     * Parses the content of a file that is already in memory only if it contains benchmarks.
+     *
+     * @see #parse(byte[], String, String)
+     * @return    the binary AST of the file, or nothing if the file contains no benchmarks
+     */
+    default Optional<byte[]> parseIfBenchmark(byte[] content, String path, String revision) throws Exception {
+        return TemporaryFiles.apply(content, path, this::parseIfBenchmark);
+    }
+
+    /**
+     * Parses the file and writes its binary AST to the output stream. The stream is flushed but not closed.
+     * Implementations should override this to serialize straight into the stream.
+     *
+     * @param file      current revision of the file to parse
+     * @param output    the stream receiving the AST
+     */
+    default void parse(File file, OutputStream output) throws Exception {
+        output.write(parse(file));
+        output.flush();
+    }
+
+    /**
+     * Parses the file and writes its binary AST to the channel. The channel is not closed.
+     *
+     * @see #parse(File, OutputStream)
+     */
+    default void parse(File file, WritableByteChannel channel) throws Exception {
+        parse(file, Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Parses the file and appends its binary AST to the output stream as a length-delimited record, i.e., the size
+     * of the AST as a varint followed by the AST. Many files can be appended to the same stream, and each record
+     * can be read back with ASTRoot.parseDelimitedFrom().
+     *
+     * @param file      current revision of the file to parse
+     * @param output    the stream receiving the AST record
+     */
+    default void parseDelimited(File file, OutputStream output) throws Exception {
+        byte[] ast = parse(file);
+        CodedOutputStream codedOutput = CodedOutputStream.newInstance(output);
+        codedOutput.writeUInt32NoTag(ast.length);
+        codedOutput.writeRawBytes(ast);
+        codedOutput.flush();
+    }
+
+    /**
+     * Parses a batch of files in parallel on the common fork-join pool.
+     *
+     * @see #parse(List, Executor)
+     */
+    default List<FileParseResult> parse(List<File> files) {
+        return parse(files, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parses a batch of files in parallel on the supplied executor, e.g., a dedicated ForkJoinPool or a
+     * virtual-thread executor. The results are returned in the same order as the files. A file that fails
+     * to parse yields a failed result instead of failing the whole batch.
+     *
+     * @param files       the files to parse
+     * @param executor    the executor running the parse tasks
+     * @return            one result per file, in the order of the files
+     */
+    default List<FileParseResult> parse(List<File> files, Executor executor) {
+        List<CompletableFuture<FileParseResult>> tasks = new ArrayList<>(files.size());
+        for (File file : files) {
+            tasks.add(ParseTasks.submit(this, file, executor));
+        }
+
+        List<FileParseResult> results = new ArrayList<>(files.size());
+        for (CompletableFuture<FileParseResult> task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    /**
+     * Parses a stream of files in parallel on the supplied executor and hands each result to the callback as soon
+     * as it is available. The callback may be invoked concurrently from the executor's threads, in any order.
+     * Files are taken from the stream as earlier ones complete, with at most four per processor in flight.
+     * Returns when all files have been parsed.
+     *
+     * @param files       the files to parse
+     * @param executor    the executor running the parse tasks
+     * @param callback    receives the result of each file
+     */
+    default void parse(Stream<File> files, Executor executor, Consumer<FileParseResult> callback) {
+        ParseTasks.submitAll(this, files, executor, callback);
+    }
 }
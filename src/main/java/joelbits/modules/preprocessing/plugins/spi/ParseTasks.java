@@ -0,0 +1,63 @@
+package joelbits.modules.preprocessing.plugins.spi;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Wraps the parsing of a single file into an asynchronous task that never completes exceptionally, and runs the
+ * tasks of a stream of files with a bounded number of them in flight.
+ */
+final class ParseTasks {
+    static final int MAX_IN_FLIGHT_PER_PROCESSOR = 4;
+
+    private ParseTasks() {}
+
+    static CompletableFuture<FileParseResult> submit(FileParser parser, File file, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return FileParseResult.success(file, parser.parse(file));
+            } catch (Throwable e) {
+                // also errors such as a StackOverflowError on a deeply nested file, which must not fail the batch
+                return FileParseResult.failure(file, e instanceof Exception ? (Exception) e : new ExecutionException(e));
+            }
+        }, executor);
+    }
+
+    /**
+     * Submits the files one by one as earlier tasks complete, so a long stream is neither collected up front nor
+     * queued on the executor all at once. Returns when the results of all files have been handed to the callback.
+     *
+     * @throws CompletionException    if the callback threw, after the tasks already submitted have completed
+     */
+    static void submitAll(FileParser parser, Stream<File> files, Executor executor, Consumer<FileParseResult> callback) {
+        int maxInFlight = MAX_IN_FLIGHT_PER_PROCESSOR * Runtime.getRuntime().availableProcessors();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicReference<Throwable> callbackFailure = new AtomicReference<>();
+
+        Iterator<File> iterator = files.iterator();
+        while (iterator.hasNext() && callbackFailure.get() == null) {
+            File file = iterator.next();
+            inFlight.acquireUninterruptibly();
+            submit(parser, file, executor).thenAccept(callback).whenComplete((result, e) -> {
+                if (e != null) {
+                    callbackFailure.compareAndSet(null, e);
+                }
+                inFlight.release();
+            });
+        }
+
+        inFlight.acquireUninterruptibly(maxInFlight);
+        Throwable failure = callbackFailure.get();
+        if (failure != null) {
+            throw failure instanceof CompletionException ? (CompletionException) failure : new CompletionException(failure);
+        }
+    }
+}
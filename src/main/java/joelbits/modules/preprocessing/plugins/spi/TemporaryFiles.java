@@ -0,0 +1,30 @@
+package joelbits.modules.preprocessing.plugins.spi;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Hands content that is in memory to parsers that can only read files, by writing it to a temporary file that
+ * keeps the file name of the original path.
+ */
+final class TemporaryFiles {
+    private TemporaryFiles() {}
+
+    interface FileFunction<T> {
+        T apply(File file) throws Exception;
+    }
+
+    static <T> T apply(byte[] content, String path, FileFunction<T> function) throws Exception {
+        Path directory = Files.createTempDirectory("parse");
+        Path file = directory.resolve(Paths.get(path).getFileName().toString());
+        try {
+            Files.write(file, content);
+            return function.apply(file.toFile());
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(directory);
+        }
+    }
+}
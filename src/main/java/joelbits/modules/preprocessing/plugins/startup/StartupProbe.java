@@ -0,0 +1,65 @@
+package joelbits.modules.preprocessing.plugins.startup;
+
+import joelbits.modules.preprocessing.plugins.JavaParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Checks the Java files below the given directories for benchmarks and parses those that have them, as a
+ * short-lived job would, and reports the time from the start of the JVM to the first parsed file. The cds build
+ * profile runs it once to train the class-data sharing archive of the plugin jar, and then with and without the
+ * archive to report the startup time of the plugin.
+ */
+public final class StartupProbe {
+    private StartupProbe() {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: StartupProbe <source directory>...");
+            System.exit(2);
+        }
+
+        JavaParser parser = new JavaParser();
+        long firstParsed = 0;
+        int files = 0;
+        int parsed = 0;
+        for (File file : javaFiles(args)) {
+            files++;
+            if (parser.hasBenchmarks(file)) {
+                parser.parse(file);
+                parsed++;
+                if (firstParsed == 0) {
+                    firstParsed = System.currentTimeMillis();
+                }
+            }
+        }
+        long finished = System.currentTimeMillis();
+
+        long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+        String firstFile = firstParsed == 0 ? "no file with benchmarks" : (firstParsed - jvmStart) + " ms";
+        System.out.println("Time to first parsed file: " + firstFile + ", " + parsed + " of " + files
+                + " files parsed after " + (finished - jvmStart) + " ms");
+    }
+
+    private static List<File> javaFiles(String[] directories) throws IOException {
+        List<File> files = new ArrayList<>();
+        for (String directory : directories) {
+            try (Stream<Path> paths = Files.walk(Paths.get(directory))) {
+                files.addAll(paths.filter(path -> path.toString().endsWith(".java") && Files.isRegularFile(path))
+                        .sorted()
+                        .map(Path::toFile)
+                        .collect(Collectors.toList()));
+            }
+        }
+        return files;
+    }
+}
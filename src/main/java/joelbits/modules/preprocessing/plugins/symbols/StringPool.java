@@ -0,0 +1,35 @@
+package joelbits.modules.preprocessing.plugins.symbols;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Interns the names found in parsed files (type names, annotation names, identifiers) so that each distinct name
+ * is held only once on the heap, across all files parsed with the pool. The pool is thread-safe. Once it holds
+ * maxSize names, new names are no longer added and are returned as they are.
+ */
+public final class StringPool {
+    private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    public StringPool(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public String intern(String string) {
+        String interned = strings.get(string);
+        if (interned != null) {
+            return interned;
+        }
+        if (strings.size() >= maxSize) {
+            return string;
+        }
+
+        interned = strings.putIfAbsent(string, string);
+        return interned == null ? string : interned;
+    }
+
+    public int size() {
+        return strings.size();
+    }
+}
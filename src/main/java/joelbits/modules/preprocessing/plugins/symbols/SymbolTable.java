@@ -0,0 +1,59 @@
+package joelbits.modules.preprocessing.plugins.symbols;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A table of distinct strings, each identified by its index. A table may be shared by the ASTs of a whole batch of
+ * files. Adding and looking up strings is thread-safe.
+ */
+public final class SymbolTable {
+    private final List<String> symbols = new ArrayList<>();
+    private final Map<String, Integer> indices = new HashMap<>();
+
+    /**
+     * @return    the index of the string, which is added to the table if it is not yet present
+     */
+    public synchronized int indexOf(String symbol) {
+        Integer index = indices.get(symbol);
+        if (index == null) {
+            index = symbols.size();
+            symbols.add(symbol);
+            indices.put(symbol, index);
+        }
+        return index;
+    }
+
+    public synchronized String symbol(int index) {
+        return symbols.get(index);
+    }
+
+    public synchronized int size() {
+        return symbols.size();
+    }
+
+    /**
+     * Writes the table as a sequence of length-delimited strings, preceded by the number of strings.
+     */
+    public synchronized void writeTo(CodedOutputStream output) throws IOException {
+        output.writeUInt32NoTag(symbols.size());
+        for (String symbol : symbols) {
+            output.writeStringNoTag(symbol);
+        }
+    }
+
+    public static SymbolTable parseFrom(CodedInputStream input) throws IOException {
+        SymbolTable table = new SymbolTable();
+        int size = input.readUInt32();
+        for (int i = 0; i < size; i++) {
+            table.indexOf(input.readString());
+        }
+        return table;
+    }
+}
@@ -0,0 +1,90 @@
+package joelbits.modules.preprocessing.plugins.symbols;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
+import joelbits.model.ast.protobuf.ASTProtos.ASTRoot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Encodes ASTs with a symbol table. Every non-empty string in the AST is replaced by the decimal index of the
+ * string in the symbol table, so a name that occurs many times is stored only once. The encoded AST is still a
+ * valid ASTRoot message, but its strings have to be resolved with decode() before use.
+ * <p>
+ * A self-contained encoding (see encodeWithTable()) consists of the symbol table followed by the encoded ASTRoot
+ * as a length-delimited record.
+ */
+public final class SymbolTableCodec {
+
+    public ASTRoot encode(ASTRoot astRoot, SymbolTable symbolTable) {
+        return (ASTRoot) rewriteStrings(astRoot, symbol -> Integer.toString(symbolTable.indexOf(symbol)));
+    }
+
+    public ASTRoot decode(ASTRoot encodedAstRoot, SymbolTable symbolTable) {
+        return (ASTRoot) rewriteStrings(encodedAstRoot, index -> symbolTable.symbol(Integer.parseInt(index)));
+    }
+
+    /**
+     * Encodes the AST together with its own symbol table.
+     */
+    public void encodeWithTable(ASTRoot astRoot, OutputStream output) throws IOException {
+        SymbolTable symbolTable = new SymbolTable();
+        ASTRoot encodedAstRoot = encode(astRoot, symbolTable);
+
+        CodedOutputStream codedOutput = CodedOutputStream.newInstance(output);
+        symbolTable.writeTo(codedOutput);
+        codedOutput.writeUInt32NoTag(encodedAstRoot.getSerializedSize());
+        encodedAstRoot.writeTo(codedOutput);
+        codedOutput.flush();
+    }
+
+    public byte[] encodeWithTable(ASTRoot astRoot) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        encodeWithTable(astRoot, output);
+        return output.toByteArray();
+    }
+
+    public ASTRoot decodeWithTable(byte[] encoded) throws IOException {
+        CodedInputStream input = CodedInputStream.newInstance(encoded);
+        SymbolTable symbolTable = SymbolTable.parseFrom(input);
+        int limit = input.pushLimit(input.readRawVarint32());
+        ASTRoot encodedAstRoot = ASTRoot.parseFrom(input);
+        input.popLimit(limit);
+        return decode(encodedAstRoot, symbolTable);
+    }
+
+    private Message rewriteStrings(Message message, Function<String, String> rewrite) {
+        Message.Builder builder = message.toBuilder();
+        for (Map.Entry<FieldDescriptor, Object> field : message.getAllFields().entrySet()) {
+            FieldDescriptor descriptor = field.getKey();
+            FieldDescriptor.JavaType type = descriptor.getJavaType();
+            if (type != FieldDescriptor.JavaType.STRING && type != FieldDescriptor.JavaType.MESSAGE) {
+                continue;
+            }
+
+            if (descriptor.isRepeated()) {
+                int count = message.getRepeatedFieldCount(descriptor);
+                for (int i = 0; i < count; i++) {
+                    builder.setRepeatedField(descriptor, i, rewrite(message.getRepeatedField(descriptor, i), type, rewrite));
+                }
+            } else {
+                builder.setField(descriptor, rewrite(field.getValue(), type, rewrite));
+            }
+        }
+        return builder.build();
+    }
+
+    private Object rewrite(Object value, FieldDescriptor.JavaType type, Function<String, String> rewrite) {
+        if (type == FieldDescriptor.JavaType.MESSAGE) {
+            return rewriteStrings((Message) value, rewrite);
+        }
+        String string = (String) value;
+        return string.isEmpty() ? string : rewrite.apply(string);
+    }
+}
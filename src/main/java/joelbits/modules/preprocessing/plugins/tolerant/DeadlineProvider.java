@@ -0,0 +1,58 @@
+package joelbits.modules.preprocessing.plugins.tolerant;
+
+import com.github.javaparser.Provider;
+
+import java.io.IOException;
+
+/**
+ * Ends the input of the parser early once a deadline has passed. The input is handed to JavaParser in chunks of at
+ * most CHUNK_CHARS, and the deadline is checked whenever the parser reads the next one, so a parse that exceeds its
+ * time budget ends with an unexpected end of input once it has moved on by a chunk. The budget is therefore coarse:
+ * a parse that is slow within one chunk, e.g., backtracking over a few deeply nested lines, is only stopped when
+ * it reads further, and a parse that needs no more input is not stopped at all.
+ */
+public final class DeadlineProvider implements Provider {
+    static final int CHUNK_CHARS = 1024;
+
+    private final Provider provider;
+    private final long deadline;
+    private boolean expired;
+
+    /**
+     * @param provider    the provider of the complete input
+     * @param deadline    the System.nanoTime() after which no more input is provided
+     */
+    public DeadlineProvider(Provider provider, long deadline) {
+        this.provider = provider;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        if (expired) {
+            return -1;
+        }
+        int read = provider.read(buffer, offset, Math.min(length, CHUNK_CHARS));
+        if (read < 0) {
+            // the parser has all of the input, so the result is complete however late it is
+            return read;
+        }
+        if (System.nanoTime() - deadline > 0) {
+            expired = true;
+            return -1;
+        }
+        return read;
+    }
+
+    /**
+     * @return    true if input was left out because the deadline had passed
+     */
+    public boolean isExpired() {
+        return expired;
+    }
+
+    @Override
+    public void close() throws IOException {
+        provider.close();
+    }
+}
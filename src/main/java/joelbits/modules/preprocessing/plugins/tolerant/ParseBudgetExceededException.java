@@ -0,0 +1,15 @@
+package joelbits.modules.preprocessing.plugins.tolerant;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a source is larger than the size budget, or takes longer to parse than the time budget, of a
+ * parser that is not tolerant.
+ */
+public final class ParseBudgetExceededException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public ParseBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,49 @@
+package joelbits.modules.preprocessing.plugins.tolerant;
+
+import com.github.javaparser.Problem;
+import com.github.javaparser.Range;
+
+import java.util.Optional;
+
+/**
+ * A problem found in a source that was parsed tolerantly, e.g., a syntax error or a declaration that had to be
+ * left out of the AST. The position is 0 if it is not known.
+ */
+public final class ParseDiagnostic {
+    private final int line;
+    private final int column;
+    private final String message;
+
+    public ParseDiagnostic(int line, int column, String message) {
+        this.line = line;
+        this.column = column;
+        this.message = message;
+    }
+
+    /**
+     * @return    the diagnostic of a problem reported by JavaParser
+     */
+    static ParseDiagnostic of(Problem problem) {
+        Optional<Range> range = problem.getLocation().flatMap(location -> location.getBegin().getRange());
+        String message = problem.getMessage().split("\n", 2)[0];
+        return range.map(r -> new ParseDiagnostic(r.begin.line, r.begin.column, message))
+                .orElseGet(() -> new ParseDiagnostic(0, 0, message));
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "(line " + line + ",col " + column + ") " + message;
+    }
+}
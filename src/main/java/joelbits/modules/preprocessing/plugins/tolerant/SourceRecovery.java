@@ -0,0 +1,338 @@
+package joelbits.modules.preprocessing.plugins.tolerant;
+
+import com.github.javaparser.JavaToken;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParseStart;
+import com.github.javaparser.Position;
+import com.github.javaparser.Problem;
+import com.github.javaparser.Providers;
+import com.github.javaparser.Range;
+import com.github.javaparser.TokenRange;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import joelbits.modules.preprocessing.plugins.types.LanguageLevel;
+import joelbits.modules.preprocessing.plugins.utils.ParserPool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Builds a partial compilation unit from a source that JavaParser could not parse. JavaParser itself only recovers
+ * from errors in statements; an error outside of method bodies leaves nothing of the file. The source is then split
+ * into its top-level parts (package, imports and type declarations), which are parsed one by one. A class that does
+ * not parse is split into its members in the same way, so only the members with errors are left out.
+ *
+ * Every part is parsed on its own and its nodes and tokens are then moved to the part's original line and column,
+ * so positions in the partial AST match the source, at a cost that depends only on the size of the part.
+ */
+public final class SourceRecovery {
+    private final LanguageLevel languageLevel;
+
+    public SourceRecovery(LanguageLevel languageLevel) {
+        this.languageLevel = languageLevel;
+    }
+
+    /**
+     * @param source         the source that failed to parse
+     * @param failed         the result of parsing the whole source
+     * @param deadline       the System.nanoTime() after which no more parts are parsed, or 0 for no deadline
+     * @param diagnostics    receives the problems of the source and the parts that were left out
+     * @return               the compilation unit made of all parts that could be parsed
+     */
+    public CompilationUnit recover(CharSequence source, ParseResult<CompilationUnit> failed, long deadline, List<ParseDiagnostic> diagnostics) {
+        for (Problem problem : failed.getProblems()) {
+            diagnostics.add(ParseDiagnostic.of(problem));
+        }
+        if (failed.getResult().isPresent() && !failed.getResult().get().getTypes().isEmpty()) {
+            // JavaParser recovered by itself, leaving out only the broken statements
+            return failed.getResult().get();
+        }
+
+        Recovery recovery = new Recovery(source, deadline, diagnostics, ParserPool.parser(languageLevel));
+        CompilationUnit compilationUnit = new CompilationUnit();
+        for (int[] part : recovery.split(0, source.length())) {
+            if (recovery.isExpired()) {
+                recovery.skip(part[0], "Time budget exceeded, skipped the rest of the source");
+                break;
+            }
+            recovery.recoverTopLevel(part[0], part[1], compilationUnit);
+        }
+        return compilationUnit;
+    }
+
+    private static final class Recovery {
+        private final CharSequence source;
+        private final long deadline;
+        private final List<ParseDiagnostic> diagnostics;
+        private final List<Integer> lineStarts = new ArrayList<>();
+        private final com.github.javaparser.JavaParser parser;
+
+        Recovery(CharSequence source, long deadline, List<ParseDiagnostic> diagnostics, com.github.javaparser.JavaParser parser) {
+            this.source = source;
+            this.parser = parser;
+            this.deadline = deadline;
+            this.diagnostics = diagnostics;
+            lineStarts.add(0);
+            for (int i = 0; i < source.length(); i++) {
+                char current = source.charAt(i);
+                if (current == '\n' || current == '\r' && (i + 1 == source.length() || source.charAt(i + 1) != '\n')) {
+                    lineStarts.add(i + 1);
+                }
+            }
+        }
+
+        boolean isExpired() {
+            return deadline != 0 && System.nanoTime() - deadline > 0;
+        }
+
+        void recoverTopLevel(int start, int end, CompilationUnit compilationUnit) {
+            ParseResult<CompilationUnit> result = parseAt(ParseStart.COMPILATION_UNIT, start, end, "");
+            if (result.isSuccessful() && result.getResult().isPresent()) {
+                CompilationUnit part = result.getResult().get();
+                part.getPackageDeclaration().ifPresent(compilationUnit::setPackageDeclaration);
+                for (ImportDeclaration importDeclaration : part.getImports()) {
+                    compilationUnit.getImports().add(importDeclaration);
+                }
+                for (TypeDeclaration<?> type : new ArrayList<>(part.getTypes())) {
+                    // CompilationUnit.addType() detaches the types added before, so the list is added to directly
+                    compilationUnit.getTypes().add(type);
+                }
+                return;
+            }
+
+            int bodyStart = findBodyStart(start, end);
+            if (bodyStart < 0) {
+                skip(start, "Skipped unparsable declaration");
+                return;
+            }
+            ParseResult<CompilationUnit> shell = parseAt(ParseStart.COMPILATION_UNIT, start, bodyStart, "{}");
+            if (!shell.isSuccessful() || !shell.getResult().isPresent() || shell.getResult().get().getTypes().size() != 1
+                    || !(shell.getResult().get().getType(0) instanceof ClassOrInterfaceDeclaration)) {
+                skip(start, "Skipped unparsable declaration");
+                return;
+            }
+
+            ClassOrInterfaceDeclaration declaration = (ClassOrInterfaceDeclaration) shell.getResult().get().getType(0);
+            int bodyEnd = source.charAt(end - 1) == '}' ? end - 1 : end;
+            for (int[] member : split(bodyStart + 1, bodyEnd)) {
+                if (isExpired()) {
+                    skip(member[0], "Time budget exceeded, skipped the rest of the declaration");
+                    break;
+                }
+                ParseResult<BodyDeclaration<?>> parsedMember = parseAt(ParseStart.CLASS_BODY, member[0], member[1], "");
+                if (parsedMember.isSuccessful() && parsedMember.getResult().isPresent()) {
+                    declaration.getMembers().add(parsedMember.getResult().get());
+                } else {
+                    skip(member[0], "Skipped unparsable member of " + declaration.getNameAsString());
+                }
+            }
+            compilationUnit.getTypes().add(declaration);
+        }
+
+        void skip(int position, String message) {
+            int firstToken = position;
+            while (firstToken < source.length() && Character.isWhitespace(source.charAt(firstToken))) {
+                firstToken++;
+            }
+            int line = lineOf(firstToken);
+            diagnostics.add(new ParseDiagnostic(line + 1, firstToken - lineStarts.get(line) + 1, message));
+        }
+
+        /**
+         * Splits the range into parts ending with a semicolon or a closing brace at the top level of the range, e.g.,
+         * into the members of a class body. A part that assigns a value continues to its semicolon, so array
+         * initializers, anonymous classes and lambdas stay whole. Whitespace between parts is skipped.
+         *
+         * @return    the start and end of each part
+         */
+        List<int[]> split(int from, int to) {
+            List<int[]> parts = new ArrayList<>();
+            int braces = 0;
+            int parentheses = 0;
+            boolean assignment = false;
+            int partStart = from;
+            int position = from;
+            while (position < to) {
+                char current = source.charAt(position);
+                int skipped = skipLiteralOrComment(position, to);
+                if (skipped > position) {
+                    position = skipped;
+                    continue;
+                }
+
+                if (current == '(') {
+                    parentheses++;
+                } else if (current == ')') {
+                    parentheses--;
+                } else if (current == '{') {
+                    braces++;
+                } else if (current == '}') {
+                    braces--;
+                } else if (current == '=' && braces == 0 && parentheses == 0 && isAssignment(position)) {
+                    assignment = true;
+                }
+                position++;
+
+                boolean partEnds = braces == 0 && parentheses == 0
+                        && (current == ';' || current == '}' && !assignment);
+                if (partEnds) {
+                    addPart(parts, partStart, position);
+                    partStart = position;
+                    assignment = false;
+                }
+            }
+            addPart(parts, partStart, to);
+            return parts;
+        }
+
+        private void addPart(List<int[]> parts, int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (!Character.isWhitespace(source.charAt(i))) {
+                    parts.add(new int[] {start, end});
+                    return;
+                }
+            }
+        }
+
+        private boolean isAssignment(int position) {
+            char previous = position > 0 ? source.charAt(position - 1) : ' ';
+            char next = position + 1 < source.length() ? source.charAt(position + 1) : ' ';
+            return next != '=' && previous != '=' && previous != '!' && previous != '<' && previous != '>';
+        }
+
+        /**
+         * @return    the position after the string, text block, character literal or comment at the position, or the
+         *            position itself if there is none
+         */
+        private int skipLiteralOrComment(int position, int to) {
+            char current = source.charAt(position);
+            if (current == '/' && position + 1 < to && source.charAt(position + 1) == '/') {
+                while (position < to && source.charAt(position) != '\n' && source.charAt(position) != '\r') {
+                    position++;
+                }
+                return position;
+            }
+            if (current == '/' && position + 1 < to && source.charAt(position + 1) == '*') {
+                int end = indexOf("*/", position + 2, to);
+                return end < 0 ? to : end + 2;
+            }
+            if (current == '"' && position + 2 < to && source.charAt(position + 1) == '"' && source.charAt(position + 2) == '"') {
+                int end = indexOf("\"\"\"", position + 3, to);
+                return end < 0 ? to : end + 3;
+            }
+            if (current == '"' || current == '\'') {
+                position++;
+                while (position < to && source.charAt(position) != current && source.charAt(position) != '\n') {
+                    position += source.charAt(position) == '\\' ? 2 : 1;
+                }
+                return Math.min(position + 1, to);
+            }
+            return position;
+        }
+
+        private int indexOf(String text, int from, int to) {
+            for (int i = from; i + text.length() <= to; i++) {
+                if (source.subSequence(i, i + text.length()).toString().equals(text)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return    the position of the opening brace of the declaration's body, or -1 if there is none
+         */
+        private int findBodyStart(int start, int end) {
+            int parentheses = 0;
+            int position = start;
+            while (position < end) {
+                int skipped = skipLiteralOrComment(position, end);
+                if (skipped > position) {
+                    position = skipped;
+                    continue;
+                }
+                char current = source.charAt(position);
+                if (current == '(') {
+                    parentheses++;
+                } else if (current == ')') {
+                    parentheses--;
+                } else if (current == '{' && parentheses == 0) {
+                    return position;
+                }
+                position++;
+            }
+            return -1;
+        }
+
+        /**
+         * Parses the text of the range, followed by the suffix, and moves the parsed nodes to the position of the
+         * range in the source.
+         */
+        private <N extends Node> ParseResult<N> parseAt(ParseStart<N> start, int from, int to, String suffix) {
+            ParseResult<N> result = parser.parse(start, Providers.provider(source.subSequence(from, to) + suffix));
+            if (result.getResult().isPresent()) {
+                int line = lineOf(from);
+                moveTo(result.getResult().get(), line, from - lineStarts.get(line));
+            }
+            return result;
+        }
+
+        /**
+         * Moves the nodes and tokens parsed from a part starting at the first line and column to the given line and
+         * column, both counted from 0.
+         */
+        private void moveTo(Node root, int line, int column) {
+            if (line == 0 && column == 0) {
+                return;
+            }
+
+            Optional<TokenRange> tokens = root.getTokenRange();
+            if (tokens.isPresent()) {
+                JavaToken token = tokens.get().getBegin().findFirstToken();
+                while (token != null) {
+                    JavaToken current = token;
+                    current.getRange().ifPresent(range -> current.setRange(move(range, line, column)));
+                    token = current.getNextToken().orElse(null);
+                }
+            }
+
+            Set<Node> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+            root.walk(nodes::add);
+            nodes.addAll(root.getAllContainedComments());
+            root.getComment().ifPresent(nodes::add);
+            for (Node node : nodes) {
+                node.getRange().ifPresent(range -> node.setRange(move(range, line, column)));
+            }
+        }
+
+        private Range move(Range range, int line, int column) {
+            return new Range(move(range.begin, line, column), move(range.end, line, column));
+        }
+
+        private Position move(Position position, int line, int column) {
+            return new Position(position.line + line, position.line == 1 ? position.column + column : position.column);
+        }
+
+        private int lineOf(int position) {
+            int low = 0;
+            int high = lineStarts.size() - 1;
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (lineStarts.get(middle) <= position) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package joelbits.modules.preprocessing.plugins.tolerant;
+
+import java.util.List;
+
+/**
+ * The AST of a tolerantly parsed file together with the problems found in it. If there are problems, the AST
+ * contains only the declarations and members that could be parsed.
+ */
+public final class TolerantParse {
+    private final byte[] ast;
+    private final List<ParseDiagnostic> diagnostics;
+
+    public TolerantParse(byte[] ast, List<ParseDiagnostic> diagnostics) {
+        this.ast = ast;
+        this.diagnostics = diagnostics;
+    }
+
+    public byte[] getAst() {
+        return ast;
+    }
+
+    public List<ParseDiagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * @return    true if the whole file was parsed without problems
+     */
+    public boolean isComplete() {
+        return diagnostics.isEmpty();
+    }
+}
@@ -0,0 +1,27 @@
+package joelbits.modules.preprocessing.plugins.types;
+
+/**
+ * How much of each class is converted into the AST.
+ */
+public enum ExtractionDepth {
+    /**
+     * Declarations, fields and method signatures with their modifiers, but no annotations and no method bodies.
+     */
+    SIGNATURES,
+    /**
+     * Everything of SIGNATURES together with the annotations of declarations, fields and methods.
+     */
+    ANNOTATIONS,
+    /**
+     * The complete AST including the statements and expressions of method bodies.
+     */
+    BODIES;
+
+    public boolean includesAnnotations() {
+        return this != SIGNATURES;
+    }
+
+    public boolean includesBodies() {
+        return this == BODIES;
+    }
+}
@@ -0,0 +1,51 @@
+package joelbits.modules.preprocessing.plugins.types;
+
+import com.github.javaparser.ast.validator.*;
+
+/**
+ * The Java version whose syntax parsed files are validated against. A file using syntax of a later version fails
+ * to parse. Validators are only loaded for the levels that are used.
+ */
+public enum LanguageLevel {
+    JAVA_1_0,
+    JAVA_1_1,
+    JAVA_1_2,
+    JAVA_1_3,
+    JAVA_1_4,
+    JAVA_5,
+    JAVA_6,
+    JAVA_7,
+    JAVA_8,
+    JAVA_9,
+    /**
+     * Accepts everything JavaParser can parse without validating it, which also saves a walk over every parsed file.
+     */
+    ANY;
+
+    public Validator createValidator() {
+        switch (this) {
+            case JAVA_1_0:
+                return new Java1_0Validator();
+            case JAVA_1_1:
+                return new Java1_1Validator();
+            case JAVA_1_2:
+                return new Java1_2Validator();
+            case JAVA_1_3:
+                return new Java1_3Validator();
+            case JAVA_1_4:
+                return new Java1_4Validator();
+            case JAVA_5:
+                return new Java5Validator();
+            case JAVA_6:
+                return new Java6Validator();
+            case JAVA_7:
+                return new Java7Validator();
+            case JAVA_8:
+                return new Java8Validator();
+            case JAVA_9:
+                return new Java9Validator();
+            default:
+                return new NoProblemsValidator();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package joelbits.modules.preprocessing.plugins.utils;
+
+import com.github.javaparser.ast.expr.*;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+
+/**
+ * Produces the text of expressions exactly as Node.toString() does, without running JavaParser's pretty printer for
+ * the common kinds of expressions, i.e., names, field accesses, literals and operators, and calls and creations of
+ * them. The text of a method call's name is printed without its arguments, so nested calls are not printed again at
+ * each level of nesting. Any other expression, and any expression with a comment, falls back to toString().
+ */
+public final class ExpressionPrinter {
+    /**
+     * @return    the text of the expression
+     */
+    public String print(Expression expression) {
+        StringBuilder text = new StringBuilder();
+        print(expression, text);
+        return text.toString();
+    }
+
+    /**
+     * @return    the text of the method call up to the parenthesis opening its arguments, or up to the first
+     *            parenthesis of its scope if the scope contains one, e.g., "bh.consume" or "new StringBuilder"
+     */
+    public String printMethodName(MethodCallExpr methodCall) {
+        if (methodCall.getComment().isPresent() || methodCall.getTypeArguments().isPresent()) {
+            String text = methodCall.toString();
+            return text.substring(0, text.indexOf('('));
+        }
+        if (!methodCall.getScope().isPresent()) {
+            return methodCall.getNameAsString();
+        }
+
+        Expression scope = methodCall.getScope().get();
+        if (scope.isMethodCallExpr()) {
+            return printMethodName(scope.asMethodCallExpr());
+        }
+        StringBuilder text = new StringBuilder();
+        print(scope, text);
+        int parenthesis = text.indexOf("(");
+        if (parenthesis >= 0) {
+            return text.substring(0, parenthesis);
+        }
+        return text.append('.').append(methodCall.getNameAsString()).toString();
+    }
+
+    private void print(Expression expression, StringBuilder text) {
+        if (expression.getComment().isPresent()) {
+            text.append(expression.toString());
+        } else if (expression.isNameExpr()) {
+            text.append(expression.asNameExpr().getNameAsString());
+        } else if (expression.isFieldAccessExpr() && !expression.asFieldAccessExpr().getTypeArguments().isPresent()) {
+            FieldAccessExpr fieldAccess = expression.asFieldAccessExpr();
+            print(fieldAccess.getScope(), text);
+            text.append('.').append(fieldAccess.getNameAsString());
+        } else if (expression.isThisExpr()) {
+            printQualifier(expression.asThisExpr().getClassExpr().orElse(null), text);
+            text.append("this");
+        } else if (expression.isSuperExpr()) {
+            printQualifier(expression.asSuperExpr().getClassExpr().orElse(null), text);
+            text.append("super");
+        } else if (expression.isStringLiteralExpr()) {
+            text.append('"').append(expression.asStringLiteralExpr().getValue()).append('"');
+        } else if (expression.isCharLiteralExpr()) {
+            text.append('\'').append(expression.asCharLiteralExpr().getValue()).append('\'');
+        } else if (expression.isIntegerLiteralExpr() || expression.isLongLiteralExpr() || expression.isDoubleLiteralExpr()) {
+            text.append(((LiteralStringValueExpr) expression).getValue());
+        } else if (expression.isBooleanLiteralExpr()) {
+            text.append(expression.asBooleanLiteralExpr().getValue());
+        } else if (expression.isNullLiteralExpr()) {
+            text.append("null");
+        } else if (expression.isArrayAccessExpr()) {
+            print(expression.asArrayAccessExpr().getName(), text);
+            text.append('[');
+            print(expression.asArrayAccessExpr().getIndex(), text);
+            text.append(']');
+        } else if (expression.isBinaryExpr()) {
+            BinaryExpr binary = expression.asBinaryExpr();
+            print(binary.getLeft(), text);
+            text.append(' ').append(binary.getOperator().asString()).append(' ');
+            print(binary.getRight(), text);
+        } else if (expression.isUnaryExpr()) {
+            UnaryExpr unary = expression.asUnaryExpr();
+            if (unary.getOperator().isPrefix()) {
+                text.append(unary.getOperator().asString());
+            }
+            print(unary.getExpression(), text);
+            if (unary.getOperator().isPostfix()) {
+                text.append(unary.getOperator().asString());
+            }
+        } else if (expression.isEnclosedExpr()) {
+            text.append('(');
+            print(expression.asEnclosedExpr().getInner(), text);
+            text.append(')');
+        } else if (expression.isMethodCallExpr() && !expression.asMethodCallExpr().getTypeArguments().isPresent()) {
+            MethodCallExpr methodCall = expression.asMethodCallExpr();
+            if (methodCall.getScope().isPresent()) {
+                print(methodCall.getScope().get(), text);
+                text.append('.');
+            }
+            text.append(methodCall.getNameAsString());
+            printArguments(methodCall.getArguments(), text);
+        } else if (isSimpleCreation(expression)) {
+            text.append("new ");
+            printType(expression.asObjectCreationExpr().getType(), text);
+            printArguments(expression.asObjectCreationExpr().getArguments(), text);
+        } else {
+            text.append(expression.toString());
+        }
+    }
+
+    private void printQualifier(Expression classExpression, StringBuilder text) {
+        if (classExpression != null) {
+            print(classExpression, text);
+            text.append('.');
+        }
+    }
+
+    private void printArguments(Iterable<Expression> arguments, StringBuilder text) {
+        text.append('(');
+        String separator = "";
+        for (Expression argument : arguments) {
+            print(argument, text.append(separator));
+            separator = ", ";
+        }
+        text.append(')');
+    }
+
+    private boolean isSimpleCreation(Expression expression) {
+        if (!expression.isObjectCreationExpr()) {
+            return false;
+        }
+        ObjectCreationExpr creation = expression.asObjectCreationExpr();
+        return !creation.getScope().isPresent() && !creation.getTypeArguments().isPresent()
+                && !creation.getAnonymousClassBody().isPresent() && isSimpleType(creation.getType());
+    }
+
+    /**
+     * @return    true for a possibly qualified class name without type arguments, annotations or comments
+     */
+    private boolean isSimpleType(ClassOrInterfaceType type) {
+        if (type.getTypeArguments().isPresent() || !type.getAnnotations().isEmpty() || type.getComment().isPresent()) {
+            return false;
+        }
+        return !type.getScope().isPresent() || isSimpleType(type.getScope().get());
+    }
+
+    private void printType(ClassOrInterfaceType type, StringBuilder text) {
+        if (type.getScope().isPresent()) {
+            printType(type.getScope().get(), text);
+            text.append('.');
+        }
+        text.append(type.getNameAsString());
+    }
+}
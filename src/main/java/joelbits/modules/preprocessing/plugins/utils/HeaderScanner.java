@@ -0,0 +1,143 @@
+package joelbits.modules.preprocessing.plugins.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Extracts the import names of a Java file by scanning only its header (comments, package and import statements)
+ * instead of parsing the whole file. At most MAX_HEADER_BYTES are read from disk.
+ */
+public final class HeaderScanner {
+    private static final int MAX_HEADER_BYTES = 64 * 1024;
+
+    /**
+     * Returns the imports declared in the header of the file. If the header could not be determined, e.g., it is
+     * longer than the read limit or starts with a package annotation, nothing is returned and the caller has
+     * to fall back to a full parse.
+     *
+     * @param path    the Java file to scan
+     * @return        the names of all imports in the file, if the header could be scanned
+     */
+    public Optional<List<String>> scanImports(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size, MAX_HEADER_BYTES));
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the buffer is full or the end of the file is reached
+            }
+            buffer.flip();
+            boolean truncated = size > buffer.limit();
+            // ISO-8859-1 maps bytes to chars one-to-one, which is enough for the ASCII keywords and names looked for
+            return scanImports(new String(buffer.array(), 0, buffer.limit(), StandardCharsets.ISO_8859_1), truncated);
+        }
+    }
+
+    /**
+     * Returns the imports declared in the header of a source that is already in memory. The buffer is left unchanged.
+     *
+     * @param content    the encoded Java source
+     * @return           the names of all imports in the source, if the header could be scanned
+     */
+    public Optional<List<String>> scanImports(ByteBuffer content) {
+        int length = Math.min(content.remaining(), MAX_HEADER_BYTES);
+        byte[] header = new byte[length];
+        content.duplicate().get(header);
+        return scanImports(new String(header, StandardCharsets.ISO_8859_1), content.remaining() > length);
+    }
+
+    private Optional<List<String>> scanImports(String header, boolean truncated) {
+        if (header.startsWith("\u00FE\u00FF") || header.startsWith("\u00FF\u00FE")) {
+            // UTF-16 content can not be scanned byte by byte
+            return Optional.empty();
+        }
+
+        List<String> imports = new ArrayList<>();
+        int position = skipByteOrderMark(header);
+        boolean seenStatement = false;
+
+        while (true) {
+            position = skipWhitespaceAndComments(header, position);
+            if (position < 0 || position >= header.length()) {
+                return truncated ? Optional.empty() : Optional.of(imports);
+            }
+
+            int wordEnd = position;
+            while (wordEnd < header.length() && Character.isJavaIdentifierPart(header.charAt(wordEnd))) {
+                wordEnd++;
+            }
+            String word = header.substring(position, wordEnd);
+            if (!word.equals("package") && !word.equals("import")) {
+                if (!word.isEmpty() || header.charAt(position) == '@' && seenStatement) {
+                    return Optional.of(imports);
+                }
+                // an annotation in front of the package statement, or an unexpected token
+                return Optional.empty();
+            }
+            seenStatement = true;
+
+            int statementEnd = header.indexOf(';', wordEnd);
+            if (statementEnd < 0) {
+                return Optional.empty();
+            }
+            if (word.equals("import")) {
+                imports.add(importName(header.substring(wordEnd, statementEnd)));
+            }
+            position = statementEnd + 1;
+        }
+    }
+
+    private int skipByteOrderMark(String header) {
+        if (header.startsWith("\u00EF\u00BB\u00BF")) {
+            return 3;
+        }
+        return 0;
+    }
+
+    /**
+     * @return    the position of the next token, or -1 if the header ends inside a comment
+     */
+    private int skipWhitespaceAndComments(String header, int position) {
+        while (position < header.length()) {
+            char current = header.charAt(position);
+            if (Character.isWhitespace(current)) {
+                position++;
+            } else if (header.startsWith("//", position)) {
+                int lineEnd = header.indexOf('\n', position);
+                position = lineEnd < 0 ? header.length() : lineEnd + 1;
+            } else if (header.startsWith("/*", position)) {
+                int commentEnd = header.indexOf("*/", position + 2);
+                if (commentEnd < 0) {
+                    return -1;
+                }
+                position = commentEnd + 2;
+            } else {
+                break;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Removes whitespace, the static keyword and a trailing wildcard so that the name matches the one
+     * reported by JavaParser's ImportDeclaration.
+     */
+    private String importName(String statement) {
+        String name = statement.trim();
+        if (name.startsWith("static") && name.length() > "static".length()
+                && Character.isWhitespace(name.charAt("static".length()))) {
+            name = name.substring("static".length());
+        }
+        name = name.replaceAll("\\s+", "");
+        if (name.endsWith(".*")) {
+            name = name.substring(0, name.length() - 2);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,35 @@
+package joelbits.modules.preprocessing.plugins.utils;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import joelbits.modules.preprocessing.plugins.types.LanguageLevel;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * JavaParser instances configured for the plugin, one per language level and thread. An instance keeps its token
+ * manager and input buffers between parses, while the static JavaParser.parse() methods create them anew for every
+ * source. Comments are not attributed to the nodes, since the plugin does not convert them, and lexical
+ * preservation is off. Tokens are still stored, the member cache and the source ranges of nodes depend on them.
+ */
+public final class ParserPool {
+    private static final ThreadLocal<Map<LanguageLevel, JavaParser>> PARSERS =
+            ThreadLocal.withInitial(() -> new EnumMap<>(LanguageLevel.class));
+
+    private ParserPool() {}
+
+    /**
+     * @return    the parser of the current thread for the language level, which must not be used by another thread
+     */
+    public static JavaParser parser(LanguageLevel languageLevel) {
+        return PARSERS.get().computeIfAbsent(languageLevel, level -> new JavaParser(configuration(level)));
+    }
+
+    private static ParserConfiguration configuration(LanguageLevel languageLevel) {
+        return new ParserConfiguration()
+                .setAttributeComments(false)
+                .setLexicalPreservationEnabled(false)
+                .setValidator(languageLevel.createValidator());
+    }
+}
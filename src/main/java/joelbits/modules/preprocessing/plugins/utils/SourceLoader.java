@@ -0,0 +1,190 @@
+package joelbits.modules.preprocessing.plugins.utils;
+
+import com.github.javaparser.Provider;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Loads Java sources for the parser from files, from paths of other file systems (e.g., inside a zip or jar file)
+ * or from memory. Large files are memory-mapped, other content is read into a direct buffer that is reused by
+ * all loads on the same thread, and the bytes are decoded straight into a reused char buffer.
+ *
+ * The encoding is taken from a byte order mark if the source starts with one, and is the configured charset
+ * otherwise. The loaded text is only valid until the next load on the same thread, so it must be consumed,
+ * i.e., parsed, before that.
+ */
+public final class SourceLoader {
+    private static final int MAPPING_THRESHOLD = 1024 * 1024;
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+    private final Charset charset;
+
+    public SourceLoader() {
+        this(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param charset    the encoding of sources without a byte order mark
+     */
+    public SourceLoader(Charset charset) {
+        this.charset = charset;
+    }
+
+    public Provider load(Path path) throws IOException {
+        return provider(decode(path));
+    }
+
+    public Provider load(byte[] content) {
+        return load(ByteBuffer.wrap(content));
+    }
+
+    /**
+     * Loads the remaining bytes of the buffer without changing its position.
+     */
+    public Provider load(ByteBuffer content) {
+        return provider(decode(content));
+    }
+
+    /**
+     * @return    a provider reading the text, which is left unchanged
+     */
+    public Provider provider(CharBuffer text) {
+        return new CharBufferProvider(text.duplicate());
+    }
+
+    /**
+     * Decodes the remaining bytes of the buffer without changing its position.
+     *
+     * @return    the decoded text, valid until the next load on this thread
+     */
+    public CharBuffer decode(ByteBuffer content) {
+        return decodeBytes(content.duplicate());
+    }
+
+    /**
+     * @return    the decoded text of the file, valid until the next load on this thread
+     */
+    public CharBuffer decode(Path path) throws IOException {
+        if (path.getFileSystem() == FileSystems.getDefault()) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size >= MAPPING_THRESHOLD) {
+                    return decodeBytes(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+                }
+                return decodeBytes(read(channel, (int) size));
+            }
+        }
+
+        try (SeekableByteChannel channel = Files.newByteChannel(path, StandardOpenOption.READ)) {
+            return decodeBytes(read(channel, (int) channel.size()));
+        }
+    }
+
+    private ByteBuffer read(SeekableByteChannel channel, int size) throws IOException {
+        ByteBuffer buffer = BUFFERS.get().bytes(size);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // keep reading until the whole file is in the buffer
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private CharBuffer decodeBytes(ByteBuffer bytes) {
+        CharsetDecoder decoder = detectCharset(bytes).newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = BUFFERS.get().chars((int) Math.ceil(bytes.remaining() * (double) decoder.maxCharsPerByte()) + 1);
+        CoderResult result = decoder.decode(bytes, chars, true);
+        if (result.isUnderflow()) {
+            result = decoder.flush(chars);
+        }
+        if (!result.isUnderflow()) {
+            throw new IllegalStateException("Could not decode source: " + result);
+        }
+        chars.flip();
+        return chars;
+    }
+
+    /**
+     * A UTF-8 byte order mark is left in the text, as the parser treats it as whitespace. UTF-16 decoders consume
+     * their byte order mark themselves.
+     */
+    private Charset detectCharset(ByteBuffer bytes) {
+        int position = bytes.position();
+        if (bytes.remaining() >= 3 && (bytes.get(position) & 0xFF) == 0xEF && (bytes.get(position + 1) & 0xFF) == 0xBB
+                && (bytes.get(position + 2) & 0xFF) == 0xBF) {
+            return StandardCharsets.UTF_8;
+        }
+        if (bytes.remaining() >= 2) {
+            int first = bytes.get(position) & 0xFF;
+            int second = bytes.get(position + 1) & 0xFF;
+            if (first == 0xFE && second == 0xFF || first == 0xFF && second == 0xFE) {
+                return StandardCharsets.UTF_16;
+            }
+        }
+        return charset;
+    }
+
+    /**
+     * The buffers reused by the loads of one thread. Buffers larger than the mapping threshold are not kept.
+     */
+    private static final class Buffers {
+        private ByteBuffer bytes = ByteBuffer.allocateDirect(64 * 1024);
+        private CharBuffer chars = CharBuffer.allocate(64 * 1024);
+
+        ByteBuffer bytes(int size) {
+            if (size > MAPPING_THRESHOLD) {
+                return ByteBuffer.allocate(size);
+            }
+            if (bytes.capacity() < size) {
+                bytes = ByteBuffer.allocateDirect(Math.max(size, bytes.capacity() * 2));
+            }
+            bytes.clear().limit(size);
+            return bytes;
+        }
+
+        CharBuffer chars(int size) {
+            if (size > MAPPING_THRESHOLD) {
+                return CharBuffer.allocate(size);
+            }
+            if (chars.capacity() < size) {
+                chars = CharBuffer.allocate(Math.max(size, chars.capacity() * 2));
+            }
+            chars.clear();
+            return chars;
+        }
+    }
+
+    private static final class CharBufferProvider implements Provider {
+        private final CharBuffer chars;
+
+        CharBufferProvider(CharBuffer chars) {
+            this.chars = chars;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (!chars.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, chars.remaining());
+            chars.get(buffer, offset, count);
+            return count;
+        }
+
+        @Override
+        public void close() {}
+    }
+}
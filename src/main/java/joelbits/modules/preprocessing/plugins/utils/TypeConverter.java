@@ -12,50 +12,83 @@ import joelbits.model.ast.protobuf.ASTProtos.Modifier.VisibilityType;
 
 import java.util.*;
 
+/**
+ * Converts JavaParser types into their protobuf counterparts. Modifiers are converted through lookup tables of
+ * prebuilt, immutable protobuf messages, so converting a modifier allocates nothing.
+ */
 public final class TypeConverter {
+    private static final Map<Modifier, ModifierType> MODIFIER_TYPES = new EnumMap<>(Modifier.class);
+    private static final Map<Modifier, VisibilityType> VISIBILITIES = new EnumMap<>(Modifier.class);
+    private static final Map<Modifier, ASTProtos.Modifier> MODIFIERS = new EnumMap<>(Modifier.class);
+    private static final Map<Modifier, ASTProtos.Modifier> MODIFIERS_AS_WRITTEN = new EnumMap<>(Modifier.class);
+    private final ExpressionPrinter expressionPrinter = new ExpressionPrinter();
+
+    static {
+        VISIBILITIES.put(Modifier.PUBLIC, VisibilityType.PUBLIC);
+        VISIBILITIES.put(Modifier.PROTECTED, VisibilityType.PROTECTED);
+        VISIBILITIES.put(Modifier.PRIVATE, VisibilityType.PRIVATE);
+
+        for (Modifier modifier : Modifier.values()) {
+            MODIFIER_TYPES.put(modifier, getModifierType(modifier));
+            MODIFIERS.put(modifier, createModifier(modifier, modifier.name()));
+            MODIFIERS_AS_WRITTEN.put(modifier, createModifier(modifier, modifier.asString()));
+        }
+    }
 
-    public List<ASTProtos.Modifier> convertModifiers(EnumSet<Modifier> modifiers) {
-        List<ASTProtos.Modifier> argumentModifiers = new ArrayList<>();
+    private static ModifierType getModifierType(Modifier modifier) {
+        switch (modifier) {
+            case STATIC:
+                return ModifierType.STATIC;
+            case FINAL:
+                return ModifierType.FINAL;
+            case ABSTRACT:
+                return ModifierType.ABSTRACT;
+            case SYNCHRONIZED:
+                return ModifierType.SYNCHRONIZED;
+            default:
+                return VISIBILITIES.containsKey(modifier) ? ModifierType.VISIBILITY : ModifierType.OTHER;
+        }
+    }
 
-        for (Modifier modifier : modifiers) {
-            ModifierType type = getModifierType(modifier.name());
-            ASTProtos.Modifier.Builder builder = ASTProtos.Modifier.newBuilder();
-
-            if (type.equals(ModifierType.VISIBILITY)) {
-                argumentModifiers.add(builder
-                        .setVisibility(VisibilityType.valueOf(modifier.name()))
-                        .setType(type).build());
-            } else if (type.equals(ModifierType.OTHER)) {
-                argumentModifiers.add(builder
-                        .setOther(modifier.name())
-                        .setType(type).build());
-            } else {
-                argumentModifiers.add(builder
-                        .setName(modifier.name())
-                        .setType(type).build());
-            }
+    private static ASTProtos.Modifier createModifier(Modifier modifier, String name) {
+        ModifierType type = MODIFIER_TYPES.get(modifier);
+        ASTProtos.Modifier.Builder builder = ASTProtos.Modifier.newBuilder().setType(type);
+
+        if (type.equals(ModifierType.VISIBILITY)) {
+            return builder.setVisibility(VISIBILITIES.get(modifier)).build();
+        } else if (type.equals(ModifierType.OTHER)) {
+            return builder.setOther(name).build();
         }
+        return builder.setName(name).build();
+    }
 
-        return argumentModifiers;
+    /**
+     * @return    the prebuilt protobuf modifier named after the enum constant, e.g. FINAL
+     */
+    public ASTProtos.Modifier convertModifier(Modifier modifier) {
+        return MODIFIERS.get(modifier);
     }
 
-    private ModifierType getModifierType(String modifier) {
-        if (ModifierType.STATIC.name().equals(modifier.toUpperCase())) {
-            return ModifierType.STATIC;
-        } else if (ModifierType.FINAL.name().equals(modifier.toUpperCase())) {
-            return ModifierType.FINAL;
-        } else if (ModifierType.ABSTRACT.name().equals(modifier.toUpperCase())) {
-            return ModifierType.ABSTRACT;
-        } else if (ModifierType.SYNCHRONIZED.name().equals(modifier.toUpperCase())) {
-            return ModifierType.SYNCHRONIZED;
-        }
+    /**
+     * @return    the prebuilt protobuf modifier named as the modifier is written in source code, e.g. final
+     */
+    public ASTProtos.Modifier convertModifierAsWritten(Modifier modifier) {
+        return MODIFIERS_AS_WRITTEN.get(modifier);
+    }
 
-        String[] visibilityModifiers = Arrays.asList(VisibilityType.values()).stream().map(Enum::name).toArray(String[]::new);
-        if (Arrays.asList(visibilityModifiers).contains(modifier.toUpperCase())) {
-            return ModifierType.VISIBILITY;
-        }
+    public List<ASTProtos.Modifier> convertModifiers(EnumSet<Modifier> modifiers) {
+        List<ASTProtos.Modifier> argumentModifiers = new ArrayList<>(modifiers.size());
+        convertModifiers(modifiers, argumentModifiers);
+        return argumentModifiers;
+    }
 
-        return ModifierType.OTHER;
+    /**
+     * Adds the converted modifiers to the given list.
+     */
+    public void convertModifiers(EnumSet<Modifier> modifiers, List<ASTProtos.Modifier> convertedModifiers) {
+        for (Modifier modifier : modifiers) {
+            convertedModifiers.add(MODIFIERS.get(modifier));
+        }
     }
 
     public List<String> convertAnnotationMembers(AnnotationExpr annotationExpr) {
@@ -65,12 +98,12 @@ public final class TypeConverter {
             NodeList<MemberValuePair> pairs = annotationExpr.asNormalAnnotationExpr().getPairs();
             for (MemberValuePair pair : pairs) {
                 String memberName = handleAbsentMembers(annotationExpr, pair.getNameAsString());
-                membersAndValues.add(memberName + " " + pair.getValue().toString());
+                membersAndValues.add(memberName + " " + expressionPrinter.print(pair.getValue()));
             }
         } else if (annotationExpr.isSingleMemberAnnotationExpr()) {
             SingleMemberAnnotationExpr singleMember = annotationExpr.asSingleMemberAnnotationExpr();
             String memberName = handleAbsentMembers(annotationExpr, singleMember.getNameAsString());
-            membersAndValues.add(memberName + " " + singleMember.getMemberValue().toString());
+            membersAndValues.add(memberName + " " + expressionPrinter.print(singleMember.getMemberValue()));
         }
 
         return membersAndValues;
@@ -1,59 +1,211 @@
 package joelbits.modules.preprocessing.plugins.visitors;
 
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.AnnotationDeclaration;
 import com.github.javaparser.ast.body.BodyDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.EnumDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import joelbits.model.ast.protobuf.ASTProtos.DeclarationType;
 import joelbits.model.ast.protobuf.ASTProtos.Variable;
 import joelbits.model.ast.protobuf.ASTProtos.Modifier;
 import joelbits.model.ast.protobuf.ASTProtos.Declaration;
 import joelbits.model.ast.protobuf.ASTProtos.Method;
+import joelbits.modules.preprocessing.plugins.ParserOptions;
+import joelbits.modules.preprocessing.plugins.bodies.MethodBodies;
+import joelbits.modules.preprocessing.plugins.filter.BenchmarkIndex;
+import joelbits.modules.preprocessing.plugins.incremental.MemberCache;
+import joelbits.modules.preprocessing.plugins.types.ExtractionDepth;
 import joelbits.modules.preprocessing.plugins.utils.TypeConverter;
 import joelbits.modules.preprocessing.utils.ASTNodeCreator;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
- * A visitor for top-level classes and interfaces.
+ * A visitor for classes and interfaces, which adds the top-level declarations of the visited node to the given
+ * list. Each class is converted once, in a single pass: its members are converted, and the classes declared within
+ * it are converted into a list of their own, so every class ends up nested in the class that encloses it at any
+ * depth. Local and anonymous classes are nested in the class of the method or field they are declared in.
+ * With the benchmark filter, methods outside of JMH benchmarks are converted without their bodies.
  */
 public final class ClassOrInterfaceVisitor extends VoidVisitorAdapter<List<Declaration>> {
-    private List<Declaration> namespaceDeclarations;
-    private final ASTNodeCreator astNodeCreator = new ASTNodeCreator();
-    private final TypeConverter typeConverter = new TypeConverter();
+    private final VisitorContext context = VisitorContext.current();
+    private final ASTNodeCreator astNodeCreator = context.getAstNodeCreator();
+    private final TypeConverter typeConverter = context.getTypeConverter();
+    private MemberCache memberCache;
+    private MethodBodies methodBodies;
+    private BenchmarkIndex benchmarkIndex;
+    private ParserOptions withoutBodies;
+    private boolean withinFullMember;
 
     public ClassOrInterfaceVisitor() {}
 
-    public ClassOrInterfaceVisitor(List<Declaration> namespaceDeclarations) {
-        this.namespaceDeclarations = namespaceDeclarations;
+    /**
+     * Creates a visitor that converts only the methods and fields that are not found in the member cache.
+     */
+    public ClassOrInterfaceVisitor(MemberCache memberCache) {
+        this.memberCache = memberCache;
     }
 
+    /**
+     * Creates a visitor that also records the source ranges of the method bodies, so bodies that are left out at
+     * a reduced extraction depth can be converted later.
+     */
+    public ClassOrInterfaceVisitor(MemberCache memberCache, MethodBodies methodBodies) {
+        this(memberCache);
+        this.methodBodies = methodBodies;
+    }
+
+    @Override
+    public void visit(CompilationUnit compilationUnit, List<Declaration> declarations) {
+        ParserOptions options = context.getOptions();
+        if (options.isBenchmarkFilter() && options.getExtractionDepth().includesBodies()) {
+            benchmarkIndex = BenchmarkIndex.of(compilationUnit);
+            withoutBodies = options.withExtractionDepth(ExtractionDepth.ANNOTATIONS);
+        }
+        super.visit(compilationUnit, declarations);
+    }
+
+    @Override
+    public void visit(ClassOrInterfaceDeclaration declaration, List<Declaration> declarations) {
+        List<Variable> allFields = context.borrowList();
+        List<Method> allMethods = context.borrowList();
+        List<Declaration> nestedDeclarations = context.borrowList();
+        convertMembers(declaration.getMembers(), allFields, allMethods, nestedDeclarations);
+
+        List<Modifier> modifiers = context.borrowList();
+        declaration.accept(context.getDeclarationModifierVisitor(), modifiers);
+
+        DeclarationType type = typeConverter.getDeclarationType(declaration);
+        String name = context.intern(declaration.getNameAsString());
+        if (declaration.isTopLevelType()) {
+            declarations.add(astNodeCreator.createNamespaceDeclaration(name, type, allFields, allMethods, modifiers, nestedDeclarations));
+        } else {
+            declarations.add(nestedDeclaration(name, type, allFields, allMethods, modifiers, nestedDeclarations));
+        }
+        context.returnList(modifiers);
+        context.returnList(nestedDeclarations);
+        context.returnList(allMethods);
+        context.returnList(allFields);
+    }
+
+    /**
+     * Converts an anonymous class into a declaration named after the type it instantiates.
+     */
+    @Override
+    public void visit(ObjectCreationExpr expression, List<Declaration> declarations) {
+        if (!expression.getAnonymousClassBody().isPresent()) {
+            findClasses(expression, declarations);
+            return;
+        }
+        expression.getScope().ifPresent(scope -> findClasses(scope, declarations));
+        for (Node argument : expression.getArguments()) {
+            findClasses(argument, declarations);
+        }
+
+        String name = context.intern(expression.getType().getNameAsString());
+        List<Variable> allFields = context.borrowList();
+        List<Method> allMethods = context.borrowList();
+        List<Declaration> nestedDeclarations = context.borrowList();
+        convertMembers(expression.getAnonymousClassBody().get(), allFields, allMethods, nestedDeclarations);
+        declarations.add(nestedDeclaration(name, DeclarationType.ANONYMOUS, allFields, allMethods, Collections.emptyList(), nestedDeclarations));
+        context.returnList(nestedDeclarations);
+        context.returnList(allMethods);
+        context.returnList(allFields);
+    }
+
+    /**
+     * Enums and annotation types are not converted, and neither are the classes declared within them.
+     */
     @Override
-    public void visit(ClassOrInterfaceDeclaration declaration, List<Declaration> nestedDeclarations) {
-        List<Variable> allFields = new ArrayList<>();
-        List<Method> allMethods = new ArrayList<>();
+    public void visit(EnumDeclaration declaration, List<Declaration> declarations) {}
 
-        for (BodyDeclaration member : declaration.getMembers()) {
+    @Override
+    public void visit(AnnotationDeclaration declaration, List<Declaration> declarations) {}
+
+    private void convertMembers(NodeList<BodyDeclaration<?>> members, List<Variable> allFields,
+                                List<Method> allMethods, List<Declaration> nestedDeclarations) {
+        boolean includesBodies = context.getOptions().getExtractionDepth().includesBodies();
+        for (BodyDeclaration<?> member : members) {
+            boolean fullMember = convertsInFull(member);
             if (member.isMethodDeclaration()) {
-                member.accept(new MethodVisitor(), allMethods);
+                if (fullMember) {
+                    convertMember(member, context.getMethodVisitor(), allMethods);
+                } else {
+                    convertWithoutBody(member, allMethods);
+                }
+                if (methodBodies != null) {
+                    int converted = allMethods.size() - 1;
+                    allMethods.set(converted, methodBodies.record(member.asMethodDeclaration(), allMethods.get(converted)));
+                }
             }
             if (member.isFieldDeclaration()) {
-                member.accept(new FieldVisitor(), allFields);
+                convertMember(member, context.getFieldVisitor(), allFields);
             }
+
             if (member.isClassOrInterfaceDeclaration()) {
-                member.accept(new ClassOrInterfaceVisitor(), nestedDeclarations);
+                member.accept(this, nestedDeclarations);
+            } else if (member instanceof FieldDeclaration || includesBodies && fullMember && !member.isTypeDeclaration()) {
+                // local and anonymous classes in method bodies are only converted together with the bodies
+                boolean enclosingMember = withinFullMember;
+                withinFullMember = fullMember;
+                findClasses(member, nestedDeclarations);
+                withinFullMember = enclosingMember;
             }
         }
+    }
 
-        List<Modifier> modifiers = new ArrayList<>();
-        declaration.accept(new DeclarationModifierVisitor(), modifiers);
+    /**
+     * @return    true unless the benchmark filter leaves out the body of the member, which is decided by the
+     *            benchmark index or, for members of local and anonymous classes, by the member they are declared in
+     */
+    private boolean convertsInFull(BodyDeclaration<?> member) {
+        return benchmarkIndex == null || withinFullMember || benchmarkIndex.convertsInFull(member);
+    }
 
-        DeclarationType type = typeConverter.getDeclarationType(declaration);
-        if (declaration.isTopLevelType()) {
-            namespaceDeclarations.add(astNodeCreator.createNamespaceDeclaration(declaration.getNameAsString(), type, allFields, allMethods, modifiers, nestedDeclarations));
-            nestedDeclarations.clear();
+    private void convertWithoutBody(BodyDeclaration<?> method, List<Method> allMethods) {
+        ParserOptions options = context.getOptions();
+        context.configure(withoutBodies);
+        try {
+            convertMember(method, context.getMethodVisitor(), allMethods);
+        } finally {
+            context.configure(options);
+        }
+    }
+
+    /**
+     * Walks the children of the node down to the classes declared within it, which is cheaper than visiting
+     * every kind of node with the adapter.
+     */
+    private void findClasses(Node node, List<Declaration> declarations) {
+        for (Node child : node.getChildNodes()) {
+            if (child instanceof ClassOrInterfaceDeclaration || child instanceof ObjectCreationExpr) {
+                child.accept(this, declarations);
+            } else {
+                findClasses(child, declarations);
+            }
+        }
+    }
+
+    private <T> void convertMember(BodyDeclaration<?> member, VoidVisitorAdapter<List<T>> visitor, List<T> converted) {
+        if (memberCache == null) {
+            member.accept(visitor, converted);
         } else {
-            nestedDeclarations.add(astNodeCreator.createNestedDeclaration(declaration.getNameAsString(), type, allFields, allMethods, modifiers));
+            memberCache.convert(member, visitor, converted);
+        }
+    }
+
+    private Declaration nestedDeclaration(String name, DeclarationType type, List<Variable> allFields, List<Method> allMethods,
+                                          List<Modifier> modifiers, List<Declaration> nestedDeclarations) {
+        Declaration declaration = astNodeCreator.createNestedDeclaration(name, type, allFields, allMethods, modifiers);
+        if (nestedDeclarations.isEmpty()) {
+            return declaration;
         }
+        return declaration.toBuilder().addAllNestedDeclarations(nestedDeclarations).build();
     }
-}
\ No newline at end of file
+}
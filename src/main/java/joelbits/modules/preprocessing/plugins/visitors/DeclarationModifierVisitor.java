@@ -13,18 +13,31 @@ import java.util.List;
  * A visitor for top-level declarations in a class.
  */
 public final class DeclarationModifierVisitor extends VoidVisitorAdapter<List<Modifier>> {
-    private final ASTNodeCreator astNodeCreator = new ASTNodeCreator();
-    private final TypeConverter typeConverter = new TypeConverter();
+    private final VisitorContext context;
+    private final ASTNodeCreator astNodeCreator;
+    private final TypeConverter typeConverter;
+
+    public DeclarationModifierVisitor() {
+        this(VisitorContext.current());
+    }
+
+    DeclarationModifierVisitor(VisitorContext context) {
+        this.context = context;
+        this.astNodeCreator = context.getAstNodeCreator();
+        this.typeConverter = context.getTypeConverter();
+    }
 
     @Override
     public void visit(ClassOrInterfaceDeclaration declaration, List<Modifier> modifiers) {
-        for (AnnotationExpr topLevelAnnotation : declaration.getAnnotations()) {
-            List<String> membersAndValues = typeConverter.convertAnnotationMembers(topLevelAnnotation);
-            modifiers.add(astNodeCreator.createAnnotationModifier(topLevelAnnotation.getNameAsString(), membersAndValues));
+        if (context.getOptions().getExtractionDepth().includesAnnotations()) {
+            for (AnnotationExpr topLevelAnnotation : declaration.getAnnotations()) {
+                List<String> membersAndValues = typeConverter.convertAnnotationMembers(topLevelAnnotation);
+                modifiers.add(astNodeCreator.createAnnotationModifier(context.intern(topLevelAnnotation.getNameAsString()), membersAndValues));
+            }
         }
 
         for (com.github.javaparser.ast.Modifier topLevelModifier : declaration.getModifiers()) {
-            modifiers.add(astNodeCreator.createModifier(topLevelModifier.name()));
+            modifiers.add(typeConverter.convertModifier(topLevelModifier));
         }
     }
 }
@@ -15,20 +15,36 @@ import java.util.List;
  * A visitor for top-level fields in a class.
  */
 public final class FieldVisitor extends VoidVisitorAdapter<List<Variable>> {
-    private final ASTNodeCreator astNodeCreator = new ASTNodeCreator();
-    private final TypeConverter typeConverter = new TypeConverter();
+    private final VisitorContext context;
+    private final ASTNodeCreator astNodeCreator;
+    private final TypeConverter typeConverter;
+
+    public FieldVisitor() {
+        this(VisitorContext.current());
+    }
+
+    FieldVisitor(VisitorContext context) {
+        this.context = context;
+        this.astNodeCreator = context.getAstNodeCreator();
+        this.typeConverter = context.getTypeConverter();
+    }
 
     @Override
     public void visit(FieldDeclaration field, List<Variable> fieldsInDeclaration) {
-        List<Modifier> modifiers = typeConverter.convertModifiers(field.getModifiers());
+        List<Modifier> modifiers = context.borrowList();
+        typeConverter.convertModifiers(field.getModifiers(), modifiers);
 
-        for (AnnotationExpr annotationExpr : field.getAnnotations()) {
-            List<String> annotationMembers = typeConverter.convertAnnotationMembers(annotationExpr);
-            modifiers.add(astNodeCreator.createAnnotationModifier(annotationExpr.getNameAsString(), annotationMembers));
+        if (context.getOptions().getExtractionDepth().includesAnnotations()) {
+            for (AnnotationExpr annotationExpr : field.getAnnotations()) {
+                List<String> annotationMembers = typeConverter.convertAnnotationMembers(annotationExpr);
+                modifiers.add(astNodeCreator.createAnnotationModifier(context.intern(annotationExpr.getNameAsString()), annotationMembers));
+            }
         }
 
+        String type = context.intern(field.getElementType().asString());
         for (VariableDeclarator test : field.getVariables()) {
-            fieldsInDeclaration.add(astNodeCreator.createVariable(test.getName().asString(), field.getElementType().asString(), modifiers));
+            fieldsInDeclaration.add(astNodeCreator.createVariable(context.intern(test.getName().asString()), type, modifiers));
         }
+        context.returnList(modifiers);
     }
-}
\ No newline at end of file
+}
@@ -7,53 +7,70 @@ import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import joelbits.model.ast.protobuf.ASTProtos;
 import joelbits.model.ast.protobuf.ASTProtos.Variable;
 import joelbits.model.ast.protobuf.ASTProtos.Expression.ExpressionType;
+import joelbits.modules.preprocessing.plugins.utils.ExpressionPrinter;
+import joelbits.modules.preprocessing.plugins.utils.TypeConverter;
 import joelbits.modules.preprocessing.utils.ASTNodeCreator;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 /**
- * A visitor for expressions inside a method body.
+ * A visitor for expressions inside a method body. The text of expressions is produced by the ExpressionPrinter
+ * instead of Node.toString(), which pretty-prints the whole subtree of the node.
  */
 public final class MethodBodyExpressionVisitor extends VoidVisitorAdapter<List<ASTProtos.Expression>> {
-    private final ASTNodeCreator astNodeCreator = new ASTNodeCreator();
+    private final VisitorContext context;
+    private final ASTNodeCreator astNodeCreator;
+    private final TypeConverter typeConverter;
+    private final ExpressionPrinter expressionPrinter;
+
+    public MethodBodyExpressionVisitor() {
+        this(VisitorContext.current());
+    }
+
+    MethodBodyExpressionVisitor(VisitorContext context) {
+        this.context = context;
+        this.astNodeCreator = context.getAstNodeCreator();
+        this.typeConverter = context.getTypeConverter();
+        this.expressionPrinter = context.getExpressionPrinter();
+    }
 
     @Override
     public void visit(FieldAccessExpr expression, List<ASTProtos.Expression> methodBodyContent) {
-        String object = expression.getScope().toString();
-        String field = expression.getNameAsString();
+        String object = expressionPrinter.print(expression.getScope());
+        String field = context.intern(expression.getNameAsString());
         methodBodyContent.add(astNodeCreator
                 .createMethodBodyExpression(ExpressionType.FIELD_ACCESS, object, field));
     }
 
     @Override
     public void visit(VariableDeclarationExpr expression, List<ASTProtos.Expression> methodBodyContent) {
-        List<ASTProtos.Modifier> variableModifiers = new ArrayList<>();
+        List<ASTProtos.Modifier> variableModifiers = context.borrowList();
         for (Modifier modifier : expression.getModifiers()) {
-            variableModifiers.add(astNodeCreator.createModifier(modifier.asString()));
+            variableModifiers.add(typeConverter.convertModifierAsWritten(modifier));
         }
         for (VariableDeclarator declaration : expression.getVariables()) {
-            String name = declaration.getName().asString();
-            String type = declaration.getType().asString();
+            String name = context.intern(declaration.getName().asString());
+            String type = context.intern(declaration.getType().asString());
             String assignedValue = "";
 
             Optional<Expression> initializer = declaration.getInitializer();
             if (initializer.isPresent()) {
-                assignedValue = initializer.get().toString();
+                assignedValue = expressionPrinter.print(initializer.get());
             }
 
             Variable variable = astNodeCreator.createVariable(name, type, variableModifiers);
             methodBodyContent.add(astNodeCreator
                     .createVarDeclarationExpression(assignedValue, name, Collections.singletonList(variable), Collections.emptyList(), Collections.emptyList()));
         }
+        context.returnList(variableModifiers);
     }
 
     @Override
     public void visit(ArrayAccessExpr expression, List<ASTProtos.Expression> methodBodyContent) {
-        String arrayName = expression.getName().toString();
-        String index = expression.getIndex().toString();
+        String arrayName = expressionPrinter.print(expression.getName());
+        String index = expressionPrinter.print(expression.getIndex());
         methodBodyContent.add(astNodeCreator
                 .createMethodBodyExpression(ExpressionType.OTHER, arrayName, index));
     }
@@ -61,104 +78,107 @@ public final class MethodBodyExpressionVisitor extends VoidVisitorAdapter<List<A
     @Override
     public void visit(NullLiteralExpr expression, List<ASTProtos.Expression> methodBodyContent) {
         methodBodyContent.add(astNodeCreator
-                .createMethodBodyExpression(ExpressionType.LITERAL, "", expression.toString()));
+                .createMethodBodyExpression(ExpressionType.LITERAL, "", expressionPrinter.print(expression)));
     }
 
     @Override
     public void visit(NameExpr expression, List<ASTProtos.Expression> methodBodyContent) {
         methodBodyContent.add(astNodeCreator
-                .createMethodBodyExpression(ExpressionType.OTHER, expression.toString(), ""));
+                .createMethodBodyExpression(ExpressionType.OTHER, context.intern(expression.getNameAsString()), ""));
     }
 
     @Override
     public void visit(EnclosedExpr expression, List<ASTProtos.Expression> methodBodyContent) {
-        expression.getInner().accept(new MethodBodyExpressionVisitor(), methodBodyContent);
+        expression.getInner().accept(this, methodBodyContent);
     }
 
     @Override
     public void visit(BinaryExpr expression, List<ASTProtos.Expression> methodBodyContent) {
-        expression.getLeft().accept(new MethodBodyExpressionVisitor(), methodBodyContent);
-        expression.getRight().accept(new MethodBodyExpressionVisitor(), methodBodyContent);
+        expression.getLeft().accept(this, methodBodyContent);
+        expression.getRight().accept(this, methodBodyContent);
     }
 
     @Override
     public void visit(StringLiteralExpr expression, List<ASTProtos.Expression> methodBodyContent) {
         methodBodyContent.add(astNodeCreator
-                .createMethodBodyExpression(ExpressionType.LITERAL, "", expression.toString()));
+                .createMethodBodyExpression(ExpressionType.LITERAL, "", expressionPrinter.print(expression)));
     }
 
     @Override
     public void visit(IntegerLiteralExpr expression, List<ASTProtos.Expression> methodBodyContent) {
         methodBodyContent.add(astNodeCreator
-                .createMethodBodyExpression(ExpressionType.LITERAL, "", expression.toString()));
+                .createMethodBodyExpression(ExpressionType.LITERAL, "", expressionPrinter.print(expression)));
     }
 
     @Override
     public void visit(BooleanLiteralExpr expression, List<ASTProtos.Expression> methodBodyContent) {
         methodBodyContent.add(astNodeCreator
-                .createMethodBodyExpression(ExpressionType.LITERAL, "", expression.toString()));
+                .createMethodBodyExpression(ExpressionType.LITERAL, "", expressionPrinter.print(expression)));
     }
 
     @Override
     public void visit(CharLiteralExpr expression, List<ASTProtos.Expression> methodBodyContent) {
         methodBodyContent.add(astNodeCreator
-                .createMethodBodyExpression(ExpressionType.LITERAL, "", expression.toString()));
+                .createMethodBodyExpression(ExpressionType.LITERAL, "", expressionPrinter.print(expression)));
     }
 
     @Override
     public void visit(DoubleLiteralExpr expression, List<ASTProtos.Expression> methodBodyContent) {
         methodBodyContent.add(astNodeCreator
-                .createMethodBodyExpression(ExpressionType.LITERAL, "", expression.toString()));
+                .createMethodBodyExpression(ExpressionType.LITERAL, "", expressionPrinter.print(expression)));
     }
 
     @Override
     public void visit(LongLiteralExpr expression, List<ASTProtos.Expression> methodBodyContent) {
         methodBodyContent.add(astNodeCreator
-                .createMethodBodyExpression(ExpressionType.LITERAL, "", expression.toString()));
+                .createMethodBodyExpression(ExpressionType.LITERAL, "", expressionPrinter.print(expression)));
     }
 
     @Override
     public void visit(ObjectCreationExpr expression, List<ASTProtos.Expression> methodBodyContent) {
-        List<ASTProtos.Expression> arguments = new ArrayList<>();
+        List<ASTProtos.Expression> arguments = context.borrowList();
         for (Expression argument : expression.getArguments()) {
-            arguments.add(astNodeCreator.createArgumentExpression(argument.toString()));
+            arguments.add(astNodeCreator.createArgumentExpression(expressionPrinter.print(argument)));
         }
 
+        String type = context.intern(expression.getType().asString());
         if (expression.getType().isBoxedType()) {
             methodBodyContent.add(astNodeCreator
-                    .createCreationExpression( "", expression.getType().asString(), arguments));
+                    .createCreationExpression( "", type, arguments));
         } else {
             methodBodyContent.add(astNodeCreator
-                    .createCreationExpression(expression.getType().asString(), "", arguments));
+                    .createCreationExpression(type, "", arguments));
         }
+        context.returnList(arguments);
     }
 
     @Override
     public void visit(AssignExpr expression, List<ASTProtos.Expression> methodBodyContent) {
-        List<ASTProtos.Expression> values = new ArrayList<>();
-        expression.getValue().accept(new MethodBodyExpressionVisitor(), values);
-        List<ASTProtos.Expression> rebuiltValues = setAsPostfix(values);
-        expression.getTarget().accept(new MethodBodyExpressionVisitor(), rebuiltValues);
+        List<ASTProtos.Expression> values = context.borrowList();
+        expression.getValue().accept(this, values);
+        setAsPostfix(values);
+        expression.getTarget().accept(this, values);
 
         methodBodyContent.add(astNodeCreator
-                .createAssignmentExpression(ExpressionType.ASSIGN, "", "", rebuiltValues));
+                .createAssignmentExpression(ExpressionType.ASSIGN, "", "", values));
+        context.returnList(values);
     }
 
-    private List<ASTProtos.Expression> setAsPostfix(List<ASTProtos.Expression> values) {
-        List<ASTProtos.Expression> rebuiltValues = new ArrayList<>();
-        for (ASTProtos.Expression value : values) {
-            rebuiltValues.add(value.toBuilder().setIsPostfix(true).build());
+    private void setAsPostfix(List<ASTProtos.Expression> values) {
+        for (int i = 0; i < values.size(); i++) {
+            values.set(i, values.get(i).toBuilder().setIsPostfix(true).build());
         }
-        return rebuiltValues;
     }
 
     @Override
     public void visit(MethodCallExpr methodCall, List<ASTProtos.Expression> methodBodyContent) {
-        List<ASTProtos.Expression> methodArguments = new ArrayList<>();
+        List<ASTProtos.Expression> methodArguments = context.borrowList();
         for (Expression argument : methodCall.getArguments()) {
-            argument.accept(new MethodBodyExpressionVisitor(), methodArguments);
+            argument.accept(this, methodArguments);
         }
 
-        methodBodyContent.add(astNodeCreator.createMethodCallExpression(methodCall.toString(), methodArguments));
+        // the creator keeps the text up to the first parenthesis, so only that part is printed
+        methodBodyContent.add(astNodeCreator.createMethodCallExpression(expressionPrinter.printMethodName(methodCall) + "(", methodArguments));
+        context.returnList(methodArguments);
     }
 }
\ No newline at end of file
@@ -1,176 +1,344 @@
 package joelbits.modules.preprocessing.plugins.visitors;
 
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.Parameter;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.stmt.*;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import joelbits.model.ast.protobuf.ASTProtos;
+import joelbits.model.ast.protobuf.ASTProtos.Expression.ExpressionType;
 import joelbits.model.ast.protobuf.ASTProtos.Statement.StatementType;
 import joelbits.modules.preprocessing.utils.ASTNodeCreator;
 
 import java.util.*;
 
 /**
- * A visitor for statements inside a method body.
+ * A visitor for statements inside a method body. Every kind of statement has its own visit method, so the dispatch
+ * of a statement is a single virtual call and no statement falls through to the deep traversal of the adapter.
+ * Statements without a statement type of their own (switch, synchronized, throw, assert, break, continue and explicit
+ * constructor calls) are converted into OTHER statements, and a labeled statement is converted as its inner statement.
+ * The catch clauses and finally block of a try statement are nested OTHER statements of the TRY statement.
+ * Local classes are converted by the ClassOrInterfaceVisitor.
  */
 public final class MethodBodyStatementVisitor extends VoidVisitorAdapter<List<ASTProtos.Statement>> {
-    private final ASTNodeCreator astNodeCreator = new ASTNodeCreator();
+    private final VisitorContext context;
+    private final ASTNodeCreator astNodeCreator;
+
+    public MethodBodyStatementVisitor() {
+        this(VisitorContext.current());
+    }
+
+    MethodBodyStatementVisitor(VisitorContext context) {
+        this.context = context;
+        this.astNodeCreator = context.getAstNodeCreator();
+    }
 
     @Override
     public void visit(IfStmt statement, List<ASTProtos.Statement> methodBodyContent) {
-        List<ASTProtos.Expression> conditions = extractCondition(statement);
-        List<ASTProtos.Statement> ifBody = extractIfBody(statement);
+        ASTProtos.Expression condition = extractCondition(statement.getCondition());
+        List<ASTProtos.Statement> ifBody = context.borrowList();
+        extractIfBody(statement, ifBody);
 
         methodBodyContent.add(astNodeCreator
-                .createStatement(StatementType.IF, conditions.get(0), ifBody));
+                .createStatement(StatementType.IF, condition, ifBody));
+        context.returnList(ifBody);
     }
 
-    private List<ASTProtos.Expression> extractCondition(IfStmt statement) {
-        List<ASTProtos.Expression> conditions = new ArrayList<>();
-        statement.getCondition().accept(new MethodBodyExpressionVisitor(), conditions);
-        return conditions;
+    /**
+     * @return    the first expression of the converted condition
+     */
+    private ASTProtos.Expression extractCondition(Expression condition) {
+        List<ASTProtos.Expression> conditions = context.borrowList();
+        condition.accept(context.getExpressionVisitor(), conditions);
+        ASTProtos.Expression firstCondition = conditions.isEmpty() ? ASTProtos.Expression.getDefaultInstance() : conditions.get(0);
+        context.returnList(conditions);
+        return firstCondition;
     }
 
-    private List<ASTProtos.Statement> extractIfBody(IfStmt statement) {
-        List<ASTProtos.Statement> ifBody = new ArrayList<>();
-        if (statement.hasElseBlock() && statement.getElseStmt().isPresent()) {
-            statement.getElseStmt().get().accept(new MethodBodyStatementVisitor(), ifBody);
-        }
-        if (statement.hasThenBlock()) {
-            List<ASTProtos.Expression> statementContent = new ArrayList<>();
-            List<ASTProtos.Statement> statements = new ArrayList<>();
-            for (Statement stmt : statement.getThenStmt().asBlockStmt().getStatements()) {
-                if (stmt.isExpressionStmt()) {
-                    stmt.asExpressionStmt().accept(new MethodBodyExpressionVisitor(), statementContent);
-                } else {
-                    stmt.accept(new MethodBodyStatementVisitor(), statements);
-                }
+    /**
+     * Converts the else branch, which may be another if statement, followed by the then branch as a single block.
+     */
+    private void extractIfBody(IfStmt statement, List<ASTProtos.Statement> ifBody) {
+        statement.getElseStmt().ifPresent(elseStatement -> elseStatement.accept(this, ifBody));
+
+        List<ASTProtos.Expression> statementContent = context.borrowList();
+        List<ASTProtos.Statement> statements = context.borrowList();
+        Statement thenStatement = statement.getThenStmt();
+        if (thenStatement.isBlockStmt()) {
+            for (Statement stmt : thenStatement.asBlockStmt().getStatements()) {
+                extractStatement(stmt, statementContent, statements);
             }
-            ifBody.add(astNodeCreator.createBlockStatement(statementContent, statements));
+        } else {
+            extractStatement(thenStatement, statementContent, statements);
         }
+        ifBody.add(astNodeCreator.createBlockStatement(statementContent, statements));
+        context.returnList(statements);
+        context.returnList(statementContent);
+    }
 
-        return ifBody;
+    private void extractStatement(Statement statement, List<ASTProtos.Expression> statementContent, List<ASTProtos.Statement> statements) {
+        if (statement.isExpressionStmt()) {
+            statement.asExpressionStmt().getExpression().accept(context.getExpressionVisitor(), statementContent);
+        } else {
+            statement.accept(this, statements);
+        }
     }
 
     @Override
     public void visit(ReturnStmt statement, List<ASTProtos.Statement> methodBodyContent) {
-        List<ASTProtos.Expression> returnValues = new ArrayList<>();
+        List<ASTProtos.Expression> returnValues = context.borrowList();
         if (statement.getExpression().isPresent()) {
-            statement.getExpression().get().accept(new MethodBodyExpressionVisitor(), returnValues);
+            statement.getExpression().get().accept(context.getExpressionVisitor(), returnValues);
         }
 
         methodBodyContent.add(astNodeCreator
                 .createReturnStatement(returnValues));
+        context.returnList(returnValues);
     }
 
     @Override
     public void visit(DoStmt statement, List<ASTProtos.Statement> methodBodyContent) {
-        List<ASTProtos.Statement> doBody = extractDoBody(statement);
-        List<ASTProtos.Expression> statementContent = extractCondition(statement);
+        List<ASTProtos.Statement> doBody = context.borrowList();
+        statement.getBody().accept(this, doBody);
+        ASTProtos.Expression condition = extractCondition(statement.getCondition());
 
         methodBodyContent.add(astNodeCreator
-                .createStatement(StatementType.DO, statementContent.get(0), doBody));
-    }
-
-    private List<ASTProtos.Statement> extractDoBody(DoStmt statement) {
-        List<ASTProtos.Statement> doBody = new ArrayList<>();
-        Statement body = statement.getBody();
-        body.accept(new MethodBodyStatementVisitor(), doBody);
-        return doBody;
-    }
-
-    private List<ASTProtos.Expression> extractCondition(DoStmt statement) {
-        List<ASTProtos.Expression> statementContent = new ArrayList<>();
-        Expression condition = statement.getCondition();
-        condition.accept(new MethodBodyExpressionVisitor(), statementContent);
-        return statementContent;
+                .createStatement(StatementType.DO, condition, doBody));
+        context.returnList(doBody);
     }
 
     @Override
     public void visit(ForStmt statement, List<ASTProtos.Statement> methodBodyContent) {
-        List<ASTProtos.Expression> compares = extractCompareExpression(statement);
-        List<ASTProtos.Expression> initializations = extractLoopInitializations(statement);
-        List<ASTProtos.Expression> updateContent = extractForLoopUpdates(statement);
-        List<ASTProtos.Statement> nestedStatements = extractLoopBody(statement);
+        List<ASTProtos.Expression> compares = context.borrowList();
+        statement.getCompare().ifPresent(compare -> compare.accept(context.getExpressionVisitor(), compares));
+        List<ASTProtos.Expression> initializations = context.borrowList();
+        extractExpressions(statement.getInitialization(), initializations);
+        List<ASTProtos.Expression> updateContent = context.borrowList();
+        extractExpressions(statement.getUpdate(), updateContent);
+        List<ASTProtos.Statement> nestedStatements = context.borrowList();
+        statement.getBody().accept(this, nestedStatements);
 
         methodBodyContent.add(astNodeCreator
                 .createStatement(StatementType.FOR, compares, ASTProtos.Expression.getDefaultInstance(), nestedStatements, initializations, updateContent));
+        context.returnList(nestedStatements);
+        context.returnList(updateContent);
+        context.returnList(initializations);
+        context.returnList(compares);
     }
 
-    private List<ASTProtos.Expression> extractCompareExpression(ForStmt statement) {
-        List<ASTProtos.Expression> compares = new ArrayList<>();
-        Optional<Expression> compare = statement.getCompare();
-        compare.ifPresent(expression -> expression.accept(new MethodBodyExpressionVisitor(), compares));
-        return compares;
+    private void extractExpressions(List<Expression> expressions, List<ASTProtos.Expression> content) {
+        for (Expression expression : expressions) {
+            expression.accept(context.getExpressionVisitor(), content);
+        }
     }
 
-    private List<ASTProtos.Expression> extractLoopInitializations(ForStmt statement) {
-        List<ASTProtos.Expression> initializations = new ArrayList<>();
-        List<Expression> initialization = statement.getInitialization();
-        for (Expression init : initialization) {
-            init.accept(new MethodBodyExpressionVisitor(), initializations);
-        }
-        return initializations;
+    @Override
+    public void visit(BlockStmt statement, List<ASTProtos.Statement> methodBodyContent) {
+        extractBlocks(statement.getStatements(), methodBodyContent);
     }
 
-    private List<ASTProtos.Expression> extractForLoopUpdates(ForStmt statement) {
-        List<ASTProtos.Expression> updateContent = new ArrayList<>();
-        List<Expression> updates = statement.getUpdate();
-        for (Expression update : updates) {
-            update.accept(new MethodBodyExpressionVisitor(), updateContent);
+    /**
+     * Converts each statement into a block of its own.
+     */
+    private void extractBlocks(NodeList<Statement> statements, List<ASTProtos.Statement> methodBodyContent) {
+        List<ASTProtos.Expression> statementContent = context.borrowList();
+        List<ASTProtos.Statement> nestedStatements = context.borrowList();
+        for (Statement stmt : statements) {
+            extractStatement(stmt, statementContent, nestedStatements);
+            methodBodyContent.add(astNodeCreator.createBlockStatement(statementContent, nestedStatements));
+            statementContent.clear();
+            nestedStatements.clear();
         }
-        return updateContent;
+        context.returnList(nestedStatements);
+        context.returnList(statementContent);
     }
 
-    private List<ASTProtos.Statement> extractLoopBody(ForStmt statement) {
-        Statement body = statement.getBody();
-        List<ASTProtos.Statement> nestedStatements = new ArrayList<>();
-        body.accept(new MethodBodyStatementVisitor(), nestedStatements);
-        return nestedStatements;
+    /**
+     * Converts an expression statement that is not part of a block, e.g., the body of a loop without braces.
+     */
+    @Override
+    public void visit(ExpressionStmt statement, List<ASTProtos.Statement> methodBodyContent) {
+        List<ASTProtos.Expression> statementContent = context.borrowList();
+        statement.getExpression().accept(context.getExpressionVisitor(), statementContent);
+        methodBodyContent.add(astNodeCreator.createBlockStatement(statementContent, Collections.emptyList()));
+        context.returnList(statementContent);
     }
 
+    /**
+     * Converts the loop into a FOR statement with the loop variable as initialization and the iterated expression
+     * as its expression.
+     */
     @Override
-    public void visit(BlockStmt statement, List<ASTProtos.Statement> methodBodyContent) {
-        for (Statement stmt : statement.getStatements()) {
-            List<ASTProtos.Expression> statementContent = new ArrayList<>();
-            List<ASTProtos.Statement> statements = new ArrayList<>();
-            if (stmt.isExpressionStmt()) {
-                stmt.asExpressionStmt().accept(new MethodBodyExpressionVisitor(), statementContent);
-            } else {
-                stmt.accept(new MethodBodyStatementVisitor(), statements);
-            }
-            methodBodyContent.add(astNodeCreator.createBlockStatement(statementContent, statements));
+    public void visit(ForeachStmt statement, List<ASTProtos.Statement> methodBodyContent) {
+        List<ASTProtos.Expression> iterable = context.borrowList();
+        statement.getIterable().accept(context.getExpressionVisitor(), iterable);
+        List<ASTProtos.Expression> variable = context.borrowList();
+        statement.getVariable().accept(context.getExpressionVisitor(), variable);
+        List<ASTProtos.Statement> nestedStatements = context.borrowList();
+        statement.getBody().accept(this, nestedStatements);
+
+        methodBodyContent.add(astNodeCreator
+                .createStatement(StatementType.FOR, iterable, ASTProtos.Expression.getDefaultInstance(), nestedStatements, variable, Collections.emptyList()));
+        context.returnList(nestedStatements);
+        context.returnList(variable);
+        context.returnList(iterable);
+    }
+
+    /**
+     * Converts the switch into an OTHER statement with the selector as condition, and each entry into a nested OTHER
+     * statement with its label, if any, as condition and its statements as blocks.
+     */
+    @Override
+    public void visit(SwitchStmt statement, List<ASTProtos.Statement> methodBodyContent) {
+        ASTProtos.Expression selector = extractCondition(statement.getSelector());
+        List<ASTProtos.Statement> entries = context.borrowList();
+        for (SwitchEntryStmt entry : statement.getEntries()) {
+            entry.accept(this, entries);
         }
+
+        methodBodyContent.add(astNodeCreator
+                .createStatement(StatementType.OTHER, selector, entries));
+        context.returnList(entries);
     }
 
     @Override
-    public void visit(TryStmt statement, List<ASTProtos.Statement> methodBodyContent) {
-        List<ASTProtos.Statement> tryBody = new ArrayList<>();
-        statement.getTryBlock().accept(new MethodBodyStatementVisitor(), tryBody);
+    public void visit(SwitchEntryStmt statement, List<ASTProtos.Statement> methodBodyContent) {
+        ASTProtos.Expression label = statement.getLabel().isPresent()
+                ? extractCondition(statement.getLabel().get())
+                : ASTProtos.Expression.getDefaultInstance();
+        List<ASTProtos.Statement> entryBody = context.borrowList();
+        extractBlocks(statement.getStatements(), entryBody);
 
         methodBodyContent.add(astNodeCreator
-                .createTryStatement(tryBody));
+                .createStatement(StatementType.OTHER, label, entryBody));
+        context.returnList(entryBody);
     }
 
     @Override
-    public void visit(WhileStmt statement, List<ASTProtos.Statement> methodBodyContent) {
-        List<ASTProtos.Statement> bodyStatements = extractLoopBody(statement);
-        List<ASTProtos.Expression> statementContent = extractLoopCondition(statement);
+    public void visit(SynchronizedStmt statement, List<ASTProtos.Statement> methodBodyContent) {
+        ASTProtos.Expression lock = extractCondition(statement.getExpression());
+        List<ASTProtos.Statement> body = context.borrowList();
+        statement.getBody().accept(this, body);
 
         methodBodyContent.add(astNodeCreator
-                .createStatement(StatementType.WHILE, statementContent.get(0), bodyStatements));
+                .createStatement(StatementType.OTHER, lock, body));
+        context.returnList(body);
     }
 
-    private List<ASTProtos.Expression> extractLoopCondition(WhileStmt statement) {
-        Expression condition = statement.getCondition();
-        List<ASTProtos.Expression> statementContent = new ArrayList<>();
-        condition.accept(new MethodBodyExpressionVisitor(), statementContent);
-        return statementContent;
+    @Override
+    public void visit(ThrowStmt statement, List<ASTProtos.Statement> methodBodyContent) {
+        List<ASTProtos.Expression> thrown = context.borrowList();
+        statement.getExpression().accept(context.getExpressionVisitor(), thrown);
+
+        methodBodyContent.add(astNodeCreator
+                .createStatement(StatementType.OTHER, ASTProtos.Expression.getDefaultInstance(), Collections.emptyList(), thrown));
+        context.returnList(thrown);
     }
 
-    private List<ASTProtos.Statement> extractLoopBody(WhileStmt statement) {
-        List<ASTProtos.Statement> bodyStatements = new ArrayList<>();
-        Statement body = statement.getBody();
-        body.accept(new MethodBodyStatementVisitor(), bodyStatements);
-        return bodyStatements;
+    @Override
+    public void visit(AssertStmt statement, List<ASTProtos.Statement> methodBodyContent) {
+        ASTProtos.Expression check = extractCondition(statement.getCheck());
+        List<ASTProtos.Expression> message = context.borrowList();
+        statement.getMessage().ifPresent(expression -> expression.accept(context.getExpressionVisitor(), message));
+
+        methodBodyContent.add(astNodeCreator
+                .createStatement(StatementType.OTHER, check, Collections.emptyList(), message));
+        context.returnList(message);
+    }
+
+    @Override
+    public void visit(ExplicitConstructorInvocationStmt statement, List<ASTProtos.Statement> methodBodyContent) {
+        List<ASTProtos.Expression> arguments = context.borrowList();
+        extractExpressions(statement.getArguments(), arguments);
+
+        methodBodyContent.add(astNodeCreator
+                .createStatement(StatementType.OTHER, ASTProtos.Expression.getDefaultInstance(), Collections.emptyList(), arguments));
+        context.returnList(arguments);
+    }
+
+    @Override
+    public void visit(BreakStmt statement, List<ASTProtos.Statement> methodBodyContent) {
+        methodBodyContent.add(astNodeCreator
+                .createStatement(StatementType.OTHER, ASTProtos.Expression.getDefaultInstance(), Collections.emptyList()));
+    }
+
+    @Override
+    public void visit(ContinueStmt statement, List<ASTProtos.Statement> methodBodyContent) {
+        methodBodyContent.add(astNodeCreator
+                .createStatement(StatementType.OTHER, ASTProtos.Expression.getDefaultInstance(), Collections.emptyList()));
+    }
+
+    @Override
+    public void visit(LabeledStmt statement, List<ASTProtos.Statement> methodBodyContent) {
+        statement.getStatement().accept(this, methodBodyContent);
+    }
+
+    @Override
+    public void visit(LocalClassDeclarationStmt statement, List<ASTProtos.Statement> methodBodyContent) {}
+
+    @Override
+    public void visit(EmptyStmt statement, List<ASTProtos.Statement> methodBodyContent) {}
+
+    @Override
+    public void visit(UnparsableStmt statement, List<ASTProtos.Statement> methodBodyContent) {}
+
+    /**
+     * Converts the try block into the blocks of a TRY statement with the resources as initializations, followed by
+     * a nested OTHER statement per catch clause, with the caught parameter as initialization, and a nested OTHER
+     * statement without initializations for the finally block.
+     */
+    @Override
+    public void visit(TryStmt statement, List<ASTProtos.Statement> methodBodyContent) {
+        List<ASTProtos.Expression> resources = context.borrowList();
+        extractExpressions(statement.getResources(), resources);
+        List<ASTProtos.Statement> tryBody = context.borrowList();
+        statement.getTryBlock().accept(this, tryBody);
+        for (CatchClause catchClause : statement.getCatchClauses()) {
+            extractCatchClause(catchClause, tryBody);
+        }
+        statement.getFinallyBlock().ifPresent(finallyBlock -> extractFinallyBlock(finallyBlock, tryBody));
+
+        methodBodyContent.add(astNodeCreator
+                .createStatement(StatementType.TRY, Collections.emptyList(), ASTProtos.Expression.getDefaultInstance(), tryBody, resources, Collections.emptyList()));
+        context.returnList(tryBody);
+        context.returnList(resources);
+    }
+
+    private void extractCatchClause(CatchClause catchClause, List<ASTProtos.Statement> tryBody) {
+        Parameter parameter = catchClause.getParameter();
+        List<ASTProtos.Modifier> modifiers = context.borrowList();
+        context.getTypeConverter().convertModifiers(parameter.getModifiers(), modifiers);
+        String name = context.intern(parameter.getNameAsString());
+        ASTProtos.Variable variable = astNodeCreator.createVariable(name, context.intern(parameter.getType().asString()), modifiers);
+        // createVarDeclarationExpression() leaves out the variable, and with it the caught type
+        ASTProtos.Expression caught = astNodeCreator.createExpression(ExpressionType.VARIABLE_DECLARATION, "", name,
+                Collections.singletonList(variable), Collections.emptyList(), ASTProtos.Type.getDefaultInstance(), Collections.emptyList());
+        List<ASTProtos.Statement> catchBody = context.borrowList();
+        catchClause.getBody().accept(this, catchBody);
+
+        tryBody.add(astNodeCreator
+                .createStatement(StatementType.OTHER, Collections.emptyList(), ASTProtos.Expression.getDefaultInstance(), catchBody, Collections.singletonList(caught), Collections.emptyList()));
+        context.returnList(catchBody);
+        context.returnList(modifiers);
+    }
+
+    private void extractFinallyBlock(BlockStmt finallyBlock, List<ASTProtos.Statement> tryBody) {
+        List<ASTProtos.Statement> finallyBody = context.borrowList();
+        finallyBlock.accept(this, finallyBody);
+
+        tryBody.add(astNodeCreator
+                .createStatement(StatementType.OTHER, ASTProtos.Expression.getDefaultInstance(), finallyBody));
+        context.returnList(finallyBody);
+    }
+
+    @Override
+    public void visit(WhileStmt statement, List<ASTProtos.Statement> methodBodyContent) {
+        List<ASTProtos.Statement> bodyStatements = context.borrowList();
+        statement.getBody().accept(this, bodyStatements);
+        ASTProtos.Expression condition = extractCondition(statement.getCondition());
+
+        methodBodyContent.add(astNodeCreator
+                .createStatement(StatementType.WHILE, condition, bodyStatements));
+        context.returnList(bodyStatements);
     }
 }
@@ -8,10 +8,12 @@ import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import joelbits.model.ast.protobuf.ASTProtos;
 import joelbits.model.ast.protobuf.ASTProtos.Method;
 import joelbits.model.ast.protobuf.ASTProtos.Variable;
+import joelbits.modules.preprocessing.plugins.filter.BenchmarkIndex;
+import joelbits.modules.preprocessing.plugins.fingerprint.StructuralFingerprinter;
+import joelbits.modules.preprocessing.plugins.types.ExtractionDepth;
 import joelbits.modules.preprocessing.plugins.utils.TypeConverter;
 import joelbits.modules.preprocessing.utils.ASTNodeCreator;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -19,50 +21,84 @@ import java.util.List;
  * A visitor parsing data from the loaded class on a method level.
  */
 public final class MethodVisitor extends VoidVisitorAdapter<List<Method>> {
-    private final ASTNodeCreator astNodeCreator = new ASTNodeCreator();
-    private final TypeConverter typeConverter = new TypeConverter();
+    private final VisitorContext context;
+    private final ASTNodeCreator astNodeCreator;
+    private final TypeConverter typeConverter;
+    private final StructuralFingerprinter fingerprinter = new StructuralFingerprinter();
+
+    public MethodVisitor() {
+        this(VisitorContext.current());
+    }
+
+    MethodVisitor(VisitorContext context) {
+        this.context = context;
+        this.astNodeCreator = context.getAstNodeCreator();
+        this.typeConverter = context.getTypeConverter();
+    }
 
     @Override
     public void visit(MethodDeclaration method, List<Method> methods) {
-        List<ASTProtos.Modifier> methodModifiers = new ArrayList<>();
+        ExtractionDepth extractionDepth = context.getOptions().getExtractionDepth();
+        List<ASTProtos.Modifier> methodModifiers = context.borrowList();
         createModifiers(method, methodModifiers);
-        createAnnotations(method, methodModifiers);
+        if (extractionDepth.includesAnnotations()) {
+            createAnnotations(method, methodModifiers);
+        }
 
-        List<Variable> arguments = createArguments(method);
-        List<ASTProtos.Statement> bodyContent = createBody(method);
+        List<Variable> arguments = context.borrowList();
+        createArguments(method, arguments);
+        List<ASTProtos.Statement> bodyContent = context.borrowList();
+        if (extractionDepth.includesBodies()) {
+            createBody(method, bodyContent);
+        }
 
-        methods.add(astNodeCreator.createMethod(methodModifiers, method.getNameAsString(), method.getType().asString(), arguments, Collections.emptyList(), bodyContent));
+        Method created = astNodeCreator.createMethod(methodModifiers, context.intern(method.getNameAsString()), context.intern(method.getType().asString()), arguments, Collections.emptyList(), bodyContent);
+        if (context.getOptions().isFingerprints() && method.getBody().isPresent() && isBenchmark(method)) {
+            created = fingerprinter.fingerprint(method.getBody().get()).attachTo(created);
+        }
+        methods.add(created);
+        context.returnList(bodyContent);
+        context.returnList(arguments);
+        context.returnList(methodModifiers);
     }
 
     private void createModifiers(MethodDeclaration method, List<ASTProtos.Modifier> methodModifiers) {
         for (Modifier modifier : method.getModifiers()) {
-            ASTProtos.Modifier visibility = astNodeCreator.createModifier(modifier.name());
-            methodModifiers.add(visibility);
+            methodModifiers.add(typeConverter.convertModifier(modifier));
         }
     }
 
     private void createAnnotations(MethodDeclaration method, List<ASTProtos.Modifier> methodModifiers) {
         for (AnnotationExpr annotationExpr : method.getAnnotations()) {
             List<String> annotationMembers = typeConverter.convertAnnotationMembers(annotationExpr);
-            methodModifiers.add(astNodeCreator.createAnnotationModifier(annotationExpr.getNameAsString(), annotationMembers));
+            methodModifiers.add(astNodeCreator.createAnnotationModifier(context.intern(annotationExpr.getNameAsString()), annotationMembers));
         }
     }
 
-    private List<Variable> createArguments(MethodDeclaration method) {
-        List<Variable> arguments = new ArrayList<>();
+    private void createArguments(MethodDeclaration method, List<Variable> arguments) {
+        List<ASTProtos.Modifier> argumentModifiers = context.borrowList();
         for (Parameter parameter : method.getParameters()) {
-            List<ASTProtos.Modifier> argumentModifiers = typeConverter.convertModifiers(parameter.getModifiers());
+            typeConverter.convertModifiers(parameter.getModifiers(), argumentModifiers);
             arguments.add(astNodeCreator
-                    .createVariable(parameter.getNameAsString(), parameter.getType().asString(), argumentModifiers));
+                    .createVariable(context.intern(parameter.getNameAsString()), context.intern(parameter.getType().asString()), argumentModifiers));
+            argumentModifiers.clear();
+        }
+        context.returnList(argumentModifiers);
+    }
+
+    private boolean isBenchmark(MethodDeclaration method) {
+        for (AnnotationExpr annotation : method.getAnnotations()) {
+            if (annotation.getName().getIdentifier().equals("Benchmark")) {
+                boolean importsJmh = method.findCompilationUnit().map(BenchmarkIndex::importsJmh).orElse(false);
+                return BenchmarkIndex.isJmhAnnotation(annotation, importsJmh);
+            }
         }
-        return arguments;
+        return false;
     }
 
-    private List<ASTProtos.Statement> createBody(MethodDeclaration method) {
-        List<ASTProtos.Statement> bodyContent = new ArrayList<>();
+    private void createBody(MethodDeclaration method, List<ASTProtos.Statement> bodyContent) {
         if (method.getBody().isPresent()) {
-            method.getBody().get().accept(new MethodBodyStatementVisitor(), bodyContent);
+            method.getBody().get().accept(context.getStatementVisitor(), bodyContent);
         }
-        return bodyContent;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,113 @@
+package joelbits.modules.preprocessing.plugins.visitors;
+
+import joelbits.modules.preprocessing.plugins.ParserOptions;
+import joelbits.modules.preprocessing.plugins.symbols.StringPool;
+import joelbits.modules.preprocessing.plugins.utils.ExpressionPrinter;
+import joelbits.modules.preprocessing.plugins.utils.TypeConverter;
+import joelbits.modules.preprocessing.utils.ASTNodeCreator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The visitors, converters and scratch lists used for converting compilation units on one thread. The visitors
+ * of a context keep no state between visits, so the same instances are reused for every node of every file
+ * parsed on the thread. Temporary lists are borrowed from a pool instead of being allocated for each node.
+ */
+public final class VisitorContext {
+    private static final ASTNodeCreator AST_NODE_CREATOR = new ASTNodeCreator();
+    private static final TypeConverter TYPE_CONVERTER = new TypeConverter();
+    private static final ExpressionPrinter EXPRESSION_PRINTER = new ExpressionPrinter();
+    private static final ThreadLocal<VisitorContext> CONTEXTS = ThreadLocal.withInitial(VisitorContext::new);
+
+    private final MethodBodyExpressionVisitor expressionVisitor = new MethodBodyExpressionVisitor(this);
+    private final MethodBodyStatementVisitor statementVisitor = new MethodBodyStatementVisitor(this);
+    private final MethodVisitor methodVisitor = new MethodVisitor(this);
+    private final FieldVisitor fieldVisitor = new FieldVisitor(this);
+    private final DeclarationModifierVisitor declarationModifierVisitor = new DeclarationModifierVisitor(this);
+    private final ImportVisitor importVisitor = new ImportVisitor();
+    private final List<List<?>> freeLists = new ArrayList<>();
+    private ParserOptions options = ParserOptions.defaults();
+
+    private VisitorContext() {}
+
+    /**
+     * @return    the context of the current thread
+     */
+    public static VisitorContext current() {
+        return CONTEXTS.get();
+    }
+
+    /**
+     * Applies the settings of the parser that is about to convert a compilation unit on this thread.
+     */
+    public VisitorContext configure(ParserOptions options) {
+        this.options = options;
+        return this;
+    }
+
+    public ParserOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * @return    the name as held by the string pool of the parser, or the name itself if names are not interned
+     */
+    String intern(String name) {
+        StringPool stringPool = options.getStringPool();
+        return stringPool == null ? name : stringPool.intern(name);
+    }
+
+    public ASTNodeCreator getAstNodeCreator() {
+        return AST_NODE_CREATOR;
+    }
+
+    public TypeConverter getTypeConverter() {
+        return TYPE_CONVERTER;
+    }
+
+    public ExpressionPrinter getExpressionPrinter() {
+        return EXPRESSION_PRINTER;
+    }
+
+    public MethodBodyExpressionVisitor getExpressionVisitor() {
+        return expressionVisitor;
+    }
+
+    public MethodBodyStatementVisitor getStatementVisitor() {
+        return statementVisitor;
+    }
+
+    public MethodVisitor getMethodVisitor() {
+        return methodVisitor;
+    }
+
+    public FieldVisitor getFieldVisitor() {
+        return fieldVisitor;
+    }
+
+    public DeclarationModifierVisitor getDeclarationModifierVisitor() {
+        return declarationModifierVisitor;
+    }
+
+    public ImportVisitor getImportVisitor() {
+        return importVisitor;
+    }
+
+    /**
+     * Borrows an empty list from the pool. The list must only be used for temporary content, e.g., content that is
+     * copied into a protobuf message, and must be handed back with returnList() when it is no longer used.
+     */
+    @SuppressWarnings("unchecked")
+    <T> List<T> borrowList() {
+        if (freeLists.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return (List<T>) freeLists.remove(freeLists.size() - 1);
+    }
+
+    void returnList(List<?> list) {
+        list.clear();
+        freeLists.add(list);
+    }
+}
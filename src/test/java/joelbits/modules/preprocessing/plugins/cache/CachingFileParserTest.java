@@ -0,0 +1,45 @@
+package joelbits.modules.preprocessing.plugins.cache;
+
+import joelbits.modules.preprocessing.plugins.JavaParser;
+import joelbits.modules.preprocessing.plugins.ParserOptions;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class CachingFileParserTest {
+    @Test
+    public void partialAstsOfATolerantParserAreNotCached() throws Exception {
+        JavaParser javaParser = new JavaParser(ParserOptions.defaults().withTolerantParsing(true));
+        ParseCache cache = new ParseCache(1024 * 1024);
+        CachingFileParser parser = new CachingFileParser(javaParser, javaParser.getCacheVersion(), cache);
+
+        parser.parse(source("Broken", "public class Broken { int broken = ; int valid = 1; }"));
+        assertEquals(0, cache.getMemoryEntries());
+
+        parser.parse(source("Valid", "public class Valid { int valid = 1; }"));
+        assertEquals(1, cache.getMemoryEntries());
+    }
+
+    @Test
+    public void cacheVersionCoversTheBudgets() {
+        ParserOptions tolerant = ParserOptions.defaults().withTolerantParsing(true);
+        String version = new JavaParser(tolerant).getCacheVersion();
+        assertFalse(version.equals(new JavaParser(tolerant.withMaxSourceBytes(1024)).getCacheVersion()));
+        assertFalse(version.equals(new JavaParser(tolerant.withTimeBudget(Duration.ofSeconds(1))).getCacheVersion()));
+    }
+
+    private static File source(String className, String content) throws Exception {
+        File directory = Files.createTempDirectory("caching-file-parser").toFile();
+        directory.deleteOnExit();
+        File file = new File(directory, className + ".java");
+        file.deleteOnExit();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,70 @@
+package joelbits.modules.preprocessing.plugins.daemon;
+
+import joelbits.modules.preprocessing.plugins.JavaParser;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ParseDaemonTest {
+    private static final byte[] SOURCE = "package p;\n\nclass A { int a = 1; }\n".getBytes(StandardCharsets.UTF_8);
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static Path tokenDirectory;
+    private static ParseDaemon daemon;
+
+    @BeforeClass
+    public static void startDaemon() throws IOException {
+        tokenDirectory = Files.createTempDirectory("parse-daemon-test").resolve("tokens");
+        daemon = new ParseDaemon(new JavaParser(), 0, 1, tokenDirectory).start();
+    }
+
+    @AfterClass
+    public static void stopDaemon() throws IOException {
+        daemon.close();
+        Files.deleteIfExists(tokenDirectory);
+        Files.deleteIfExists(tokenDirectory.getParent());
+    }
+
+    @Test
+    public void servesClientsWithTheToken() throws Exception {
+        try (DaemonClient client = DaemonClient.connect(daemon.getPort(), daemon.getTokenFile(), TIMEOUT)) {
+            assertArrayEquals(new JavaParser().parse(SOURCE, "A.java", "r1"), client.parse(SOURCE, "A.java", "r1"));
+        }
+    }
+
+    @Test
+    public void closesConnectionsWithoutTheToken() throws Exception {
+        Path wrongToken = Files.createTempFile("wrong", ".token");
+        try {
+            Files.write(wrongToken, new byte[DaemonProtocol.TOKEN_BYTES]);
+            try (DaemonClient client = DaemonClient.connect(daemon.getPort(), wrongToken, TIMEOUT)) {
+                client.parse(SOURCE, "A.java", "r1");
+                fail("The daemon served a client without its token");
+            } catch (IOException expected) {
+                // the daemon closed the connection
+            }
+        } finally {
+            Files.delete(wrongToken);
+        }
+    }
+
+    @Test
+    public void onlyTheUserCanReadTheToken() throws IOException {
+        if (!tokenDirectory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            return;
+        }
+        assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenDirectory)));
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(daemon.getTokenFile())));
+        assertEquals(DaemonProtocol.TOKEN_BYTES, Files.size(daemon.getTokenFile()));
+    }
+}
@@ -0,0 +1,106 @@
+package joelbits.modules.preprocessing.plugins.git;
+
+import joelbits.modules.preprocessing.plugins.JavaParser;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Reads history.git, created by create-history.sh, whose objects are loose and packed with both offset and
+ * reference deltas, and whose branch and annotated tag are packed references.
+ */
+public class GitHistoryParserTest {
+    private final JavaParser parser = new JavaParser();
+
+    @Test
+    public void reportsTheChangedBenchmarkFilesOfEachCommit() throws Exception {
+        List<ParsedBlob> results = new ArrayList<>();
+        GitHistoryParser historyParser = parseHistory("master", GitHistoryParser.DEFAULT_MAX_CACHED_BYTES, results);
+
+        assertEquals(6, historyParser.getCommits());
+        assertEquals(7, historyParser.getParsedBlobs());
+        assertEquals(2, historyParser.getReusedBlobs());
+        // newest commit first, the last commit only removes a file
+        assertEquals(Arrays.asList(
+                "src/bench/Other.java", "src/bench/SampleBench.java",
+                "src/bench/SampleBench.java",
+                "src/bench/Deep.java",
+                "src/bench/SampleBench.java", "src/copy/SampleBench.java",
+                "src/bench/SampleBench.java"), paths(results));
+
+        int[] factors = {3, 3, 1, 0, 2, 2, 1};
+        for (int i = 0; i < results.size(); i++) {
+            ParsedBlob result = results.get(i);
+            if (result.getPath().endsWith("Deep.java")) {
+                assertFalse(result.isSuccessful());
+                assertTrue(result.getFailure().getCause() instanceof StackOverflowError);
+                continue;
+            }
+            String className = result.getPath().endsWith("Other.java") ? "OtherBench" : "SampleBench";
+            byte[] source = benchmark(className, factors[i]).getBytes(StandardCharsets.UTF_8);
+            assertArrayEquals(parser.parse(source, result.getPath(), result.getCommit().toString()), result.getAst());
+        }
+    }
+
+    @Test
+    public void parsesReappearingBlobsAgainOnceEvicted() throws Exception {
+        List<ParsedBlob> results = new ArrayList<>();
+        GitHistoryParser historyParser = parseHistory("master", 1, results);
+
+        assertEquals(7, results.size());
+        assertEquals(9, historyParser.getParsedBlobs());
+        assertEquals(0, historyParser.getReusedBlobs());
+    }
+
+    @Test
+    public void walksFromAnAnnotatedTag() throws Exception {
+        List<ParsedBlob> results = new ArrayList<>();
+        GitHistoryParser historyParser = parseHistory("v1", GitHistoryParser.DEFAULT_MAX_CACHED_BYTES, results);
+
+        assertEquals(3, historyParser.getCommits());
+        assertEquals(Arrays.asList(
+                "src/bench/Deep.java",
+                "src/bench/SampleBench.java", "src/copy/SampleBench.java",
+                "src/bench/SampleBench.java"), paths(results));
+        assertEquals(1, historyParser.getReusedBlobs());
+    }
+
+    private GitHistoryParser parseHistory(String revision, long maxCachedBytes, List<ParsedBlob> results) throws Exception {
+        Path directory = Paths.get(GitHistoryParserTest.class.getResource("/git/history.git").toURI());
+        try (GitRepository repository = new GitRepository(directory)) {
+            GitHistoryParser historyParser = new GitHistoryParser(repository, parser, maxCachedBytes);
+            historyParser.parseHistory(revision, results::add);
+            return historyParser;
+        }
+    }
+
+    private static List<String> paths(List<ParsedBlob> results) {
+        return results.stream().map(ParsedBlob::getPath).collect(Collectors.toList());
+    }
+
+    /**
+     * @return    the same source as benchmark() in create-history.sh
+     */
+    private static String benchmark(String className, int factor) {
+        StringBuilder source = new StringBuilder("package bench;\n\nimport org.openjdk.jmh.annotations.Benchmark;\n\n")
+                .append("public class ").append(className).append(" {\n");
+        for (int i = 0; i < 40; i++) {
+            source.append("    @Benchmark\n")
+                    .append("    public int measure").append(i).append("() {\n")
+                    .append("        return ").append(i).append(" * ").append(factor).append(";\n")
+                    .append("    }\n");
+        }
+        return source.append("}\n").toString();
+    }
+}
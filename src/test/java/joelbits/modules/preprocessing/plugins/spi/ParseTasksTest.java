@@ -0,0 +1,74 @@
+package joelbits.modules.preprocessing.plugins.spi;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ParseTasksTest {
+    @Test
+    public void errorsBecomeFailedResults() {
+        FileParser parser = new TestParser() {
+            @Override
+            public byte[] parse(File file) {
+                throw new StackOverflowError();
+            }
+        };
+        List<FileParseResult> results = parser.parse(Arrays.asList(new File("A.java"), new File("B.java")), Runnable::run);
+
+        assertEquals(2, results.size());
+        for (FileParseResult result : results) {
+            assertFalse(result.isSuccessful());
+            assertTrue(result.getFailure().getCause() instanceof StackOverflowError);
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void boundsTheTasksInFlight() throws Exception {
+        int maxInFlight = ParseTasks.MAX_IN_FLIGHT_PER_PROCESSOR * Runtime.getRuntime().availableProcessors();
+        AtomicInteger taken = new AtomicInteger();
+        AtomicInteger mostTakenAhead = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        FileParser parser = new TestParser() {
+            @Override
+            public byte[] parse(File file) throws InterruptedException {
+                Thread.sleep(1);
+                return new byte[0];
+            }
+        };
+
+        ConcurrentLinkedQueue<FileParseResult> results = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            parser.parse(IntStream.range(0, 500).mapToObj(i -> {
+                mostTakenAhead.accumulateAndGet(taken.incrementAndGet() - completed.get(), Math::max);
+                return new File(i + ".java");
+            }), executor, result -> {
+                results.add(result);
+                completed.incrementAndGet();
+            });
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(500, results.size());
+        assertTrue(String.valueOf(mostTakenAhead.get()), mostTakenAhead.get() <= maxInFlight + 1);
+    }
+
+    private abstract static class TestParser implements FileParser {
+        @Override
+        public boolean hasBenchmarks(File file) {
+            return true;
+        }
+    }
+}
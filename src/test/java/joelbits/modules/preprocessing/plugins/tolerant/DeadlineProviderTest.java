@@ -0,0 +1,42 @@
+package joelbits.modules.preprocessing.plugins.tolerant;
+
+import com.github.javaparser.Providers;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DeadlineProviderTest {
+    @Test
+    public void inputIsLeftOutOnceTheDeadlineHasPassed() throws IOException {
+        DeadlineProvider provider = new DeadlineProvider(Providers.provider("class A {}"), System.nanoTime() - 1);
+        assertEquals(-1, provider.read(new char[100], 0, 100));
+        assertTrue(provider.isExpired());
+    }
+
+    @Test
+    public void endOfInputAfterTheDeadlineIsNotExpired() throws Exception {
+        String source = "class A {}";
+        DeadlineProvider provider = new DeadlineProvider(Providers.provider(source), System.nanoTime() + 50_000_000L);
+        char[] buffer = new char[100];
+        assertEquals(source.length(), provider.read(buffer, 0, buffer.length));
+        Thread.sleep(100);
+
+        assertEquals(-1, provider.read(buffer, 0, buffer.length));
+        assertFalse(provider.isExpired());
+    }
+
+    @Test
+    public void inputIsReadInChunks() throws IOException {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            source.append("int field").append(i).append(";\n");
+        }
+        DeadlineProvider provider = new DeadlineProvider(Providers.provider(source.toString()), System.nanoTime() + 60_000_000_000L);
+        char[] buffer = new char[source.length()];
+        assertEquals(DeadlineProvider.CHUNK_CHARS, provider.read(buffer, 0, buffer.length));
+    }
+}
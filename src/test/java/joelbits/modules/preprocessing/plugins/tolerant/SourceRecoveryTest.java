@@ -0,0 +1,72 @@
+package joelbits.modules.preprocessing.plugins.tolerant;
+
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParseStart;
+import com.github.javaparser.Providers;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import joelbits.modules.preprocessing.plugins.types.LanguageLevel;
+import joelbits.modules.preprocessing.plugins.utils.ParserPool;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class SourceRecoveryTest {
+    private static final String BROKEN_MEMBER = "    int broken = ;\n";
+
+    @Test
+    public void recoveredNodesKeepTheirPositionsInTheSource() {
+        String source = source(20, BROKEN_MEMBER);
+        List<ParseDiagnostic> diagnostics = new ArrayList<>();
+        CompilationUnit recovered = recover(source, diagnostics);
+
+        // the same source with the broken member left out, keeping the lines of all other members
+        CompilationUnit strict = parse(source(20, "\n")).getResult().get();
+        assertEquals(ranges(strict), ranges(recovered));
+        assertEquals(1, diagnostics.stream().filter(diagnostic -> diagnostic.getMessage().startsWith("Skipped")).count());
+    }
+
+    @Test(timeout = 30000)
+    public void recoversLargeFileWithOneErrorInLinearTime() {
+        int members = 8000;
+        String source = source(members, BROKEN_MEMBER);
+        CompilationUnit recovered = recover(source, new ArrayList<>());
+
+        ClassOrInterfaceDeclaration declaration = recovered.getClassByName("Large").get();
+        assertEquals(members, declaration.getMembers().size());
+        assertEquals(members * 2 + 4, declaration.getMember(members - 1).getRange().get().begin.line);
+    }
+
+    private static String source(int members, String brokenMember) {
+        StringBuilder source = new StringBuilder("package p;\n\nimport java.util.List;\n\npublic class Large {\n");
+        for (int i = 0; i < members; i++) {
+            source.append("    @Deprecated\n")
+                    .append("    public int method").append(i).append("(int value) {\treturn value + ").append(i).append("; }\n");
+        }
+        return source.append(brokenMember).append("}\n\nclass Other { int field = 1; }\n").toString();
+    }
+
+    private static CompilationUnit recover(String source, List<ParseDiagnostic> diagnostics) {
+        return new SourceRecovery(LanguageLevel.JAVA_8).recover(source, parse(source), 0, diagnostics);
+    }
+
+    private static ParseResult<CompilationUnit> parse(String source) {
+        return ParserPool.parser(LanguageLevel.JAVA_8).parse(ParseStart.COMPILATION_UNIT, Providers.provider(source));
+    }
+
+    /**
+     * @return    the kind and range of every node below the types, whose own ranges end at the recovered members
+     */
+    private static List<String> ranges(CompilationUnit compilationUnit) {
+        List<String> ranges = new ArrayList<>();
+        compilationUnit.walk(node -> {
+            if (!(node instanceof CompilationUnit) && !(node instanceof ClassOrInterfaceDeclaration)) {
+                ranges.add(node.getClass().getSimpleName() + node.getRange().map(Object::toString).orElse(""));
+            }
+        });
+        return ranges;
+    }
+}
@@ -0,0 +1,76 @@
+package joelbits.modules.preprocessing.plugins.visitors;
+
+import joelbits.model.ast.protobuf.ASTProtos.ASTRoot;
+import joelbits.model.ast.protobuf.ASTProtos.Expression;
+import joelbits.model.ast.protobuf.ASTProtos.Expression.ExpressionType;
+import joelbits.model.ast.protobuf.ASTProtos.Statement;
+import joelbits.model.ast.protobuf.ASTProtos.Statement.StatementType;
+import joelbits.modules.preprocessing.plugins.JavaParser;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class MethodBodyStatementVisitorTest {
+    @Test
+    public void convertsTheResourcesCatchClausesAndFinallyBlockOfTry() throws Exception {
+        Statement tryStatement = firstStatement(
+                "try (java.io.Reader reader = open(); java.io.Writer writer = create()) {\n"
+                        + "    reader.read();\n"
+                        + "} catch (final IllegalStateException | java.io.IOException e) {\n"
+                        + "    fail(e);\n"
+                        + "    retry();\n"
+                        + "} catch (RuntimeException e) {\n"
+                        + "} finally {\n"
+                        + "    close();\n"
+                        + "}\n");
+
+        assertEquals(StatementType.TRY, tryStatement.getType());
+        assertEquals(2, tryStatement.getInitializationsCount());
+        assertEquals("reader", tryStatement.getInitializations(0).getVariable());
+        assertEquals("writer", tryStatement.getInitializations(1).getVariable());
+        assertEquals(4, tryStatement.getStatementsCount());
+        assertEquals(StatementType.BLOCK, tryStatement.getStatements(0).getType());
+
+        Statement firstCatch = tryStatement.getStatements(1);
+        assertEquals(StatementType.OTHER, firstCatch.getType());
+        Expression caught = firstCatch.getInitializations(0);
+        assertEquals(ExpressionType.VARIABLE_DECLARATION, caught.getType());
+        assertEquals("e", caught.getVariable());
+        assertEquals("IllegalStateException|java.io.IOException", caught.getVariableDeclarations(0).getType().getName());
+        assertEquals(1, caught.getVariableDeclarations(0).getModifiersCount());
+        assertEquals(2, firstCatch.getStatementsCount());
+
+        Statement secondCatch = tryStatement.getStatements(2);
+        assertEquals(1, secondCatch.getInitializationsCount());
+        assertEquals(0, secondCatch.getStatementsCount());
+
+        Statement finallyBlock = tryStatement.getStatements(3);
+        assertEquals(StatementType.OTHER, finallyBlock.getType());
+        assertEquals(0, finallyBlock.getInitializationsCount());
+        assertEquals(1, finallyBlock.getStatementsCount());
+        assertEquals("close", finallyBlock.getStatements(0).getExpressions(0).getMethod());
+    }
+
+    @Test
+    public void convertsTryWithoutCatchClausesAsItsBlock() throws Exception {
+        Statement tryStatement = firstStatement("try {\n    run();\n    run();\n} finally {\n}\n");
+
+        assertEquals(StatementType.TRY, tryStatement.getType());
+        assertEquals(0, tryStatement.getInitializationsCount());
+        assertEquals(3, tryStatement.getStatementsCount());
+        assertEquals(StatementType.OTHER, tryStatement.getStatements(2).getType());
+    }
+
+    /**
+     * @return    the first statement of the body of the only method, which holds a single statement
+     */
+    private static Statement firstStatement(String body) throws Exception {
+        String source = "package sample;\n\nclass Sample {\n    void method() throws Exception {\n" + body + "    }\n}\n";
+        byte[] ast = new JavaParser().parse(source.getBytes(StandardCharsets.UTF_8), "Sample.java");
+        Statement block = ASTRoot.parseFrom(ast).getNamespaces(0).getDeclarations(0).getMethods(0).getStatements(0);
+        assertEquals(StatementType.BLOCK, block.getType());
+        return block.getStatements(0);
+    }
+}
@@ -0,0 +1,74 @@
+#!/bin/sh
+# Creates history.git, the bare repository read by GitHistoryParserTest. The objects of the first three commits are
+# packed with offset deltas, those of the next two with reference deltas, and the last commit is left loose. The
+# branch and the annotated tag v1 are packed references, HEAD is a loose reference to the branch.
+set -e
+cd "$(dirname "$0")"
+rm -rf history.git work
+git init -q --initial-branch=master work
+cd work
+export GIT_AUTHOR_NAME=Fixture GIT_AUTHOR_EMAIL=fixture@example.com GIT_COMMITTER_NAME=Fixture GIT_COMMITTER_EMAIL=fixture@example.com
+
+commit() {
+    export GIT_AUTHOR_DATE="$1 +0000" GIT_COMMITTER_DATE="$1 +0000"
+    git add -A
+    git commit -q -m "$2"
+}
+
+benchmark() {
+    mkdir -p "$(dirname "$1")"
+    {
+        echo "package bench;"
+        echo
+        echo "import org.openjdk.jmh.annotations.Benchmark;"
+        echo
+        echo "public class $2 {"
+        i=0
+        while [ $i -lt 40 ]; do
+            echo "    @Benchmark"
+            echo "    public int measure$i() {"
+            echo "        return $i * $3;"
+            echo "    }"
+            i=$((i + 1))
+        done
+        echo "}"
+    } > "$1"
+}
+
+benchmark src/bench/SampleBench.java SampleBench 1
+printf 'package other;\n\npublic class Plain {\n    int value = 1;\n}\n' > src/Plain.java
+echo "fixture" > README.txt
+commit "2020-01-01T00:00:00" "Add a benchmark"
+
+benchmark src/bench/SampleBench.java SampleBench 2
+mkdir -p src/copy
+cp src/bench/SampleBench.java src/copy/SampleBench.java
+commit "2020-01-02T00:00:00" "Change the benchmark and copy it"
+
+printf 'package other;\n\npublic class Plain {\n    int value = 2;\n}\n' > src/Plain.java
+{
+    printf 'package bench;\n\nimport org.openjdk.jmh.annotations.Benchmark;\n\npublic class Deep {\n    @Benchmark\n    public int measure() {\n        return '
+    awk 'BEGIN { for (i = 0; i < 50000; i++) printf "("; printf "1"; for (i = 0; i < 50000; i++) printf ")"; }'
+    printf ';\n    }\n}\n'
+} > src/bench/Deep.java
+commit "2020-01-03T00:00:00" "Add a deeply nested benchmark"
+git tag -a v1 -m "Version 1"
+git repack -q -a -d
+
+benchmark src/bench/SampleBench.java SampleBench 1
+commit "2020-01-04T00:00:00" "Restore the first benchmark"
+
+benchmark src/bench/SampleBench.java SampleBench 3
+benchmark src/bench/Other.java OtherBench 3
+commit "2020-01-05T00:00:00" "Change the benchmark and add another"
+git rev-list --objects v1..master | git pack-objects -q .git/objects/pack/pack > /dev/null
+git prune-packed
+
+git rm -q src/copy/SampleBench.java
+commit "2020-01-06T00:00:00" "Remove the copy"
+git pack-refs --all
+
+cd ..
+mv work/.git history.git
+rm -rf work history.git/hooks history.git/logs history.git/index history.git/COMMIT_EDITMSG history.git/description history.git/info
+git --git-dir=history.git config core.bare true